@@ -3,6 +3,8 @@ package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Spring Boot 4 application demonstrating:
@@ -16,6 +18,8 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  */
 @Slf4j
 @SpringBootApplication
+@ConfigurationPropertiesScan
+@EnableScheduling
 public class SpringBootVtStructuredConcurrencyScopedValuesApplication {
 
     static void main(String[] args) {
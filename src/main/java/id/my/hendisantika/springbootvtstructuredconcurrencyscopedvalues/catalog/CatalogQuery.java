@@ -0,0 +1,57 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.catalog;
+
+import lombok.Builder;
+
+import java.math.BigDecimal;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 21.15
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Filter, sort and page of a catalog query. Null filters match everything.
+ *
+ * @param category   category, compared ignoring case
+ * @param active     active flag
+ * @param inStock    whether the stock quantity is above zero
+ * @param minPrice   lowest price, inclusive
+ * @param maxPrice   highest price, inclusive
+ * @param stockBelow stock quantity upper bound, exclusive
+ * @param sort       result order, ID when null
+ * @param descending reverse the order
+ * @param offset     matches to skip
+ * @param limit      maximum matches to return
+ */
+@Builder(toBuilder = true)
+public record CatalogQuery(
+        String category,
+        Boolean active,
+        Boolean inStock,
+        BigDecimal minPrice,
+        BigDecimal maxPrice,
+        Integer stockBelow,
+        CatalogSort sort,
+        boolean descending,
+        int offset,
+        int limit
+) {
+    public CatalogQuery {
+        sort = sort != null ? sort : CatalogSort.ID;
+        if (offset < 0) {
+            throw new IllegalArgumentException("Offset must not be negative: " + offset);
+        }
+        limit = limit > 0 ? limit : Integer.MAX_VALUE;
+    }
+
+    public static CatalogQuery all() {
+        return CatalogQuery.builder().build();
+    }
+}
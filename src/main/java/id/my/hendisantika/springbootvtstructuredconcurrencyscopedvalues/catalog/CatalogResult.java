@@ -0,0 +1,26 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.catalog;
+
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Product;
+
+import java.util.List;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 21.20
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Products of one page of a catalog query, with the number of all matches.
+ */
+public record CatalogResult(
+        List<Product> products,
+        int totalMatches
+) {
+}
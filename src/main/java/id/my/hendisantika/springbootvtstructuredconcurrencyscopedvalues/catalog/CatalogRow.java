@@ -0,0 +1,34 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.catalog;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 21.10
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * A product as read from the database to build the catalog snapshot.
+ */
+public record CatalogRow(
+        Long id,
+        String name,
+        String description,
+        String sku,
+        BigDecimal price,
+        Integer stockQuantity,
+        String category,
+        String imageUrl,
+        Boolean isActive,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt
+) {
+}
@@ -0,0 +1,355 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.catalog;
+
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.ProductFacets;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Product;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 21.25
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Immutable, column-oriented copy of the product catalog.
+ * <p>
+ * Rows are ordered by product id. The fields queries filter on live in
+ * primitive arrays, so a scan touches no objects until a row matches. The
+ * price and name orders are precomputed, and facet counts of the active
+ * products are kept up to date with every change. Changes produce a new snapshot that
+ * shares every array the change does not touch, so readers never lock and
+ * never see a half-applied update.
+ */
+public final class CatalogSnapshot {
+
+    private static final Comparator<CatalogItem> NAME_ORDER =
+            Comparator.comparing(CatalogItem::name, String.CASE_INSENSITIVE_ORDER);
+
+    private final CatalogItem[] items;
+    private final long[] ids;
+    private final long[] priceCents;
+    private final int[] stock;
+    private final boolean[] active;
+    private final int[] categoryOrdinals;
+    private final String[] categories;
+    private final int[] byPrice;
+    private final int[] byName;
+    private final FacetCounts facets;
+
+    private CatalogSnapshot(CatalogItem[] items, long[] ids, long[] priceCents, int[] stock, boolean[] active,
+                            int[] categoryOrdinals, String[] categories, int[] byPrice, int[] byName,
+                            FacetCounts facets) {
+        this.items = items;
+        this.ids = ids;
+        this.priceCents = priceCents;
+        this.stock = stock;
+        this.active = active;
+        this.categoryOrdinals = categoryOrdinals;
+        this.categories = categories;
+        this.byPrice = byPrice != null ? byPrice : order(Comparator.comparingLong(row -> priceCents[row]));
+        this.byName = byName != null ? byName : order((a, b) -> NAME_ORDER.compare(items[a], items[b]));
+        this.facets = facets;
+    }
+
+    /**
+     * Builds a snapshot of the given products.
+     *
+     * @param priceBuckets ascending upper bounds of the price facet buckets
+     */
+    public static CatalogSnapshot of(Collection<CatalogRow> rows, List<BigDecimal> priceBuckets) {
+        List<CatalogRow> sorted = rows.stream()
+                .sorted(Comparator.comparing(CatalogRow::id))
+                .toList();
+        long[] priceBounds = priceBuckets.stream().mapToLong(CatalogSnapshot::toCents).sorted().toArray();
+        Columns columns = new Columns(sorted.size(), new String[0], new FacetCounts(priceBounds));
+        sorted.forEach(columns::add);
+        return columns.toSnapshot();
+    }
+
+    public int size() {
+        return items.length;
+    }
+
+    /**
+     * Returns the page of products matching the query.
+     */
+    public CatalogResult query(CatalogQuery query) {
+        boolean[] categoryMask = query.category() != null ? categoryMask(query.category()) : null;
+        long minPrice = query.minPrice() != null ? toCents(query.minPrice()) : Long.MIN_VALUE;
+        long maxPrice = query.maxPrice() != null ? toCents(query.maxPrice()) : Long.MAX_VALUE;
+        int stockBelow = query.stockBelow() != null ? query.stockBelow() : Integer.MAX_VALUE;
+        int[] order = switch (query.sort()) {
+            case ID -> null;
+            case PRICE -> byPrice;
+            case NAME -> byName;
+        };
+
+        List<Product> page = new ArrayList<>(Math.min(query.limit(), 64));
+        int matches = 0;
+        for (int i = 0; i < items.length; i++) {
+            int position = query.descending() ? items.length - 1 - i : i;
+            int row = order != null ? order[position] : position;
+            if (query.active() != null && active[row] != query.active()) {
+                continue;
+            }
+            if (query.inStock() != null && (stock[row] > 0) != query.inStock()) {
+                continue;
+            }
+            if (stock[row] >= stockBelow || priceCents[row] < minPrice || priceCents[row] > maxPrice) {
+                continue;
+            }
+            if (categoryMask != null && (categoryOrdinals[row] < 0 || !categoryMask[categoryOrdinals[row]])) {
+                continue;
+            }
+            if (matches >= query.offset() && page.size() < query.limit()) {
+                page.add(toProduct(row));
+            }
+            matches++;
+        }
+        return new CatalogResult(page, matches);
+    }
+
+    /**
+     * Returns up to {@code limit} products with an id above {@code afterId}, in
+     * id order. Finds the start with a binary search, so every page costs the same.
+     */
+    public List<Product> after(long afterId, int limit) {
+        int start = Arrays.binarySearch(ids, afterId);
+        start = start >= 0 ? start + 1 : -start - 1;
+        int end = (int) Math.min(ids.length, (long) start + limit);
+        List<Product> page = new ArrayList<>(end - start);
+        for (int row = start; row < end; row++) {
+            page.add(toProduct(row));
+        }
+        return page;
+    }
+
+    public Optional<Product> findById(long id) {
+        int row = Arrays.binarySearch(ids, id);
+        return row >= 0 ? Optional.of(toProduct(row)) : Optional.empty();
+    }
+
+    /**
+     * Returns the facet counts of the active products, of one category
+     * (compared ignoring case) or of all when {@code category} is null.
+     */
+    public ProductFacets facets(String category) {
+        return facets.toFacets(category, categories, category != null ? categoryMask(category) : null);
+    }
+
+    /**
+     * Returns a snapshot with new stock quantities. Only the stock column is
+     * copied; ids not in the catalog are ignored.
+     */
+    public CatalogSnapshot withStock(Collection<StockLevel> levels) {
+        int[] newStock = stock.clone();
+        FacetCounts newFacets = facets.copy();
+        for (StockLevel level : levels) {
+            int row = Arrays.binarySearch(ids, level.id());
+            if (row >= 0) {
+                newFacets.stockChanged(categoryOrdinals[row], active[row], newStock[row], level.stockQuantity());
+                newStock[row] = level.stockQuantity();
+            }
+        }
+        return new CatalogSnapshot(items, ids, priceCents, newStock, active, categoryOrdinals, categories,
+                byPrice, byName, newFacets);
+    }
+
+    /**
+     * Returns a snapshot with the given products added or replaced and the
+     * removed ids dropped. Unchanged rows are copied column by column without
+     * being rebuilt; facet counts are adjusted by the changed rows only, and
+     * the sort orders are only recomputed when rows move or a price or name
+     * changes.
+     */
+    public CatalogSnapshot withProducts(Collection<CatalogRow> changed, Set<Long> removed) {
+        Map<Long, CatalogRow> pending = new HashMap<>();
+        changed.forEach(row -> pending.put(row.id(), row));
+        List<CatalogRow> inserts = changed.stream()
+                .filter(row -> Arrays.binarySearch(ids, row.id()) < 0)
+                .sorted(Comparator.comparing(CatalogRow::id))
+                .toList();
+
+        Columns columns = new Columns(items.length + inserts.size(), categories, facets.copy());
+        boolean reorder = !inserts.isEmpty();
+        int next = 0;
+        for (int row = 0; row < items.length; row++) {
+            while (next < inserts.size() && inserts.get(next).id() < ids[row]) {
+                columns.add(inserts.get(next++));
+            }
+            CatalogRow replacement = pending.get(ids[row]);
+            if (replacement != null) {
+                columns.remove(this, row);
+                columns.add(replacement);
+                reorder |= priceCents[row] != toCents(replacement.price())
+                        || !items[row].name().equals(replacement.name());
+            } else if (!removed.contains(ids[row])) {
+                columns.copy(this, row);
+            } else {
+                columns.remove(this, row);
+                reorder = true;
+            }
+        }
+        while (next < inserts.size()) {
+            columns.add(inserts.get(next++));
+        }
+        return reorder ? columns.toSnapshot() : columns.toSnapshot(byPrice, byName);
+    }
+
+    private Product toProduct(int row) {
+        CatalogItem item = items[row];
+        return Product.builder()
+                .id(item.id())
+                .name(item.name())
+                .description(item.description())
+                .sku(item.sku())
+                .price(item.price())
+                .stockQuantity(stock[row])
+                .category(item.category())
+                .imageUrl(item.imageUrl())
+                .isActive(active[row])
+                .createdAt(item.createdAt())
+                .updatedAt(item.updatedAt())
+                .build();
+    }
+
+    private boolean[] categoryMask(String category) {
+        boolean[] mask = new boolean[categories.length];
+        for (int ordinal = 0; ordinal < categories.length; ordinal++) {
+            mask[ordinal] = categories[ordinal].equalsIgnoreCase(category);
+        }
+        return mask;
+    }
+
+    private int[] order(Comparator<Integer> comparator) {
+        return IntStream.range(0, items.length)
+                .boxed()
+                .sorted(comparator.thenComparingLong(row -> ids[row]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Catalog fields of a product that queries return but never filter on.
+     */
+    private record CatalogItem(
+            long id,
+            String name,
+            String description,
+            String sku,
+            BigDecimal price,
+            String category,
+            String imageUrl,
+            LocalDateTime createdAt,
+            LocalDateTime updatedAt
+    ) {
+        static CatalogItem of(CatalogRow row) {
+            return new CatalogItem(row.id(), row.name(), row.description(), row.sku(), row.price(),
+                    row.category(), row.imageUrl(), row.createdAt(), row.updatedAt());
+        }
+    }
+
+    /**
+     * Column builder for a new snapshot. Categories keep their ordinals;
+     * unseen ones are appended to the dictionary.
+     */
+    private static final class Columns {
+
+        private final CatalogItem[] items;
+        private final long[] ids;
+        private final long[] priceCents;
+        private final int[] stock;
+        private final boolean[] active;
+        private final int[] categoryOrdinals;
+        private final List<String> categories;
+        private final Map<String, Integer> ordinals = new HashMap<>();
+        private final FacetCounts facets;
+        private int size;
+
+        Columns(int capacity, String[] categories, FacetCounts facets) {
+            this.items = new CatalogItem[capacity];
+            this.ids = new long[capacity];
+            this.priceCents = new long[capacity];
+            this.stock = new int[capacity];
+            this.active = new boolean[capacity];
+            this.categoryOrdinals = new int[capacity];
+            this.facets = facets;
+            this.categories = new ArrayList<>(Arrays.asList(categories));
+            for (int ordinal = 0; ordinal < categories.length; ordinal++) {
+                ordinals.put(categories[ordinal], ordinal);
+            }
+        }
+
+        void add(CatalogRow row) {
+            items[size] = CatalogItem.of(row);
+            ids[size] = row.id();
+            priceCents[size] = toCents(row.price());
+            stock[size] = row.stockQuantity();
+            active[size] = Boolean.TRUE.equals(row.isActive());
+            categoryOrdinals[size] = row.category() != null
+                    ? ordinals.computeIfAbsent(row.category(), category -> {
+                        categories.add(category);
+                        return categories.size() - 1;
+                    })
+                    : -1;
+            facets.add(categoryOrdinals[size], priceCents[size], stock[size], active[size], 1);
+            size++;
+        }
+
+        /**
+         * Takes a row of the source snapshot out of the facet counts.
+         */
+        void remove(CatalogSnapshot source, int row) {
+            facets.add(source.categoryOrdinals[row], source.priceCents[row], source.stock[row], source.active[row], -1);
+        }
+
+        void copy(CatalogSnapshot source, int row) {
+            items[size] = source.items[row];
+            ids[size] = source.ids[row];
+            priceCents[size] = source.priceCents[row];
+            stock[size] = source.stock[row];
+            active[size] = source.active[row];
+            categoryOrdinals[size] = source.categoryOrdinals[row];
+            size++;
+        }
+
+        CatalogSnapshot toSnapshot() {
+            return toSnapshot(null, null);
+        }
+
+        CatalogSnapshot toSnapshot(int[] byPrice, int[] byName) {
+            return new CatalogSnapshot(
+                    Arrays.copyOf(items, size),
+                    Arrays.copyOf(ids, size),
+                    Arrays.copyOf(priceCents, size),
+                    Arrays.copyOf(stock, size),
+                    Arrays.copyOf(active, size),
+                    Arrays.copyOf(categoryOrdinals, size),
+                    categories.toArray(String[]::new),
+                    byPrice, byName, facets);
+        }
+    }
+}
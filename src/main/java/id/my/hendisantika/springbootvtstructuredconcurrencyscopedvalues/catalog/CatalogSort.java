@@ -0,0 +1,23 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.catalog;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 21.15
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Orders in which catalog queries can return products. Each is precomputed
+ * in the snapshot, so sorting costs nothing per query.
+ */
+public enum CatalogSort {
+    ID,
+    PRICE,
+    NAME
+}
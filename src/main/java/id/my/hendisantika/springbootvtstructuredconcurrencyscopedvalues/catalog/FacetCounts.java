@@ -0,0 +1,131 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.catalog;
+
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.ProductFacets;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 22.30
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Facet counters of the active products in a {@link CatalogSnapshot}, kept
+ * per category slot (slot 0 holds products without a category).
+ * <p>
+ * Snapshots adjust a copy by the rows they change instead of recounting, and
+ * never modify an instance once it is published, so reading facets costs
+ * only a pass over the categories and buckets.
+ */
+final class FacetCounts {
+
+    private final long[] priceBounds;
+    private int[] products;
+    private int[] inStock;
+    private int[] priceBuckets;
+
+    FacetCounts(long[] priceBounds) {
+        this(priceBounds, new int[1], new int[1], new int[priceBounds.length + 1]);
+    }
+
+    private FacetCounts(long[] priceBounds, int[] products, int[] inStock, int[] priceBuckets) {
+        this.priceBounds = priceBounds;
+        this.products = products;
+        this.inStock = inStock;
+        this.priceBuckets = priceBuckets;
+    }
+
+    FacetCounts copy() {
+        return new FacetCounts(priceBounds, products.clone(), inStock.clone(), priceBuckets.clone());
+    }
+
+    /**
+     * Adds ({@code delta} 1) or removes ({@code delta} -1) a product's contribution.
+     */
+    void add(int categoryOrdinal, long priceCents, int stock, boolean active, int delta) {
+        if (!active) {
+            return;
+        }
+        int slot = slot(categoryOrdinal);
+        products[slot] += delta;
+        if (stock > 0) {
+            inStock[slot] += delta;
+        }
+        priceBuckets[slot * buckets() + bucket(priceCents)] += delta;
+    }
+
+    void stockChanged(int categoryOrdinal, boolean active, int oldStock, int newStock) {
+        if (active && (oldStock > 0) != (newStock > 0)) {
+            inStock[slot(categoryOrdinal)] += newStock > 0 ? 1 : -1;
+        }
+    }
+
+    /**
+     * Counts over the slots in {@code mask} (indexed by category ordinal),
+     * or over all of them when it is null.
+     */
+    ProductFacets toFacets(String category, String[] categories, boolean[] mask) {
+        int totalProducts = 0;
+        int totalInStock = 0;
+        int[] bucketTotals = new int[buckets()];
+        List<ProductFacets.CategoryCount> categoryCounts = new ArrayList<>();
+        // Slots grow ahead of the dictionary; those past it are empty
+        int slots = Math.min(products.length, categories.length + 1);
+        for (int slot = 0; slot < slots; slot++) {
+            int ordinal = slot - 1;
+            if (ordinal >= 0 && products[slot] > 0) {
+                categoryCounts.add(new ProductFacets.CategoryCount(categories[ordinal], products[slot]));
+            }
+            if (mask != null && (ordinal < 0 || !mask[ordinal])) {
+                continue;
+            }
+            totalProducts += products[slot];
+            totalInStock += inStock[slot];
+            for (int bucket = 0; bucket < bucketTotals.length; bucket++) {
+                bucketTotals[bucket] += priceBuckets[slot * bucketTotals.length + bucket];
+            }
+        }
+
+        List<ProductFacets.PriceBucket> buckets = new ArrayList<>(bucketTotals.length);
+        for (int bucket = 0; bucket < bucketTotals.length; bucket++) {
+            buckets.add(new ProductFacets.PriceBucket(
+                    bucket > 0 ? BigDecimal.valueOf(priceBounds[bucket - 1], 2) : BigDecimal.ZERO,
+                    bucket < priceBounds.length ? BigDecimal.valueOf(priceBounds[bucket], 2) : null,
+                    bucketTotals[bucket]));
+        }
+        return new ProductFacets(category, totalProducts, totalInStock, categoryCounts, buckets);
+    }
+
+    private int slot(int categoryOrdinal) {
+        int slot = categoryOrdinal + 1;
+        if (slot >= products.length) {
+            int slots = Math.max(slot + 1, products.length * 2);
+            products = Arrays.copyOf(products, slots);
+            inStock = Arrays.copyOf(inStock, slots);
+            priceBuckets = Arrays.copyOf(priceBuckets, slots * buckets());
+        }
+        return slot;
+    }
+
+    private int buckets() {
+        return priceBounds.length + 1;
+    }
+
+    private int bucket(long priceCents) {
+        int bucket = 0;
+        while (bucket < priceBounds.length && priceCents >= priceBounds[bucket]) {
+            bucket++;
+        }
+        return bucket;
+    }
+}
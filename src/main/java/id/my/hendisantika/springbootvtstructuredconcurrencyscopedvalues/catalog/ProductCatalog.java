@@ -0,0 +1,225 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.catalog;
+
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.config.CatalogProperties;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Product;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.event.ProductChangedEvent;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.event.ProductStockChangedEvent;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.FixedDelayTask;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 21.40
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Holds the current {@link CatalogSnapshot} and product {@link SearchIndex}
+ * and keeps them up to date.
+ * <p>
+ * Readers get the current snapshot with a single volatile read. Changes on
+ * this instance are applied once their transaction commits by re-reading only
+ * the changed rows and swapping in a new snapshot:
+ * <ul>
+ *   <li>product changes (create, update, delete) are applied on the committing
+ *       thread, so listings reflect them as soon as the write returns;</li>
+ *   <li>stock changes are applied by a background virtual thread. Changes
+ *       arriving while it runs are coalesced into the next pass, so a burst of
+ *       orders costs one stock query, not one per order. Until that pass has
+ *       run, listings and facet counts may show the previous stock; orders
+ *       never rely on it, since stock is enforced by the guarded update.</li>
+ * </ul>
+ * If a pass fails, its ids are queued again for the next pass. Changes made
+ * elsewhere (other instances, direct SQL) are picked up by a full reload every
+ * {@code app.catalog.resync-interval}, which also bounds how stale a listing
+ * can get.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductCatalog implements SchedulingConfigurer {
+
+    private final ProductRepository productRepository;
+    private final CatalogProperties properties;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final Set<Long> changedProducts = ConcurrentHashMap.newKeySet();
+    private final Set<Long> changedStock = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+
+    private volatile SearchIndex searchIndex;
+    private volatile CatalogSnapshot snapshot;
+
+    /**
+     * Returns the current snapshot, loading it on first use.
+     */
+    public CatalogSnapshot snapshot() {
+        CatalogSnapshot current = snapshot;
+        return current != null ? current : loadIfAbsent();
+    }
+
+    /**
+     * Returns the products best matching every word of the query.
+     */
+    public List<Product> search(String query, int limit) {
+        CatalogSnapshot current = snapshot();
+        return searchIndex.search(query, limit).stream()
+                .map(current::findById)
+                .flatMap(Optional::stream)
+                .toList();
+    }
+
+    /**
+     * Returns indexed words starting with the prefix, most common first.
+     */
+    public List<String> suggest(String prefix, int limit) {
+        snapshot();
+        return searchIndex.suggest(prefix, limit);
+    }
+
+    /**
+     * Replaces the snapshot and search index with fresh copies of the whole catalog.
+     */
+    public CatalogSnapshot reload() {
+        writeLock.lock();
+        try {
+            long start = System.currentTimeMillis();
+            List<CatalogRow> rows = productRepository.findAllCatalogRows();
+            CatalogSnapshot loaded = CatalogSnapshot.of(rows, properties.priceBuckets());
+            // Published before the snapshot, so the index is set once a snapshot is
+            searchIndex = SearchIndex.of(rows);
+            snapshot = loaded;
+            log.debug("Loaded catalog snapshot of {} products in {} ms",
+                    loaded.size(), System.currentTimeMillis() - start);
+            return loaded;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Loads the catalog once startup, including sample data, is complete.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reload();
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        Duration interval = properties.resyncInterval();
+        registrar.addFixedDelayTask(new FixedDelayTask(this::resync, interval, interval));
+    }
+
+    public void resync() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            log.warn("Catalog resync failed, keeping the current snapshot", e);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        changedProducts.add(event.productId());
+        // Product writes are rare; applying them here lets the writer see its change in the next listing
+        applyChanges();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductStockChanged(ProductStockChangedEvent event) {
+        changedStock.addAll(event.productIds());
+        scheduleRefresh();
+    }
+
+    private CatalogSnapshot loadIfAbsent() {
+        writeLock.lock();
+        try {
+            CatalogSnapshot current = snapshot;
+            return current != null ? current : reload();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void scheduleRefresh() {
+        if (refreshScheduled.compareAndSet(false, true)) {
+            Thread.ofVirtual().name("catalog-refresh").start(this::refresh);
+        }
+    }
+
+    private void refresh() {
+        // Cleared before draining, so changes recorded from here on schedule another pass
+        refreshScheduled.set(false);
+        applyChanges();
+    }
+
+    private void applyChanges() {
+        writeLock.lock();
+        Set<Long> productIds = drain(changedProducts);
+        Set<Long> stockIds = drain(changedStock);
+        try {
+            CatalogSnapshot current = snapshot;
+            if (current == null) {
+                // Not loaded yet; the initial load will see these changes
+                return;
+            }
+
+            if (!productIds.isEmpty()) {
+                List<CatalogRow> rows = productRepository.findCatalogRowsByIdIn(productIds);
+                Set<Long> removed = new HashSet<>(productIds);
+                rows.forEach(row -> removed.remove(row.id()));
+                current = current.withProducts(rows, removed);
+                rows.forEach(searchIndex::put);
+                removed.forEach(searchIndex::remove);
+            }
+            Set<Long> stockOnly = new HashSet<>(stockIds);
+            stockOnly.removeAll(productIds);
+            if (!stockOnly.isEmpty()) {
+                current = current.withStock(productRepository.findStockLevelsByIdIn(stockOnly));
+            }
+            snapshot = current;
+        } catch (RuntimeException e) {
+            // Queued again for the next pass; re-indexing a product is idempotent
+            changedProducts.addAll(productIds);
+            changedStock.addAll(stockIds);
+            log.warn("Catalog refresh failed, its changes are retried with the next pass or resync", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private static Set<Long> drain(Set<Long> ids) {
+        Set<Long> drained = new HashSet<>();
+        for (Long id : ids) {
+            if (ids.remove(id)) {
+                drained.add(id);
+            }
+        }
+        return drained;
+    }
+}
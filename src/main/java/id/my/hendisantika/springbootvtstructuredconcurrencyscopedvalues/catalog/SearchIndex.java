@@ -0,0 +1,240 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.catalog;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 22.55
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Inverted index over product name, SKU and description.
+ * <p>
+ * Terms are lower-cased words of at least two characters, kept sorted so a
+ * prefix is a range scan. Each term maps to the products containing it with a
+ * field-boosted weight (name over SKU over description). A trigram index over
+ * the terms finds terms that merely contain a query word, like the
+ * {@code LIKE '%keyword%'} search it replaces.
+ * <p>
+ * A query matches products containing every query word: as a whole term
+ * first, as a term prefix next, inside a term last. Updates come from a
+ * single writer; searches run concurrently without locking. A re-indexed
+ * product is published under its new terms before it is dropped from the
+ * terms it lost, so a concurrent search never misses it under a term it has
+ * both before and after.
+ */
+public final class SearchIndex {
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int MIN_TERM_LENGTH = 2;
+    private static final int GRAM_LENGTH = 3;
+
+    private static final float NAME_BOOST = 3f;
+    private static final float SKU_BOOST = 2f;
+    private static final float DESCRIPTION_BOOST = 1f;
+
+    private static final float EXACT_MATCH = 1f;
+    private static final float PREFIX_MATCH = 0.6f;
+    private static final float INFIX_MATCH = 0.3f;
+
+    private final ConcurrentSkipListMap<String, Map<Long, Float>> postings = new ConcurrentSkipListMap<>();
+    private final Map<String, Set<String>> termsByGram = new ConcurrentHashMap<>();
+    private final Map<Long, Set<String>> termsByProduct = new HashMap<>();
+
+    public static SearchIndex of(Collection<CatalogRow> rows) {
+        SearchIndex index = new SearchIndex();
+        rows.forEach(index::put);
+        return index;
+    }
+
+    /**
+     * Indexes a product, replacing what was indexed for it before. Not thread-safe
+     * against other updates.
+     */
+    public void put(CatalogRow row) {
+        Map<String, Float> weights = new HashMap<>();
+        weigh(weights, row.name(), NAME_BOOST);
+        weigh(weights, row.sku(), SKU_BOOST);
+        weigh(weights, row.description(), DESCRIPTION_BOOST);
+
+        // New weights replace old ones in place; stale terms are dropped only afterwards
+        weights.forEach((term, weight) -> postings.computeIfAbsent(term, newTerm -> {
+            grams(newTerm).forEach(gram -> termsByGram.computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet()).add(newTerm));
+            return new ConcurrentHashMap<>();
+        }).put(row.id(), weight));
+        Set<String> previousTerms = termsByProduct.put(row.id(), weights.keySet());
+        if (previousTerms != null) {
+            for (String term : previousTerms) {
+                if (!weights.containsKey(term)) {
+                    removePosting(term, row.id());
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes a product from the index. Not thread-safe against other updates.
+     */
+    public void remove(Long productId) {
+        Set<String> terms = termsByProduct.remove(productId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            removePosting(term, productId);
+        }
+    }
+
+    /**
+     * Returns the ids of the products matching every word of the query, best first.
+     */
+    public List<Long> search(String query, int limit) {
+        Map<Long, Float> scores = null;
+        for (String word : tokenize(query)) {
+            Map<Long, Float> wordScores = match(word);
+            if (scores == null) {
+                scores = wordScores;
+            } else {
+                scores.keySet().retainAll(wordScores.keySet());
+                scores.replaceAll((productId, score) -> score + wordScores.get(productId));
+            }
+            if (scores.isEmpty()) {
+                break;
+            }
+        }
+        if (scores == null) {
+            return List.of();
+        }
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Float>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    /**
+     * Returns indexed terms starting with the prefix, those in most products first.
+     */
+    public List<String> suggest(String prefix, int limit) {
+        String normalized = prefix.strip().toLowerCase(Locale.ROOT);
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+        return withPrefix(normalized).entrySet().stream()
+                .sorted(Comparator.comparing((Map.Entry<String, Map<Long, Float>> term) -> term.getValue().size())
+                        .reversed()
+                        .thenComparing(Map.Entry::getKey))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    private void removePosting(String term, Long productId) {
+        Map<Long, Float> products = postings.get(term);
+        products.remove(productId);
+        if (products.isEmpty()) {
+            postings.remove(term);
+            // A term can repeat a trigram ("banana"); the set is gone after the first one
+            for (String gram : grams(term)) {
+                Set<String> gramTerms = termsByGram.get(gram);
+                if (gramTerms != null && gramTerms.remove(term) && gramTerms.isEmpty()) {
+                    termsByGram.remove(gram);
+                }
+            }
+        }
+    }
+
+    private Map<Long, Float> match(String word) {
+        Map<Long, Float> scores = new HashMap<>();
+        withPrefix(word).forEach((term, products) ->
+                addScores(scores, products, term.equals(word) ? EXACT_MATCH : PREFIX_MATCH));
+        if (word.length() >= GRAM_LENGTH) {
+            for (String term : termsContaining(word)) {
+                if (!term.startsWith(word)) {
+                    Map<Long, Float> products = postings.get(term);
+                    if (products != null) {
+                        addScores(scores, products, INFIX_MATCH);
+                    }
+                }
+            }
+        }
+        return scores;
+    }
+
+    private Map<String, Map<Long, Float>> withPrefix(String prefix) {
+        return postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    private List<String> termsContaining(String word) {
+        // Candidates share every trigram of the word; start from the rarest one
+        Set<String> candidates = null;
+        for (String gram : grams(word)) {
+            Set<String> terms = termsByGram.get(gram);
+            if (terms == null) {
+                return List.of();
+            }
+            if (candidates == null || terms.size() < candidates.size()) {
+                candidates = terms;
+            }
+        }
+        List<String> matches = new ArrayList<>();
+        for (String term : candidates) {
+            if (term.contains(word)) {
+                matches.add(term);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Keeps the best weight per product when a word matches several terms of it.
+     */
+    private static void addScores(Map<Long, Float> scores, Map<Long, Float> products, float match) {
+        products.forEach((productId, weight) -> scores.merge(productId, weight * match, Math::max));
+    }
+
+    private static void weigh(Map<String, Float> weights, String text, float boost) {
+        for (String term : tokenize(text)) {
+            weights.merge(term, boost, Float::sum);
+        }
+    }
+
+    private static Set<String> tokenize(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (text == null) {
+            return terms;
+        }
+        for (String token : SEPARATORS.split(text.toLowerCase(Locale.ROOT))) {
+            if (token.length() >= MIN_TERM_LENGTH) {
+                terms.add(token);
+            }
+        }
+        return terms;
+    }
+
+    private static List<String> grams(String term) {
+        List<String> grams = new ArrayList<>(Math.max(term.length() - GRAM_LENGTH + 1, 0));
+        for (int start = 0; start + GRAM_LENGTH <= term.length(); start++) {
+            grams.add(term.substring(start, start + GRAM_LENGTH));
+        }
+        return grams;
+    }
+}
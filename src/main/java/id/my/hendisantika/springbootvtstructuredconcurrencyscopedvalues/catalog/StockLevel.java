@@ -0,0 +1,22 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.catalog;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 21.10
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Current stock quantity of a product.
+ */
+public record StockLevel(
+        Long id,
+        Integer stockQuantity
+) {
+}
@@ -0,0 +1,34 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.concurrency;
+
+import java.time.Duration;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 09.15
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Thrown when the {@link ConnectionBulkhead} sheds a request because no
+ * connection permit became available within the bounded wait, or because the
+ * admission queue is already full.
+ */
+public class AdmissionRejectedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public AdmissionRejectedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,70 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.concurrency;
+
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.context.RequestDeadline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.StructuredTaskScope;
+import java.util.function.Function;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 09.10
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Loads values for a list of keys with as few calls as possible.
+ * <p>
+ * Up to {@code chunkSize} keys are loaded with a single call on the current
+ * thread (typically one {@code IN} query inside the caller's transaction).
+ * Larger key lists are split into chunks that are loaded in parallel
+ * StructuredTaskScope subtasks, so a huge {@code IN} list neither blows the
+ * statement size nor serialises on one connection.
+ */
+public final class ChunkedLoader {
+
+    private ChunkedLoader() {
+        // Utility class - prevent instantiation
+    }
+
+    public static <K, V> List<V> load(List<K> keys, int chunkSize, Function<List<K>, List<V>> loader) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        if (keys.isEmpty()) {
+            return List.of();
+        }
+        if (keys.size() <= chunkSize) {
+            return loader.apply(keys);
+        }
+
+        // Subtasks inherit ScopedValues; the scope times out with the request deadline
+        try (var scope = StructuredTaskScope.open(
+                StructuredTaskScope.Joiner.<List<V>>awaitAllSuccessfulOrThrow(),
+                RequestDeadline.withRemainingTime())) {
+
+            List<StructuredTaskScope.Subtask<List<V>>> chunks = new ArrayList<>();
+            for (int from = 0; from < keys.size(); from += chunkSize) {
+                List<K> chunk = List.copyOf(keys.subList(from, Math.min(from + chunkSize, keys.size())));
+                chunks.add(scope.fork(() -> loader.apply(chunk)));
+            }
+
+            scope.join();
+
+            List<V> values = new ArrayList<>(keys.size());
+            chunks.forEach(chunk -> values.addAll(chunk.get()));
+            return values;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Chunked load interrupted", e);
+        }
+    }
+}
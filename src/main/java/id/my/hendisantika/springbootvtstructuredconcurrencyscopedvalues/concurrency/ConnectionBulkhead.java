@@ -0,0 +1,244 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.concurrency;
+
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.context.ScopedValues;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 09.15
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Bulkhead that admits callers to the JDBC connection pool.
+ * <p>
+ * With virtual threads Tomcat accepts far more concurrent requests than the
+ * pool has connections, and every StructuredTaskScope fork that touches a
+ * repository needs a connection of its own. Instead of letting those threads
+ * pile up inside HikariCP until {@code connection-timeout} expires, callers
+ * queue here for a bounded time and are rejected fast once the wait or the
+ * queue depth is exceeded.
+ * <p>
+ * The number of permits is bound to the pool size when the DataSource is
+ * wrapped (see {@code AdmissionControlConfig}).
+ * <p>
+ * Admission is decided once per request. A request that already holds a
+ * connection (tracked by its {@link RequestAdmission}) is never queued or shed:
+ * its forks take a free permit if there is one and otherwise borrow straight
+ * from the pool. Queueing them would be hold-and-wait, since a dashboard whose
+ * transaction holds one connection while three forks each wait for another
+ * would, under load, time out against permits held by requests just like it.
+ */
+@Slf4j
+public class ConnectionBulkhead implements MeterBinder {
+
+    private final int configuredPermits;
+    private final Duration maxWait;
+    private final int maxQueueDepth;
+    private final Duration retryAfter;
+
+    private final AtomicInteger queueDepth = new AtomicInteger();
+
+    private volatile Semaphore permits;
+    private volatile int capacity;
+
+    private volatile Timer admittedTimer;
+    private volatile Timer rejectedTimer;
+    private volatile Counter rejectedCounter;
+    private volatile Counter overdraftCounter;
+
+    public ConnectionBulkhead(int configuredPermits, Duration maxWait, int maxQueueDepth, Duration retryAfter) {
+        this.configuredPermits = configuredPermits;
+        this.maxWait = maxWait;
+        this.maxQueueDepth = maxQueueDepth;
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Sizes the bulkhead for a pool. An explicitly configured permit count wins,
+     * otherwise every pooled connection becomes one permit.
+     */
+    public ConnectionBulkhead bindPool(int poolSize) {
+        int size = configuredPermits > 0 ? Math.min(configuredPermits, poolSize) : poolSize;
+        this.capacity = size;
+        this.permits = new Semaphore(size, true);
+        log.info("Connection bulkhead bound to pool: permits={}, maxWait={}, maxQueueDepth={}",
+                size, maxWait, maxQueueDepth);
+        return this;
+    }
+
+    /**
+     * Admits the caller to the pool. A request that already holds a connection is
+     * admitted right away; any other caller waits up to {@code maxWait} for a permit.
+     *
+     * @return the admission, to be released once the connection is closed
+     * @throws AdmissionRejectedException if the queue is full or the wait expires
+     */
+    public Permit acquire() {
+        RequestAdmission admission = ScopedValues.REQUEST_ADMISSION.orElse(null);
+        Semaphore semaphore = permits;
+        if (semaphore == null) {
+            return new Permit(null, admission);
+        }
+
+        // Zero-wait attempt first; a timed tryAcquire honours the fair ordering of queued callers
+        if (tryAcquire(semaphore, 0)) {
+            record(admittedTimer, 0);
+            return new Permit(semaphore, admission);
+        }
+
+        // A fork of an admitted request: waiting here would wait on the parent's own connection
+        if (admission != null && admission.holdsConnection()) {
+            Counter counter = overdraftCounter;
+            if (counter != null) {
+                counter.increment();
+            }
+            return new Permit(null, admission);
+        }
+
+        if (queueDepth.incrementAndGet() > maxQueueDepth) {
+            queueDepth.decrementAndGet();
+            reject(0, "Admission queue full (depth " + maxQueueDepth + ")");
+        }
+
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = tryAcquire(semaphore, maxWait.toNanos());
+        } finally {
+            queueDepth.decrementAndGet();
+        }
+
+        long waitedNanos = System.nanoTime() - start;
+        if (!acquired) {
+            reject(waitedNanos, "No connection permit available within " + maxWait.toMillis() + "ms");
+        }
+        record(admittedTimer, waitedNanos);
+        return new Permit(semaphore, admission);
+    }
+
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    public int getAvailablePermits() {
+        Semaphore semaphore = permits;
+        return semaphore != null ? semaphore.availablePermits() : 0;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("app.admission.queue.depth", this, ConnectionBulkhead::getQueueDepth)
+                .description("Callers waiting for a connection permit")
+                .register(registry);
+        Gauge.builder("app.admission.permits.available", this, ConnectionBulkhead::getAvailablePermits)
+                .description("Connection permits currently free")
+                .register(registry);
+        Gauge.builder("app.admission.permits.capacity", this, ConnectionBulkhead::getCapacity)
+                .description("Connection permits in total")
+                .register(registry);
+        admittedTimer = Timer.builder("app.admission.wait")
+                .description("Time spent waiting for a connection permit")
+                .tag("outcome", "admitted")
+                .register(registry);
+        rejectedTimer = Timer.builder("app.admission.wait")
+                .description("Time spent waiting for a connection permit")
+                .tag("outcome", "rejected")
+                .register(registry);
+        rejectedCounter = Counter.builder("app.admission.rejected")
+                .description("Requests shed by the connection bulkhead")
+                .register(registry);
+        overdraftCounter = Counter.builder("app.admission.overdraft")
+                .description("Connections borrowed without a permit by forks of an admitted request")
+                .register(registry);
+    }
+
+    private void reject(long waitedNanos, String reason) {
+        record(rejectedTimer, waitedNanos);
+        Counter counter = rejectedCounter;
+        if (counter != null) {
+            counter.increment();
+        }
+        log.warn("Shedding load: {} [queueDepth={}]", reason, queueDepth.get());
+        throw new AdmissionRejectedException(reason, retryAfter);
+    }
+
+    private boolean tryAcquire(Semaphore semaphore, long timeoutNanos) {
+        try {
+            return semaphore.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AdmissionRejectedException("Interrupted while waiting for a connection permit", retryAfter);
+        }
+    }
+
+    private static void record(Timer timer, long nanos) {
+        if (timer != null) {
+            timer.record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * One admitted connection borrow. Gives its permit back, if it took one,
+     * exactly once.
+     */
+    public static final class Permit {
+
+        private final Semaphore semaphore;
+        private final RequestAdmission admission;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(Semaphore semaphore, RequestAdmission admission) {
+            this.semaphore = semaphore;
+            this.admission = admission;
+            if (admission != null) {
+                admission.connectionBorrowed();
+            }
+        }
+
+        /**
+         * Whether this borrow holds one of the bulkhead's permits, rather than
+         * riding on the admission of its request.
+         */
+        public boolean holdsPermit() {
+            return semaphore != null;
+        }
+
+        public void release() {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            if (admission != null) {
+                admission.connectionReturned();
+            }
+            if (semaphore != null) {
+                semaphore.release();
+            }
+        }
+    }
+}
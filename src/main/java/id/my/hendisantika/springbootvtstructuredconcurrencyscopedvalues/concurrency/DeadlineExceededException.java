@@ -0,0 +1,23 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.concurrency;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 14.20
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Thrown when work is about to start although the request deadline has already passed.
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
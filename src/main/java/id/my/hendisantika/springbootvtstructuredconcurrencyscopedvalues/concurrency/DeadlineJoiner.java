@@ -0,0 +1,142 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.concurrency;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.StructuredTaskScope;
+import java.util.concurrent.StructuredTaskScope.Subtask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 10.40
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Joiner that waits for its subtasks until a deadline, then cancels the
+ * stragglers and keeps whatever finished in time.
+ * <p>
+ * Unlike the default {@code StructuredTaskScope.open()} policy, a failing
+ * subtask does not cancel its siblings. After {@link #join} the caller
+ * inspects each subtask's state:
+ * <ul>
+ *     <li>{@code SUCCESS} - finished before the deadline</li>
+ *     <li>{@code FAILED} - threw an exception</li>
+ *     <li>{@code UNAVAILABLE} - still running at the deadline and cancelled</li>
+ * </ul>
+ * A Joiner only learns about subtasks when they are forked or complete, so the
+ * deadline is driven by a timer subtask that {@link #join} forks last. That
+ * also tells the joiner forking is over, letting the scope finish early as soon
+ * as every real subtask is done.
+ * <pre>{@code
+ * var joiner = DeadlineJoiner.<Object>within(Duration.ofMillis(200));
+ * try (var scope = StructuredTaskScope.open(joiner)) {
+ *     var a = scope.fork(() -> loadA());
+ *     var b = scope.fork(() -> loadB());
+ *     joiner.join(scope);
+ *     ...
+ * }
+ * }</pre>
+ * A DeadlineJoiner must be used with a single scope.
+ */
+public final class DeadlineJoiner<T> implements StructuredTaskScope.Joiner<T, DeadlineJoiner.Outcome> {
+
+    private final Instant deadline;
+
+    private final AtomicInteger forked = new AtomicInteger();
+    private final AtomicInteger completed = new AtomicInteger();
+    private final AtomicInteger succeeded = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+
+    private volatile boolean arming;
+    private volatile Subtask<? extends T> timer;
+    private volatile boolean deadlineExceeded;
+
+    private DeadlineJoiner(Instant deadline) {
+        this.deadline = deadline;
+    }
+
+    public static <T> DeadlineJoiner<T> until(Instant deadline) {
+        return new DeadlineJoiner<>(deadline);
+    }
+
+    public static <T> DeadlineJoiner<T> within(Duration budget) {
+        return new DeadlineJoiner<>(Instant.now().plus(budget));
+    }
+
+    public Instant deadline() {
+        return deadline;
+    }
+
+    /**
+     * Starts the deadline timer and joins the scope. Call this instead of
+     * {@code scope.join()} once every subtask has been forked.
+     */
+    public Outcome join(StructuredTaskScope<T, ? extends Outcome> scope) throws InterruptedException {
+        arming = true;
+        scope.fork(() -> {
+            awaitDeadline();
+            return null;
+        });
+        return scope.join();
+    }
+
+    @Override
+    public boolean onFork(Subtask<? extends T> subtask) {
+        if (arming) {
+            // Forking is over: the scope is done already if every subtask completed before now
+            arming = false;
+            timer = subtask;
+            return completed.get() == forked.get();
+        }
+        forked.incrementAndGet();
+        return false;
+    }
+
+    @Override
+    public boolean onComplete(Subtask<? extends T> subtask) {
+        if (subtask == timer) {
+            deadlineExceeded = true;
+            return true;
+        }
+        if (subtask.state() == Subtask.State.SUCCESS) {
+            succeeded.incrementAndGet();
+        } else {
+            failed.incrementAndGet();
+        }
+        int done = completed.incrementAndGet();
+        return timer != null && done == forked.get();
+    }
+
+    @Override
+    public Outcome result() {
+        return new Outcome(forked.get(), succeeded.get(), failed.get(), deadlineExceeded);
+    }
+
+    private void awaitDeadline() throws InterruptedException {
+        Duration remaining = Duration.between(Instant.now(), deadline);
+        if (remaining.isPositive()) {
+            Thread.sleep(remaining);
+        }
+    }
+
+    /**
+     * Summary of a joined scope. Subtasks neither succeeded nor failed were cancelled at the deadline.
+     */
+    public record Outcome(int forked, int succeeded, int failed, boolean deadlineExceeded) {
+
+        public int cancelled() {
+            return forked - succeeded - failed;
+        }
+
+        public boolean complete() {
+            return succeeded == forked;
+        }
+    }
+}
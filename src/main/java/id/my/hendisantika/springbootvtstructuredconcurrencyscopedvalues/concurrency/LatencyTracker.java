@@ -0,0 +1,66 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.concurrency;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 13.05
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Sliding window of the most recent latency samples of one backend, used to
+ * derive percentiles such as the p95 that drives request hedging.
+ * <p>
+ * Samples live in a fixed ring buffer, so old measurements age out and the
+ * percentile follows the backend as it speeds up or slows down.
+ */
+public final class LatencyTracker {
+
+    private final long[] samples;
+    private int next;
+    private int count;
+
+    public LatencyTracker(int windowSize) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("Window size must be positive: " + windowSize);
+        }
+        this.samples = new long[windowSize];
+    }
+
+    public synchronized void record(Duration latency) {
+        samples[next] = latency.toNanos();
+        next = (next + 1) % samples.length;
+        if (count < samples.length) {
+            count++;
+        }
+    }
+
+    public synchronized int sampleCount() {
+        return count;
+    }
+
+    /**
+     * Returns the given percentile (0.0 - 1.0) of the current window, or
+     * {@code fallback} while fewer than {@code minSamples} have been recorded.
+     */
+    public Duration percentile(double percentile, int minSamples, Duration fallback) {
+        long[] snapshot;
+        synchronized (this) {
+            if (count < Math.max(1, minSamples)) {
+                return fallback;
+            }
+            snapshot = Arrays.copyOf(samples, count);
+        }
+        Arrays.sort(snapshot);
+        int rank = (int) Math.ceil(percentile * snapshot.length) - 1;
+        return Duration.ofNanos(snapshot[Math.clamp(rank, 0, snapshot.length - 1)]);
+    }
+}
@@ -0,0 +1,45 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.concurrency;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 09.15
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Counts the pooled connections one request holds, across the request thread
+ * and all of its StructuredTaskScope forks.
+ * <p>
+ * One instance is bound per request (see {@code ScopedValues.REQUEST_ADMISSION}),
+ * so forks inherit it. The {@link ConnectionBulkhead} uses it to tell a new
+ * request, which queues for a permit, from a fork of a request that is already
+ * admitted, which must not wait behind the connection its own parent holds.
+ */
+public final class RequestAdmission {
+
+    private final AtomicInteger heldConnections = new AtomicInteger();
+
+    public boolean holdsConnection() {
+        return heldConnections.get() > 0;
+    }
+
+    public int getHeldConnections() {
+        return heldConnections.get();
+    }
+
+    void connectionBorrowed() {
+        heldConnections.incrementAndGet();
+    }
+
+    void connectionReturned() {
+        heldConnections.decrementAndGet();
+    }
+}
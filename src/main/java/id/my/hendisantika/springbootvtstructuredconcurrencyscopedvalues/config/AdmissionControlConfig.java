@@ -0,0 +1,59 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.concurrency.ConnectionBulkhead;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 09.15
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Puts a {@link ConnectionBulkhead} in front of the HikariCP pool.
+ * <p>
+ * Every repository call, whether it runs on the request thread or inside a
+ * StructuredTaskScope fork, borrows its connection through the wrapped
+ * DataSource, so the bulkhead sees the real connection demand of a request.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "app.admission-control", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionControlConfig {
+
+    @Bean
+    public static BeanPostProcessor admissionControlDataSourcePostProcessor(
+            ObjectProvider<ConnectionBulkhead> connectionBulkhead) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource hikariDataSource) {
+                    ConnectionBulkhead bulkhead = connectionBulkhead.getObject()
+                            .bindPool(hikariDataSource.getMaximumPoolSize());
+                    return new AdmissionControlDataSource(hikariDataSource, bulkhead);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public ConnectionBulkhead connectionBulkhead(AdmissionControlProperties properties) {
+        return new ConnectionBulkhead(
+                properties.maxConcurrentConnections(),
+                properties.maxWait(),
+                properties.maxQueueDepth(),
+                properties.retryAfter()
+        );
+    }
+}
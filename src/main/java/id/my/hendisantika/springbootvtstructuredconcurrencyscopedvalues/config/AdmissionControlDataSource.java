@@ -0,0 +1,116 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.config;
+
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.concurrency.ConnectionBulkhead;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 09.15
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * DataSource that is admitted by the {@link ConnectionBulkhead} before borrowing a
+ * pooled connection and gives the admission back when the connection is closed.
+ */
+public class AdmissionControlDataSource extends DelegatingDataSource {
+
+    private final ConnectionBulkhead bulkhead;
+
+    public AdmissionControlDataSource(DataSource targetDataSource, ConnectionBulkhead bulkhead) {
+        super(targetDataSource);
+        this.bulkhead = bulkhead;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        ConnectionBulkhead.Permit permit = bulkhead.acquire();
+        try {
+            return wrap(obtainTargetDataSource().getConnection(), permit);
+        } catch (SQLException | RuntimeException e) {
+            permit.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        ConnectionBulkhead.Permit permit = bulkhead.acquire();
+        try {
+            return wrap(obtainTargetDataSource().getConnection(username, password), permit);
+        } catch (SQLException | RuntimeException e) {
+            permit.release();
+            throw e;
+        }
+    }
+
+    public ConnectionBulkhead getBulkhead() {
+        return bulkhead;
+    }
+
+    private static Connection wrap(Connection target, ConnectionBulkhead.Permit permit) {
+        return (Connection) Proxy.newProxyInstance(
+                ConnectionProxy.class.getClassLoader(),
+                new Class<?>[]{ConnectionProxy.class},
+                new PermitReleasingInvocationHandler(target, permit));
+    }
+
+    /**
+     * Releases the admission on {@code close()}; the permit itself guards against a second release.
+     */
+    private static final class PermitReleasingInvocationHandler implements InvocationHandler {
+
+        private final Connection target;
+        private final ConnectionBulkhead.Permit permit;
+
+        private PermitReleasingInvocationHandler(Connection target, ConnectionBulkhead.Permit permit) {
+            this.target = target;
+            this.permit = permit;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "getTargetConnection" -> {
+                    return target;
+                }
+                case "close" -> {
+                    try {
+                        target.close();
+                    } finally {
+                        permit.release();
+                    }
+                    return null;
+                }
+                default -> {
+                    try {
+                        return method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                }
+            }
+        }
+    }
+}
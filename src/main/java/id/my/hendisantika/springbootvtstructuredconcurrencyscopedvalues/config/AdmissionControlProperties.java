@@ -0,0 +1,37 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 09.15
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Settings for the connection-pool bulkhead.
+ *
+ * @param enabled                  whether the DataSource is wrapped at all
+ * @param maxConcurrentConnections permits to hand out; 0 means "use the pool size"
+ * @param maxWait                  how long a caller may queue for a permit
+ * @param maxQueueDepth            callers allowed to queue before new ones are rejected outright
+ * @param retryAfter               value advertised in the Retry-After header of a 503
+ */
+@ConfigurationProperties("app.admission-control")
+public record AdmissionControlProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("0") int maxConcurrentConnections,
+        @DefaultValue("250ms") Duration maxWait,
+        @DefaultValue("200") int maxQueueDepth,
+        @DefaultValue("1s") Duration retryAfter
+) {
+}
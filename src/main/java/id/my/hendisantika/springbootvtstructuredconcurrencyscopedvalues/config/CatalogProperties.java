@@ -0,0 +1,34 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 22.20
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Settings for the in-memory catalog snapshot.
+ *
+ * @param resyncInterval how often the snapshot is reloaded from the database
+ * @param priceBuckets   ascending upper bounds (exclusive) of the price facet buckets;
+ *                       a last bucket takes everything above the highest bound
+ */
+@ConfigurationProperties("app.catalog")
+public record CatalogProperties(
+        @DefaultValue("5m") Duration resyncInterval,
+        @DefaultValue({"25", "50", "100", "250", "500"}) List<BigDecimal> priceBuckets
+) {
+}
@@ -0,0 +1,30 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 23.25
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Settings for the in-memory customer search index.
+ *
+ * @param resyncInterval how often the index is rebuilt from the database, to pick up
+ *                       changes made by other instances
+ */
+@ConfigurationProperties("app.customer-search")
+public record CustomerSearchProperties(
+        @DefaultValue("15m") Duration resyncInterval
+) {
+}
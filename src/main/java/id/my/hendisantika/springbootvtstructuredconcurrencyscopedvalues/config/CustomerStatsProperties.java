@@ -0,0 +1,36 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 19.50
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Settings for the customer stats read model.
+ *
+ * @param rebuild settings of the job that recomputes all customer stats
+ */
+@ConfigurationProperties("app.customer-stats")
+public record CustomerStatsProperties(
+        @DefaultValue Rebuild rebuild
+) {
+    /**
+     * @param chunkSize   customers recomputed per statement and transaction
+     * @param parallelism chunks recomputed at the same time, each holding a connection
+     */
+    public record Rebuild(
+            @DefaultValue("1000") int chunkSize,
+            @DefaultValue("4") int parallelism
+    ) {
+    }
+}
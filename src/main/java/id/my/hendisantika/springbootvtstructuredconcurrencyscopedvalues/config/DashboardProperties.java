@@ -0,0 +1,29 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 10.40
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Settings for the customer dashboard.
+ *
+ * @param deadline time the dashboard sections get before the slow ones are dropped
+ */
+@ConfigurationProperties("app.dashboard")
+public record DashboardProperties(
+        @DefaultValue("300ms") Duration deadline
+) {
+}
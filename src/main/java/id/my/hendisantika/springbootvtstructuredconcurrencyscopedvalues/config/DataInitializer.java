@@ -7,6 +7,7 @@ import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.P
 import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.CustomerRepository;
 import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.OrderRepository;
 import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.ProductRepository;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.service.OrderNumberGenerator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
@@ -18,7 +19,6 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
 
 /**
  * Created by IntelliJ IDEA.
@@ -45,6 +45,7 @@ public class DataInitializer implements CommandLineRunner {
     private final CustomerRepository customerRepository;
     private final ProductRepository productRepository;
     private final OrderRepository orderRepository;
+    private final OrderNumberGenerator orderNumberGenerator;
 
     @Override
     @Transactional
@@ -209,7 +210,7 @@ public class DataInitializer implements CommandLineRunner {
 
         // Order 1: John Doe - Multiple items
         Order order1 = Order.builder()
-                .orderNumber("ORD-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase())
+                .orderNumber(orderNumberGenerator.nextOrderNumber())
                 .customer(customers.get(0))
                 .status(Order.OrderStatus.DELIVERED)
                 .shippingAddress(customers.get(0).getShippingAddress())
@@ -226,7 +227,7 @@ public class DataInitializer implements CommandLineRunner {
 
         // Order 2: Jane Smith - Single item
         Order order2 = Order.builder()
-                .orderNumber("ORD-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase())
+                .orderNumber(orderNumberGenerator.nextOrderNumber())
                 .customer(customers.get(1))
                 .status(Order.OrderStatus.SHIPPED)
                 .shippingAddress(customers.get(1).getShippingAddress())
@@ -241,7 +242,7 @@ public class DataInitializer implements CommandLineRunner {
 
         // Order 3: Bob Johnson - Processing
         Order order3 = Order.builder()
-                .orderNumber("ORD-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase())
+                .orderNumber(orderNumberGenerator.nextOrderNumber())
                 .customer(customers.get(2))
                 .status(Order.OrderStatus.PROCESSING)
                 .shippingAddress(customers.get(2).getShippingAddress())
@@ -256,7 +257,7 @@ public class DataInitializer implements CommandLineRunner {
 
         // Order 4: Alice Williams - Pending
         Order order4 = Order.builder()
-                .orderNumber("ORD-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase())
+                .orderNumber(orderNumberGenerator.nextOrderNumber())
                 .customer(customers.get(3))
                 .status(Order.OrderStatus.PENDING)
                 .shippingAddress(customers.get(3).getShippingAddress())
@@ -271,7 +272,7 @@ public class DataInitializer implements CommandLineRunner {
 
         // Order 5: John Doe - Another order (showing customer with multiple orders)
         Order order5 = Order.builder()
-                .orderNumber("ORD-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase())
+                .orderNumber(orderNumberGenerator.nextOrderNumber())
                 .customer(customers.get(0))
                 .status(Order.OrderStatus.CONFIRMED)
                 .shippingAddress(customers.get(0).getShippingAddress())
@@ -0,0 +1,53 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.config;
+
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.context.RequestDeadline;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.context.ScopedValues;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionTimedOutException;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 14.20
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * JpaTransactionManager that caps every transaction timeout at the time left
+ * before the request deadline.
+ * <p>
+ * Hibernate turns the transaction timeout into a JDBC query timeout for each
+ * statement, and Spring applies it to JdbcTemplate calls in the same
+ * transaction, so queries issued for a request the client has given up on are
+ * cancelled by the database instead of holding a connection. Transactions
+ * started inside StructuredTaskScope forks see the same deadline because the
+ * ScopedValue is inherited.
+ */
+public class DeadlineAwareJpaTransactionManager extends JpaTransactionManager {
+
+    public DeadlineAwareJpaTransactionManager(EntityManagerFactory entityManagerFactory) {
+        super(entityManagerFactory);
+    }
+
+    @Override
+    protected int determineTimeout(TransactionDefinition definition) {
+        int timeout = super.determineTimeout(definition);
+        if (!ScopedValues.REQUEST_DEADLINE.isBound()) {
+            return timeout;
+        }
+
+        RequestDeadline deadline = ScopedValues.REQUEST_DEADLINE.get();
+        if (deadline.isExpired()) {
+            throw new TransactionTimedOutException("Request deadline passed before the transaction started");
+        }
+        int remaining = deadline.remainingSeconds();
+        return timeout == TransactionDefinition.TIMEOUT_DEFAULT ? remaining : Math.min(timeout, remaining);
+    }
+}
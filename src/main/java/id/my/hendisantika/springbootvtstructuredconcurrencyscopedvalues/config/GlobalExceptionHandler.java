@@ -1,9 +1,14 @@
 package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.config;
 
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.concurrency.AdmissionRejectedException;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.concurrency.DeadlineExceededException;
 import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.context.ScopedValues;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.TransactionTimedOutException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -11,7 +16,9 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 import java.time.Instant;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.StructuredTaskScope;
 
 /**
  * Created by IntelliJ IDEA.
@@ -28,6 +35,17 @@ import java.util.Map;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    /**
+     * Ways the request deadline surfaces: a timed-out scope, work refused up front,
+     * and JDBC/transaction timeouts derived from the deadline.
+     */
+    private static final List<Class<? extends Throwable>> DEADLINE_EXCEPTIONS = List.of(
+            StructuredTaskScope.TimeoutException.class,
+            DeadlineExceededException.class,
+            TransactionTimedOutException.class,
+            QueryTimeoutException.class
+    );
+
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<ErrorResponse> handleIllegalArgumentException(IllegalArgumentException ex) {
         String requestId = ScopedValues.currentRequestContext().requestId();
@@ -84,8 +102,65 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(error);
     }
 
+    /**
+     * Load shed by the connection bulkhead: 503 with a Retry-After hint.
+     */
+    @ExceptionHandler(AdmissionRejectedException.class)
+    public ResponseEntity<ErrorResponse> handleAdmissionRejectedException(AdmissionRejectedException ex) {
+        String requestId = ScopedValues.currentRequestContext().requestId();
+        log.warn("Service unavailable [requestId={}]: {}", requestId, ex.getMessage());
+
+        ErrorResponse error = new ErrorResponse(
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "Service Unavailable",
+                "Server is at capacity, please retry later",
+                requestId,
+                Instant.now()
+        );
+
+        long retryAfterSeconds = Math.max(1, (ex.getRetryAfter().toMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(error);
+    }
+
+    /**
+     * The request ran out of its time budget: 504.
+     */
+    @ExceptionHandler({
+            StructuredTaskScope.TimeoutException.class,
+            DeadlineExceededException.class,
+            TransactionTimedOutException.class,
+            QueryTimeoutException.class
+    })
+    public ResponseEntity<ErrorResponse> handleDeadlineExceededException(Exception ex) {
+        String requestId = ScopedValues.currentRequestContext().requestId();
+        log.warn("Deadline exceeded [requestId={}]: {}", requestId, ex.toString());
+
+        ErrorResponse error = new ErrorResponse(
+                HttpStatus.GATEWAY_TIMEOUT.value(),
+                "Gateway Timeout",
+                "Request deadline exceeded",
+                requestId,
+                Instant.now()
+        );
+
+        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(error);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleGenericException(Exception ex) {
+        // Rejections raised while opening a connection arrive wrapped by JPA, Spring or a StructuredTaskScope
+        AdmissionRejectedException rejected = findCause(ex, AdmissionRejectedException.class);
+        if (rejected != null) {
+            return handleAdmissionRejectedException(rejected);
+        }
+        for (Class<? extends Throwable> deadlineException : DEADLINE_EXCEPTIONS) {
+            if (findCause(ex, deadlineException) != null) {
+                return handleDeadlineExceededException(ex);
+            }
+        }
+
         String requestId = ScopedValues.currentRequestContext().requestId();
         log.error("Internal error [requestId={}]: {}", requestId, ex.getMessage(), ex);
 
@@ -100,6 +175,18 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
     }
 
+    private static <T extends Throwable> T findCause(Throwable ex, Class<T> type) {
+        for (Throwable current = ex; current != null; current = current.getCause()) {
+            if (type.isInstance(current)) {
+                return type.cast(current);
+            }
+            if (current.getCause() == current) {
+                break;
+            }
+        }
+        return null;
+    }
+
     public record ErrorResponse(
             int status,
             String error,
@@ -0,0 +1,65 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.config;
+
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.IdSequences;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 16.20
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Moves every table-backed id sequence past the ids already in its table.
+ * <p>
+ * Orders and order items used to get AUTO_INCREMENT ids, so a fresh sequence
+ * row would hand out ids that are already taken. Runs once at startup, after
+ * Hibernate has updated the schema and before any entity is persisted, and
+ * never moves a sequence backwards.
+ */
+@Slf4j
+@Component
+public class IdSequenceInitializer implements InitializingBean {
+
+    /**
+     * Sequence segment to the table whose ids it generates.
+     */
+    private static final Map<String, String> SEQUENCE_TABLES = Map.of(
+            IdSequences.ORDERS, "orders",
+            IdSequences.ORDER_ITEMS, "order_items");
+
+    private static final String SEED_SQL = "INSERT INTO " + IdSequences.TABLE +
+            " (" + IdSequences.SEGMENT_COLUMN + ", " + IdSequences.VALUE_COLUMN + ") VALUES (?, ?) AS seed" +
+            " ON DUPLICATE KEY UPDATE " + IdSequences.VALUE_COLUMN + " = GREATEST(" +
+            IdSequences.TABLE + "." + IdSequences.VALUE_COLUMN + ", seed." + IdSequences.VALUE_COLUMN + ")";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // The EntityManagerFactory is only injected so the schema exists before seeding
+    public IdSequenceInitializer(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        SEQUENCE_TABLES.forEach((segment, table) -> {
+            Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+            // The pooled optimizer may hand out ids up to one block below the stored value
+            long nextValue = maxId + IdSequences.ALLOCATION_SIZE + 1;
+            jdbcTemplate.update(SEED_SQL, segment, nextValue);
+            log.debug("Id sequence '{}' seeded past max id {} of table {}", segment, maxId, table);
+        });
+    }
+}
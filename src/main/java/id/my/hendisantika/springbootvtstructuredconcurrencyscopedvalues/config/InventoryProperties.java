@@ -0,0 +1,48 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 13.05
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Settings for the warehouse inventory checks.
+ *
+ * @param hedging hedged-request settings for {@code findAvailableInventory}
+ */
+@ConfigurationProperties("app.inventory")
+public record InventoryProperties(
+        @DefaultValue Hedging hedging
+) {
+    /**
+     * @param enabled             query the preferred warehouse first and the others only after the hedge delay
+     * @param preferredWarehouse  warehouse that is asked first
+     * @param percentile          latency percentile of the preferred warehouse used as hedge delay
+     * @param initialDelay        hedge delay until enough samples have been recorded
+     * @param minDelay            lower bound for the hedge delay
+     * @param windowSize          latency samples kept per warehouse
+     * @param minSamples          samples needed before the tracked percentile is trusted
+     */
+    public record Hedging(
+            @DefaultValue("true") boolean enabled,
+            @DefaultValue("WAREHOUSE-CENTRAL") String preferredWarehouse,
+            @DefaultValue("0.95") double percentile,
+            @DefaultValue("100ms") Duration initialDelay,
+            @DefaultValue("5ms") Duration minDelay,
+            @DefaultValue("256") int windowSize,
+            @DefaultValue("20") int minSamples
+    ) {
+    }
+}
@@ -0,0 +1,27 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 23.30
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Settings for the multi-get endpoints ({@code ?ids=1,2,3}).
+ *
+ * @param chunkSize ids resolved by one {@code IN} query; larger batches are resolved in parallel chunks
+ */
+@ConfigurationProperties("app.multi-get")
+public record MultiGetProperties(
+        @DefaultValue("200") int chunkSize
+) {
+}
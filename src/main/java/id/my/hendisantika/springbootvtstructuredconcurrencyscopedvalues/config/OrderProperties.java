@@ -0,0 +1,64 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 09.10
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Settings for order processing.
+ *
+ * @param nodeId     id of this instance (0-1023) in generated order numbers; must differ per instance
+ * @param validation order item validation settings
+ * @param batch      batch order submission settings
+ * @param export     order export settings
+ */
+@ConfigurationProperties("app.orders")
+public record OrderProperties(
+        @DefaultValue("0") int nodeId,
+        @DefaultValue Validation validation,
+        @DefaultValue Batch batch,
+        @DefaultValue Export export
+) {
+    /**
+     * @param chunkSize products loaded by one {@code IN} query; larger orders are loaded in parallel chunks
+     */
+    public record Validation(
+            @DefaultValue("500") int chunkSize
+    ) {
+    }
+
+    /**
+     * @param maxOrders largest accepted batch
+     * @param chunkSize orders saved per transaction
+     */
+    public record Batch(
+            @DefaultValue("5000") int maxOrders,
+            @DefaultValue("500") int chunkSize
+    ) {
+    }
+
+    /**
+     * @param pageSize      orders read per short query; each page is written before the next is read
+     * @param maxConcurrent exports running at once; more are rejected with a 503
+     * @param retryAfter    value advertised in the Retry-After header of a rejected export
+     */
+    public record Export(
+            @DefaultValue("500") int pageSize,
+            @DefaultValue("2") int maxConcurrent,
+            @DefaultValue("30s") Duration retryAfter
+    ) {
+    }
+}
@@ -0,0 +1,35 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 20.45
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Settings for the in-process product cache.
+ *
+ * @param maximumSize products kept in the catalog cache (and stock cache)
+ * @param ttl         how long catalog data (name, price, ...) is cached; changes made on
+ *                    this instance invalidate it immediately
+ * @param stockTtl    how long stock quantities are cached; short, so changes made on
+ *                    other instances show up quickly
+ */
+@ConfigurationProperties("app.product-cache")
+public record ProductCacheProperties(
+        @DefaultValue("10000") long maximumSize,
+        @DefaultValue("10m") Duration ttl,
+        @DefaultValue("2s") Duration stockTtl
+) {
+}
@@ -1,9 +1,12 @@
 package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.config;
 
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.concurrency.RequestAdmission;
 import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.context.RequestContext;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.context.RequestDeadline;
 import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.context.ScopedValues;
 import jakarta.servlet.*;
 import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
@@ -11,6 +14,7 @@ import org.springframework.stereotype.Component;
 import java.io.IOException;
 import java.time.Instant;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Created by IntelliJ IDEA.
@@ -27,14 +31,25 @@ import java.util.UUID;
 /**
  * Filter that establishes ScopedValue bindings for each HTTP request.
  * <p>
- * This filter runs early in the filter chain and uses ScopedValue.where().run()
+ * This filter runs early in the filter chain and uses ScopedValue.where().call()
  * to bind the RequestContext for the duration of the request. All code
  * executing within the request (including virtual threads spawned via
  * StructuredTaskScope) will have access to this context.
+ * <p>
+ * The request deadline is bound alongside it, taken from the
+ * {@code X-Request-Timeout} header or the endpoint's default budget, and so is
+ * the request's {@link RequestAdmission} for the connection bulkhead.
+ * <p>
+ * It runs on every request, so it keeps allocation low: missing ids come from
+ * ThreadLocalRandom instead of SecureRandom, and X-Forwarded-For is cut
+ * without a regex split. All headers are copied into the immutable context
+ * before binding, so forked subtasks never touch the request object, which
+ * the container recycles once the request completes.
  */
 @Slf4j
 @Component
 @Order(1)
+@RequiredArgsConstructor
 public class RequestContextFilter implements Filter {
 
     private static final String HEADER_REQUEST_ID = "X-Request-ID";
@@ -42,6 +57,8 @@ public class RequestContextFilter implements Filter {
     private static final String HEADER_USER_ID = "X-User-ID";
     private static final String HEADER_USER_EMAIL = "X-User-Email";
 
+    private final RequestDeadlineResolver requestDeadlineResolver;
+
     @Override
     public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain)
             throws IOException, ServletException {
@@ -50,27 +67,28 @@ public class RequestContextFilter implements Filter {
 
         // Build the request context from headers
         RequestContext context = buildRequestContext(httpRequest);
+        RequestDeadline deadline = requestDeadlineResolver.resolve(httpRequest);
 
-        log.debug("Binding RequestContext for request: {} [correlationId={}]",
-                context.requestId(), context.correlationId());
+        if (log.isDebugEnabled()) {
+            log.debug("Binding RequestContext for request: {} [correlationId={}, budget={}ms]",
+                    context.requestId(), context.correlationId(), deadline.budget().toMillis());
+        }
 
-        // Use ScopedValue.where().run() to bind the context for the duration of the request (JDK 25 API)
+        // Use ScopedValue.where().call() to bind the context for the duration of the request (JDK 25 API);
+        // call() passes the chain's checked exceptions straight through
         try {
-            ScopedValue.where(ScopedValues.REQUEST_CONTEXT, context).run(() -> {
-                try {
-                    filterChain.doFilter(servletRequest, servletResponse);
-                } catch (IOException | ServletException e) {
-                    throw new RuntimeException(e);
-                }
-            });
-        } catch (RuntimeException e) {
-            if (e.getCause() instanceof IOException ioException) {
-                throw ioException;
-            }
-            if (e.getCause() instanceof ServletException servletException) {
-                throw servletException;
-            }
+            ScopedValue.where(ScopedValues.REQUEST_CONTEXT, context)
+                    .where(ScopedValues.REQUEST_DEADLINE, deadline)
+                    .where(ScopedValues.REQUEST_ADMISSION, new RequestAdmission())
+                    .call(() -> {
+                        filterChain.doFilter(servletRequest, servletResponse);
+                        return null;
+                    });
+        } catch (IOException | ServletException | RuntimeException e) {
             throw e;
+        } catch (Exception e) {
+            // Not thrown by FilterChain.doFilter, only declared through the lambda's inferred type
+            throw new ServletException(e);
         }
 
         log.debug("Request completed: {} [correlationId={}]",
@@ -78,29 +96,41 @@ public class RequestContextFilter implements Filter {
     }
 
     private RequestContext buildRequestContext(HttpServletRequest request) {
-        String requestId = getOrGenerateHeader(request, HEADER_REQUEST_ID);
-        String correlationId = getOrGenerateHeader(request, HEADER_CORRELATION_ID);
-
-        return RequestContext.builder()
-                .requestId(requestId)
-                .correlationId(correlationId)
-                .userId(request.getHeader(HEADER_USER_ID))
-                .userEmail(request.getHeader(HEADER_USER_EMAIL))
-                .clientIp(getClientIp(request))
-                .userAgent(request.getHeader("User-Agent"))
-                .timestamp(Instant.now())
-                .build();
+        String requestId = request.getHeader(HEADER_REQUEST_ID);
+        if (requestId == null || requestId.isBlank()) {
+            requestId = randomId();
+        }
+        String correlationId = request.getHeader(HEADER_CORRELATION_ID);
+        if (correlationId == null || correlationId.isBlank()) {
+            correlationId = randomId();
+        }
+
+        return new RequestContext(
+                requestId,
+                request.getHeader(HEADER_USER_ID),
+                request.getHeader(HEADER_USER_EMAIL),
+                correlationId,
+                Instant.now(),
+                resolveClientIp(request),
+                request.getHeader("User-Agent"));
     }
 
-    private String getOrGenerateHeader(HttpServletRequest request, String headerName) {
-        String value = request.getHeader(headerName);
-        return (value != null && !value.isBlank()) ? value : UUID.randomUUID().toString();
+    /**
+     * Random version 4 UUID string from ThreadLocalRandom. Request ids only need to be
+     * unique, not unpredictable, so this avoids UUID.randomUUID()'s SecureRandom.
+     */
+    private static String randomId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long mostSigBits = (random.nextLong() & ~0xF000L) | 0x4000L;
+        long leastSigBits = (random.nextLong() & ~(0xCL << 60)) | (0x8L << 60);
+        return new UUID(mostSigBits, leastSigBits).toString();
     }
 
-    private String getClientIp(HttpServletRequest request) {
+    private static String resolveClientIp(HttpServletRequest request) {
         String xForwardedFor = request.getHeader("X-Forwarded-For");
         if (xForwardedFor != null && !xForwardedFor.isBlank()) {
-            return xForwardedFor.split(",")[0].trim();
+            int comma = xForwardedFor.indexOf(',');
+            return (comma < 0 ? xForwardedFor : xForwardedFor.substring(0, comma)).strip();
         }
         return request.getRemoteAddr();
     }
@@ -0,0 +1,38 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 14.20
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Settings for request deadlines.
+ *
+ * @param defaultTimeout budget of requests without an {@code X-Request-Timeout} header
+ * @param maxTimeout     upper bound for budgets requested by clients
+ * @param endpoints      per-endpoint default budgets, keyed by path pattern
+ *                       (e.g. {@code app.deadline.endpoints[/api/demo/**]=1s})
+ */
+@ConfigurationProperties("app.deadline")
+public record RequestDeadlineProperties(
+        @DefaultValue("10s") Duration defaultTimeout,
+        @DefaultValue("60s") Duration maxTimeout,
+        Map<String, Duration> endpoints
+) {
+    public RequestDeadlineProperties {
+        endpoints = endpoints != null ? endpoints : Map.of();
+    }
+}
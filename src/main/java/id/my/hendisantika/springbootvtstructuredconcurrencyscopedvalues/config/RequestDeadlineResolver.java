@@ -0,0 +1,92 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.config;
+
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.context.RequestDeadline;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 14.20
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Works out the deadline of an incoming request.
+ * <p>
+ * A client may ask for a budget with the {@code X-Request-Timeout} header
+ * (milliseconds, or a duration such as {@code 2s}), capped at
+ * {@code app.deadline.max-timeout}. Otherwise the most specific
+ * {@code app.deadline.endpoints} pattern matching the path applies, falling
+ * back to {@code app.deadline.default-timeout}.
+ */
+@Slf4j
+@Component
+public class RequestDeadlineResolver {
+
+    public static final String HEADER_REQUEST_TIMEOUT = "X-Request-Timeout";
+
+    private final Duration defaultTimeout;
+    private final Duration maxTimeout;
+    private final List<EndpointTimeout> endpointTimeouts;
+
+    public RequestDeadlineResolver(RequestDeadlineProperties properties) {
+        this.defaultTimeout = properties.defaultTimeout();
+        this.maxTimeout = properties.maxTimeout();
+        this.endpointTimeouts = properties.endpoints().entrySet().stream()
+                .map(entry -> new EndpointTimeout(PathPatternParser.defaultInstance.parse(entry.getKey()), entry.getValue()))
+                .sorted(Comparator.comparing(EndpointTimeout::pattern, PathPattern.SPECIFICITY_COMPARATOR))
+                .toList();
+    }
+
+    public RequestDeadline resolve(HttpServletRequest request) {
+        Duration requested = parseHeader(request.getHeader(HEADER_REQUEST_TIMEOUT));
+        if (requested != null) {
+            return RequestDeadline.after(requested.compareTo(maxTimeout) > 0 ? maxTimeout : requested);
+        }
+        return RequestDeadline.after(endpointTimeout(request.getRequestURI()));
+    }
+
+    private Duration endpointTimeout(String path) {
+        if (endpointTimeouts.isEmpty()) {
+            return defaultTimeout;
+        }
+        PathContainer pathContainer = PathContainer.parsePath(path);
+        for (EndpointTimeout endpointTimeout : endpointTimeouts) {
+            if (endpointTimeout.pattern().matches(pathContainer)) {
+                return endpointTimeout.timeout();
+            }
+        }
+        return defaultTimeout;
+    }
+
+    private Duration parseHeader(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            Duration timeout = DurationStyle.detectAndParse(value.trim());
+            return timeout.isPositive() ? timeout : null;
+        } catch (IllegalArgumentException e) {
+            log.debug("Ignoring invalid {} header: {}", HEADER_REQUEST_TIMEOUT, value);
+            return null;
+        }
+    }
+
+    private record EndpointTimeout(PathPattern pattern, Duration timeout) {
+    }
+}
@@ -31,34 +31,21 @@ public record RequestContext(
         String clientIp,
         String userAgent
 ) {
+    /**
+     * Context seen outside of a request; shared, so its timestamp is the epoch.
+     */
+    public static final RequestContext EMPTY =
+            new RequestContext("unknown", null, null, null, Instant.EPOCH, null, null);
+
     public static RequestContext empty() {
-        return RequestContext.builder()
-                .requestId("unknown")
-                .timestamp(Instant.now())
-                .build();
+        return EMPTY;
     }
 
     public RequestContext withUserId(String userId) {
-        return RequestContext.builder()
-                .requestId(this.requestId)
-                .userId(userId)
-                .userEmail(this.userEmail)
-                .correlationId(this.correlationId)
-                .timestamp(this.timestamp)
-                .clientIp(this.clientIp)
-                .userAgent(this.userAgent)
-                .build();
+        return new RequestContext(requestId, userId, userEmail, correlationId, timestamp, clientIp, userAgent);
     }
 
     public RequestContext withUserEmail(String userEmail) {
-        return RequestContext.builder()
-                .requestId(this.requestId)
-                .userId(this.userId)
-                .userEmail(userEmail)
-                .correlationId(this.correlationId)
-                .timestamp(this.timestamp)
-                .clientIp(this.clientIp)
-                .userAgent(this.userAgent)
-                .build();
+        return new RequestContext(requestId, userId, userEmail, correlationId, timestamp, clientIp, userAgent);
     }
 }
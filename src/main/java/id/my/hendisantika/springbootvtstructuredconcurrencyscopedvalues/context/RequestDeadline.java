@@ -0,0 +1,87 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.context;
+
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.concurrency.DeadlineExceededException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.StructuredTaskScope;
+import java.util.function.Function;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 14.20
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Point in time by which the current request must be answered.
+ * <p>
+ * Bound once per request by the RequestContextFilter (see
+ * {@link ScopedValues#REQUEST_DEADLINE}) and inherited by every subtask forked
+ * from the request, so StructuredTaskScopes and JDBC statements deep in the
+ * call tree all work against the same budget.
+ */
+public record RequestDeadline(Instant expiresAt, Duration budget) {
+
+    public static RequestDeadline after(Duration budget) {
+        return new RequestDeadline(Instant.now().plus(budget), budget);
+    }
+
+    public Duration remaining() {
+        return Duration.between(Instant.now(), expiresAt);
+    }
+
+    public boolean isExpired() {
+        return !remaining().isPositive();
+    }
+
+    /**
+     * Remaining time in whole seconds, rounded up, as JDBC and Spring transaction timeouts expect.
+     */
+    public int remainingSeconds() {
+        long millis = remaining().toMillis();
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, (millis + 999) / 1000));
+    }
+
+    /**
+     * Returns the earlier of this deadline and {@code other}.
+     */
+    public Instant earliest(Instant other) {
+        return expiresAt.isBefore(other) ? expiresAt : other;
+    }
+
+    /**
+     * @throws DeadlineExceededException if the deadline has passed
+     */
+    public void ensureNotExpired() {
+        if (isExpired()) {
+            throw new DeadlineExceededException("Request deadline of " + budget.toMillis() + "ms exceeded");
+        }
+    }
+
+    /**
+     * StructuredTaskScope configuration that times the scope out when the
+     * current request's deadline passes. Without a bound deadline the
+     * configuration is left unchanged.
+     * <pre>{@code
+     * StructuredTaskScope.open(Joiner.awaitAllSuccessfulOrThrow(), RequestDeadline.withRemainingTime())
+     * }</pre>
+     *
+     * @throws DeadlineExceededException if the deadline has already passed
+     */
+    public static Function<StructuredTaskScope.Configuration, StructuredTaskScope.Configuration> withRemainingTime() {
+        if (!ScopedValues.REQUEST_DEADLINE.isBound()) {
+            return Function.identity();
+        }
+        RequestDeadline deadline = ScopedValues.REQUEST_DEADLINE.get();
+        deadline.ensureNotExpired();
+        Duration remaining = deadline.remaining();
+        return configuration -> configuration.withTimeout(remaining);
+    }
+}
@@ -1,5 +1,9 @@
 package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.context;
 
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.concurrency.RequestAdmission;
+
+import java.util.Optional;
+
 /**
  * Created by IntelliJ IDEA.
  * Project : spring-boot-vt-structured-concurrency-scoped-values
@@ -33,6 +37,16 @@ public final class ScopedValues {
      * created using StructuredTaskScope.
      */
     public static final ScopedValue<RequestContext> REQUEST_CONTEXT = ScopedValue.newInstance();
+    /**
+     * Holds the deadline of the current request. StructuredTaskScopes use it
+     * as their timeout and transactions as their JDBC query timeout.
+     */
+    public static final ScopedValue<RequestDeadline> REQUEST_DEADLINE = ScopedValue.newInstance();
+    /**
+     * Counts the pooled connections held by the current request and its forks,
+     * so the connection bulkhead admits each request once.
+     */
+    public static final ScopedValue<RequestAdmission> REQUEST_ADMISSION = ScopedValue.newInstance();
     /**
      * Holds the current transaction ID for distributed tracing.
      */
@@ -47,13 +61,17 @@ public final class ScopedValues {
     }
 
     /**
-     * Gets the current request context or throws if not bound.
+     * Gets the current request context, or {@link RequestContext#EMPTY} if not bound.
      */
     public static RequestContext currentRequestContext() {
-        if (REQUEST_CONTEXT.isBound()) {
-            return REQUEST_CONTEXT.get();
-        }
-        return RequestContext.empty();
+        return REQUEST_CONTEXT.orElse(RequestContext.EMPTY);
+    }
+
+    /**
+     * Gets the current request deadline, if one is bound.
+     */
+    public static Optional<RequestDeadline> currentDeadline() {
+        return REQUEST_DEADLINE.isBound() ? Optional.of(REQUEST_DEADLINE.get()) : Optional.empty();
     }
 
     /**
@@ -1,8 +1,14 @@
 package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.controller;
 
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.CursorPage;
 import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.CustomerDashboard;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.CustomerSearchPage;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.CustomerStatsRebuild;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.CustomerView;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.MultiGetResult;
 import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Customer;
 import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.service.CustomerService;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.service.CustomerStatsService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -29,7 +35,12 @@ import java.util.List;
 @RequiredArgsConstructor
 public class CustomerController {
 
+    private static final int MAX_SEARCH_PAGE_SIZE = 50;
+    private static final int MAX_SEARCH_PAGE = 100;
+    private static final int MAX_DASHBOARD_BATCH = 100;
+
     private final CustomerService customerService;
+    private final CustomerStatsService customerStatsService;
 
     /**
      * Get customer dashboard with aggregated data.
@@ -43,30 +54,85 @@ public class CustomerController {
         return ResponseEntity.ok(dashboard);
     }
 
+    /**
+     * Builds the dashboards of up to {@value MAX_DASHBOARD_BATCH} customers, e.g. {@code ?ids=3,1,2},
+     * with the same number of queries as a single dashboard.
+     */
+    @GetMapping("/dashboards")
+    public ResponseEntity<MultiGetResult<CustomerDashboard>> getCustomerDashboards(@RequestParam List<Long> ids) {
+        MultiGetResult.checkIds(ids);
+        if (ids.size() > MAX_DASHBOARD_BATCH) {
+            throw new IllegalArgumentException("ids must list at most " + MAX_DASHBOARD_BATCH + " customers");
+        }
+        log.info("Request received for {} customer dashboards", ids.size());
+        return ResponseEntity.ok(customerService.getCustomerDashboards(ids));
+    }
+
+    /**
+     * Recompute the customer stats read model from all orders, in parallel chunks.
+     */
+    @PostMapping("/stats/rebuild")
+    public ResponseEntity<CustomerStatsRebuild> rebuildCustomerStats() {
+        log.info("Request received to rebuild customer stats");
+        return ResponseEntity.ok(customerStatsService.rebuild());
+    }
+
+    /**
+     * Typeahead search by partial first name, last name or email, best matches first.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<CustomerSearchPage> searchCustomers(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        if (page < 0 || page > MAX_SEARCH_PAGE || size < 1 || size > MAX_SEARCH_PAGE_SIZE) {
+            throw new IllegalArgumentException("page must be between 0 and " + MAX_SEARCH_PAGE
+                    + " and size between 1 and " + MAX_SEARCH_PAGE_SIZE);
+        }
+        return ResponseEntity.ok(customerService.search(q, page, size));
+    }
+
+    /**
+     * Customers in id order, one keyset page at a time. Pass the returned
+     * {@code nextCursor} as {@code after} to read the next page.
+     */
     @GetMapping
-    public ResponseEntity<List<Customer>> getAllCustomers() {
-        return ResponseEntity.ok(customerService.findAll());
+    public ResponseEntity<CursorPage<CustomerView>> getAllCustomers(
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(defaultValue = "" + CursorPage.DEFAULT_LIMIT) int limit) {
+        CursorPage.checkLimit(limit);
+        return ResponseEntity.ok(customerService.findAll(after, limit));
+    }
+
+    /**
+     * Resolves up to {@value MultiGetResult#MAX_IDS} ids in one call, e.g. {@code ?ids=3,1,2}.
+     * Results come in the requested order, with {@code found} false for ids that do not exist.
+     */
+    @GetMapping(params = "ids")
+    public ResponseEntity<MultiGetResult<CustomerView>> getCustomersByIds(@RequestParam List<Long> ids) {
+        MultiGetResult.checkIds(ids);
+        return ResponseEntity.ok(customerService.findAllById(ids));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Customer> getCustomerById(@PathVariable Long id) {
+    public ResponseEntity<CustomerView> getCustomerById(@PathVariable Long id) {
         return customerService.findById(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @PostMapping
-    public ResponseEntity<Customer> createCustomer(@Valid @RequestBody Customer customer) {
-        Customer savedCustomer = customerService.save(customer);
+    public ResponseEntity<CustomerView> createCustomer(@Valid @RequestBody Customer customer) {
+        CustomerView savedCustomer = customerService.save(customer);
         return ResponseEntity.status(HttpStatus.CREATED).body(savedCustomer);
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<Customer> updateCustomer(
+    public ResponseEntity<CustomerView> updateCustomer(
             @PathVariable Long id,
             @Valid @RequestBody Customer customer) {
         try {
-            Customer updatedCustomer = customerService.update(id, customer);
+            CustomerView updatedCustomer = customerService.update(id, customer);
             return ResponseEntity.ok(updatedCustomer);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.notFound().build();
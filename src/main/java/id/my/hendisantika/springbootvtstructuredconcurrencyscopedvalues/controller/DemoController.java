@@ -1,6 +1,7 @@
 package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.controller;
 
 import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.context.RequestContext;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.context.RequestDeadline;
 import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.context.ScopedValues;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
@@ -73,7 +74,10 @@ public class DemoController {
         result.put("parentRequestId", parentContext.requestId());
 
         // JDK 25 API: StructuredTaskScope.open() replaces new StructuredTaskScope.ShutdownOnFailure()
-        try (var scope = StructuredTaskScope.open()) {
+        // The scope times out with the request deadline
+        try (var scope = StructuredTaskScope.open(
+                StructuredTaskScope.Joiner.<Map<String, Object>>awaitAllSuccessfulOrThrow(),
+                RequestDeadline.withRemainingTime())) {
 
             // Fork multiple tasks - each will inherit the ScopedValue
             var task1 = scope.fork(() -> {
@@ -148,7 +152,10 @@ public class DemoController {
         Map<String, Object> result = new HashMap<>();
 
         // JDK 25 API: StructuredTaskScope.open() replaces new StructuredTaskScope.ShutdownOnFailure()
-        try (var scope = StructuredTaskScope.open()) {
+        // The scope times out with the request deadline
+        try (var scope = StructuredTaskScope.open(
+                StructuredTaskScope.Joiner.<Map<String, Object>>awaitAllSuccessfulOrThrow(),
+                RequestDeadline.withRemainingTime())) {
 
             var fastTask = scope.fork(() -> {
                 Thread.sleep(50);
@@ -1,16 +1,27 @@
 package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.controller;
 
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.CursorPage;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.MultiGetResult;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.OrderBatchResult;
 import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.OrderRequest;
 import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.OrderResponse;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.OrderSummary;
 import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Order;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.service.OrderBatchService;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.service.OrderExportService;
 import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.service.OrderService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -30,7 +41,11 @@ import java.util.List;
 @RequiredArgsConstructor
 public class OrderController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     private final OrderService orderService;
+    private final OrderExportService orderExportService;
+    private final OrderBatchService orderBatchService;
 
     /**
      * Create a new order with parallel item validation.
@@ -49,9 +64,52 @@ public class OrderController {
         }
     }
 
+    /**
+     * Creates a batch of orders. Each order succeeds or fails on its own; the result
+     * reports the outcome of every order by its position in the batch.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<OrderBatchResult> createOrders(@RequestBody List<OrderRequest> requests) {
+        log.info("Creating a batch of {} orders", requests.size());
+        return ResponseEntity.ok(orderBatchService.submit(requests));
+    }
+
+    /**
+     * Orders in id order, one keyset page at a time. Pass the returned
+     * {@code nextCursor} as {@code after} to read the next page.
+     */
     @GetMapping
-    public ResponseEntity<List<Order>> getAllOrders() {
-        return ResponseEntity.ok(orderService.findAll());
+    public ResponseEntity<CursorPage<OrderSummary>> getAllOrders(
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(defaultValue = "" + CursorPage.DEFAULT_LIMIT) int limit) {
+        CursorPage.checkLimit(limit);
+        return ResponseEntity.ok(orderService.findAll(after, limit));
+    }
+
+    /**
+     * Streams the matching orders with their items as newline-delimited JSON,
+     * one order per line, in id order. {@code from} and {@code to} are inclusive
+     * ISO date-times.
+     */
+    @GetMapping(value = "/export", produces = NDJSON)
+    public void exportOrders(
+            @RequestParam(required = false) Order.OrderStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        orderExportService.export(status, from, to, response.getOutputStream());
+    }
+
+    /**
+     * Resolves up to {@value MultiGetResult#MAX_IDS} ids in one call, e.g. {@code ?ids=3,1,2}.
+     * Results come in the requested order, with {@code found} false for ids that do not exist.
+     */
+    @GetMapping(params = "ids")
+    public ResponseEntity<MultiGetResult<OrderResponse>> getOrdersByIds(@RequestParam List<Long> ids) {
+        MultiGetResult.checkIds(ids);
+        return ResponseEntity.ok(orderService.findAllById(ids));
     }
 
     @GetMapping("/{id}")
@@ -69,21 +127,29 @@ public class OrderController {
     }
 
     @GetMapping("/customer/{customerId}")
-    public ResponseEntity<List<Order>> getOrdersByCustomer(@PathVariable Long customerId) {
-        return ResponseEntity.ok(orderService.findByCustomerId(customerId));
+    public ResponseEntity<CursorPage<OrderSummary>> getOrdersByCustomer(
+            @PathVariable Long customerId,
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(defaultValue = "" + CursorPage.DEFAULT_LIMIT) int limit) {
+        CursorPage.checkLimit(limit);
+        return ResponseEntity.ok(orderService.findByCustomerId(customerId, after, limit));
     }
 
     @GetMapping("/status/{status}")
-    public ResponseEntity<List<Order>> getOrdersByStatus(@PathVariable Order.OrderStatus status) {
-        return ResponseEntity.ok(orderService.findByStatus(status));
+    public ResponseEntity<CursorPage<OrderSummary>> getOrdersByStatus(
+            @PathVariable Order.OrderStatus status,
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(defaultValue = "" + CursorPage.DEFAULT_LIMIT) int limit) {
+        CursorPage.checkLimit(limit);
+        return ResponseEntity.ok(orderService.findByStatus(status, after, limit));
     }
 
     @PutMapping("/{id}/status")
-    public ResponseEntity<Order> updateOrderStatus(
+    public ResponseEntity<OrderResponse> updateOrderStatus(
             @PathVariable Long id,
             @RequestParam Order.OrderStatus status) {
         try {
-            Order updatedOrder = orderService.updateStatus(id, status);
+            OrderResponse updatedOrder = orderService.updateStatus(id, status);
             return ResponseEntity.ok(updatedOrder);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.notFound().build();
@@ -91,9 +157,9 @@ public class OrderController {
     }
 
     @PostMapping("/{id}/cancel")
-    public ResponseEntity<Order> cancelOrder(@PathVariable Long id) {
+    public ResponseEntity<OrderResponse> cancelOrder(@PathVariable Long id) {
         try {
-            Order cancelledOrder = orderService.cancelOrder(id);
+            OrderResponse cancelledOrder = orderService.cancelOrder(id);
             return ResponseEntity.ok(cancelledOrder);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.notFound().build();
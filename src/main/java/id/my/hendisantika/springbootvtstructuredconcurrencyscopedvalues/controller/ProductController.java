@@ -1,5 +1,11 @@
 package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.controller;
 
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.catalog.CatalogQuery;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.catalog.CatalogSort;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.CursorPage;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.MultiGetResult;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.ProductFacets;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.ProductPage;
 import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Product;
 import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.service.InventoryCheckService;
 import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.service.ProductService;
@@ -10,7 +16,9 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.Locale;
 
 /**
  * Created by IntelliJ IDEA.
@@ -29,12 +37,22 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ProductController {
 
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_BROWSE_PAGE = 1000;
+
     private final ProductService productService;
     private final InventoryCheckService inventoryCheckService;
 
+    /**
+     * Products in id order, one keyset page at a time. Pass the returned
+     * {@code nextCursor} as {@code after} to read the next page.
+     */
     @GetMapping
-    public ResponseEntity<List<Product>> getAllProducts() {
-        return ResponseEntity.ok(productService.findAll());
+    public ResponseEntity<CursorPage<Product>> getAllProducts(
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(defaultValue = "" + CursorPage.DEFAULT_LIMIT) int limit) {
+        CursorPage.checkLimit(limit);
+        return ResponseEntity.ok(productService.findAll(after, limit));
     }
 
     @GetMapping("/active")
@@ -42,6 +60,56 @@ public class ProductController {
         return ResponseEntity.ok(productService.findActiveProducts());
     }
 
+    /**
+     * Filter, sort and page the in-memory catalog snapshot.
+     * {@code sort} is one of id, price or name.
+     */
+    @GetMapping("/browse")
+    public ResponseEntity<ProductPage> browseProducts(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) Boolean active,
+            @RequestParam(required = false) Boolean inStock,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(defaultValue = "asc") String direction,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        if (page < 0 || page > MAX_BROWSE_PAGE || size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("page must be between 0 and " + MAX_BROWSE_PAGE
+                    + " and size between 1 and " + MAX_PAGE_SIZE);
+        }
+        CatalogQuery query = CatalogQuery.builder()
+                .category(category)
+                .active(active)
+                .inStock(inStock)
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .sort(CatalogSort.valueOf(sort.toUpperCase(Locale.ROOT)))
+                .descending("desc".equalsIgnoreCase(direction))
+                .build();
+        return ResponseEntity.ok(productService.browse(query, page, size));
+    }
+
+    /**
+     * Category counts, price buckets and in-stock count of the active products,
+     * optionally within one category. Precomputed, so independent of catalog size.
+     */
+    @GetMapping("/facets")
+    public ResponseEntity<ProductFacets> getFacets(@RequestParam(required = false) String category) {
+        return ResponseEntity.ok(productService.getFacets(category));
+    }
+
+    /**
+     * Resolves up to {@value MultiGetResult#MAX_IDS} ids in one call, e.g. {@code ?ids=3,1,2}.
+     * Results come in the requested order, with {@code found} false for ids that do not exist.
+     */
+    @GetMapping(params = "ids")
+    public ResponseEntity<MultiGetResult<Product>> getProductsByIds(@RequestParam List<Long> ids) {
+        MultiGetResult.checkIds(ids);
+        return ResponseEntity.ok(productService.findAllById(ids));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Product> getProductById(@PathVariable Long id) {
         return productService.findById(id)
@@ -61,9 +129,29 @@ public class ProductController {
         return ResponseEntity.ok(productService.findByCategory(category));
     }
 
+    /**
+     * Substring search in the database, or with {@code ranked=true} a ranked search
+     * of every word over the in-memory index, best {@code limit} matches first.
+     */
     @GetMapping("/search")
-    public ResponseEntity<List<Product>> searchProducts(@RequestParam String keyword) {
-        return ResponseEntity.ok(productService.searchProducts(keyword));
+    public ResponseEntity<List<Product>> searchProducts(
+            @RequestParam String keyword,
+            @RequestParam(defaultValue = "false") boolean ranked,
+            @RequestParam(defaultValue = "20") int limit) {
+        if (!ranked) {
+            return ResponseEntity.ok(productService.searchProducts(keyword));
+        }
+        return ResponseEntity.ok(productService.searchRanked(keyword, checkLimit(limit)));
+    }
+
+    /**
+     * Autocomplete: indexed words starting with {@code prefix}.
+     */
+    @GetMapping("/search/suggest")
+    public ResponseEntity<List<String>> suggest(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(productService.suggest(prefix, checkLimit(limit)));
     }
 
     @GetMapping("/low-stock")
@@ -75,15 +163,18 @@ public class ProductController {
     /**
      * Check inventory across multiple warehouses using ShutdownOnSuccess.
      * Returns the first warehouse that has sufficient stock.
+     * {@code hedged} overrides the configured mode (preferred warehouse first vs. all at once).
      */
     @GetMapping("/{id}/inventory/check")
     public ResponseEntity<InventoryCheckService.InventoryResult> checkInventory(
             @PathVariable Long id,
-            @RequestParam(defaultValue = "1") int quantity) {
+            @RequestParam(defaultValue = "1") int quantity,
+            @RequestParam(required = false) Boolean hedged) {
         log.info("Checking inventory for product {} with quantity {}", id, quantity);
         try {
-            InventoryCheckService.InventoryResult result =
-                    inventoryCheckService.findAvailableInventory(id, quantity);
+            InventoryCheckService.InventoryResult result = hedged != null
+                    ? inventoryCheckService.findAvailableInventory(id, quantity, hedged)
+                    : inventoryCheckService.findAvailableInventory(id, quantity);
             return ResponseEntity.ok(result);
         } catch (IllegalStateException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
@@ -144,4 +235,11 @@ public class ProductController {
         productService.delete(id);
         return ResponseEntity.noContent().build();
     }
+
+    private static int checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return limit;
+    }
 }
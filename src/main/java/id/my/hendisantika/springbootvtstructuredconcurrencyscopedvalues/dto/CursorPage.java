@@ -0,0 +1,52 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto;
+
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 23.40
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * One page of a keyset (cursor) listing in ascending id order. Pass
+ * {@code nextCursor} as {@code after} to read the next page; it is null on
+ * the last page.
+ *
+ * @param content    the rows of this page
+ * @param limit      the requested page size
+ * @param nextCursor id of the last row of this page, null when there are no more rows
+ */
+public record CursorPage<T>(
+        List<T> content,
+        int limit,
+        Long nextCursor
+) {
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+
+    /**
+     * Builds a page from up to {@code limit + 1} rows: the extra row only
+     * tells whether another page exists and is not returned.
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int limit, ToLongFunction<T> idOf) {
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, limit, null);
+        }
+        List<T> content = rows.subList(0, limit);
+        return new CursorPage<>(content, limit, idOf.applyAsLong(content.getLast()));
+    }
+
+    public static void checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+    }
+}
@@ -19,15 +19,33 @@ import java.util.List;
  * Aggregated dashboard data for a customer.
  * This is built using Structured Concurrency to fetch multiple
  * pieces of data in parallel.
+ * <p>
+ * Sections that miss the dashboard deadline or fail are left empty and flagged
+ * in {@link #sections()}, so the page can render what it has.
  */
 public record CustomerDashboard(
         CustomerDetails customer,
         List<RecentOrder> recentOrders,
         CustomerStats stats,
         List<ProductRecommendation> recommendations,
+        Sections sections,
+        boolean partial,
         String requestId,
         long fetchTimeMs
 ) {
+    public enum SectionStatus {
+        OK,
+        TIMED_OUT,
+        FAILED
+    }
+
+    public record Sections(
+            SectionStatus recentOrders,
+            SectionStatus stats,
+            SectionStatus recommendations
+    ) {
+    }
+
     public record CustomerDetails(
             Long id,
             String fullName,
@@ -0,0 +1,24 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 23.20
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * A customer as indexed and returned by the customer search.
+ */
+public record CustomerMatch(
+        Long id,
+        String firstName,
+        String lastName,
+        String email
+) {
+}
@@ -0,0 +1,28 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 23.45
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Order count and sum of one customer, from a query grouped by customer.
+ */
+public record CustomerOrderTotals(
+        Long customerId,
+        long orderCount,
+        BigDecimal totalSpent
+) {
+    public OrderTotals toOrderTotals() {
+        return new OrderTotals(orderCount, totalSpent);
+    }
+}
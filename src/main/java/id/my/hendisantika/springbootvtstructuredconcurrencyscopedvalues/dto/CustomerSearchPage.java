@@ -0,0 +1,27 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto;
+
+import java.util.List;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 23.25
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * One page of customer search matches, best first.
+ */
+public record CustomerSearchPage(
+        List<CustomerMatch> content,
+        int page,
+        int size,
+        long totalElements,
+        int totalPages
+) {
+}
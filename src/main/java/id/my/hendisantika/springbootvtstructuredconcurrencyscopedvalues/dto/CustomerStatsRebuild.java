@@ -0,0 +1,24 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 19.55
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Result of recomputing the customer stats read model.
+ */
+public record CustomerStatsRebuild(
+        int customers,
+        int chunks,
+        long durationMs,
+        String requestId
+) {
+}
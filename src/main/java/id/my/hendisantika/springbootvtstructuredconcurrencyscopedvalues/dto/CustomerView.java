@@ -0,0 +1,37 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto;
+
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Customer;
+
+import java.time.LocalDateTime;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 23.25
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Customer as returned by the API, without the order collection.
+ */
+public record CustomerView(
+        Long id,
+        String firstName,
+        String lastName,
+        String email,
+        String phoneNumber,
+        String shippingAddress,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt
+) {
+    public static CustomerView from(Customer customer) {
+        return new CustomerView(customer.getId(), customer.getFirstName(), customer.getLastName(),
+                customer.getEmail(), customer.getPhoneNumber(), customer.getShippingAddress(),
+                customer.getCreatedAt(), customer.getUpdatedAt());
+    }
+}
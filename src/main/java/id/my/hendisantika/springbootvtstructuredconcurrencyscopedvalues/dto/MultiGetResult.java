@@ -0,0 +1,60 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 23.35
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Result of a multi-get: one entry per requested id, in the requested order,
+ * with {@code found} false and no value for ids that do not exist.
+ *
+ * @param results one entry per requested id
+ * @param missing the requested ids that were not found, in the requested order
+ */
+public record MultiGetResult<T>(
+        List<Entry<T>> results,
+        List<Long> missing
+) {
+    public static final int MAX_IDS = 1000;
+
+    public static <T> MultiGetResult<T> of(List<Long> ids, Map<Long, T> found) {
+        List<Entry<T>> results = new ArrayList<>(ids.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            T value = found.get(id);
+            results.add(new Entry<>(id, value != null, value));
+            if (value == null) {
+                missing.add(id);
+            }
+        }
+        return new MultiGetResult<>(results, missing);
+    }
+
+    public static void checkIds(List<Long> ids) {
+        if (ids.isEmpty() || ids.size() > MAX_IDS) {
+            throw new IllegalArgumentException("ids must list between 1 and " + MAX_IDS + " ids");
+        }
+        if (ids.contains(null)) {
+            throw new IllegalArgumentException("ids must not contain empty values");
+        }
+    }
+
+    public record Entry<T>(
+            Long id,
+            boolean found,
+            T value
+    ) {
+    }
+}
@@ -0,0 +1,53 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 23.58
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Outcome of a batch order submission: one entry per submitted order, in submission order.
+ */
+public record OrderBatchResult(
+        List<Entry> results,
+        int created,
+        int failed,
+        long durationMs,
+        String requestId
+) {
+    public static OrderBatchResult of(List<Entry> results, long durationMs, String requestId) {
+        int created = (int) results.stream().filter(Entry::created).count();
+        return new OrderBatchResult(results, created, results.size() - created, durationMs, requestId);
+    }
+
+    /**
+     * @param index position of the order in the submitted batch
+     * @param error why the order was rejected, {@code null} when it was created
+     */
+    public record Entry(
+            int index,
+            boolean created,
+            Long orderId,
+            String orderNumber,
+            BigDecimal totalAmount,
+            String error
+    ) {
+        public static Entry created(int index, Long orderId, String orderNumber, BigDecimal totalAmount) {
+            return new Entry(index, true, orderId, orderNumber, totalAmount, null);
+        }
+
+        public static Entry failed(int index, String error) {
+            return new Entry(index, false, null, null, null, error);
+        }
+    }
+}
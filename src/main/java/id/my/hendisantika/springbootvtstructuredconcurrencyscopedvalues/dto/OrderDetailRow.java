@@ -0,0 +1,46 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto;
+
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Order;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 23.20
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * One order item with its order, customer and product columns, read with a
+ * single joined query to build an {@link OrderResponse} without loading
+ * entities. Orders without items come as a single row with null item columns.
+ */
+public record OrderDetailRow(
+        Long orderId,
+        String orderNumber,
+        Long customerId,
+        String customerFirstName,
+        String customerLastName,
+        String customerEmail,
+        BigDecimal totalAmount,
+        Order.OrderStatus status,
+        String shippingAddress,
+        String notes,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt,
+        Long itemId,
+        Long productId,
+        String productName,
+        String productSku,
+        Integer quantity,
+        BigDecimal unitPrice,
+        BigDecimal subtotal
+) {
+}
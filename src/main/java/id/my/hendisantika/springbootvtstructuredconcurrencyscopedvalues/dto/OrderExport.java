@@ -0,0 +1,52 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto;
+
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Order;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 23.58
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * One line of the NDJSON order export: an order with its items.
+ */
+public record OrderExport(
+        Long id,
+        String orderNumber,
+        Long customerId,
+        Order.OrderStatus status,
+        BigDecimal totalAmount,
+        String shippingAddress,
+        LocalDateTime createdAt,
+        List<Item> items
+) {
+    public static OrderExport of(OrderExportRow header, List<Item> items) {
+        return new OrderExport(header.orderId(), header.orderNumber(), header.customerId(), header.status(),
+                header.totalAmount(), header.shippingAddress(), header.createdAt(), items);
+    }
+
+    public record Item(
+            Long id,
+            Long productId,
+            String productSku,
+            Integer quantity,
+            BigDecimal unitPrice,
+            BigDecimal subtotal
+    ) {
+        public static Item of(OrderExportRow row) {
+            return new Item(row.itemId(), row.productId(), row.productSku(), row.quantity(), row.unitPrice(),
+                    row.subtotal());
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto;
+
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Order;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 23.55
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * One order item with its order header, as streamed by the order export.
+ * Orders without items come as a single row with null item columns.
+ */
+public record OrderExportRow(
+        Long orderId,
+        String orderNumber,
+        Long customerId,
+        Order.OrderStatus status,
+        BigDecimal totalAmount,
+        String shippingAddress,
+        LocalDateTime createdAt,
+        Long itemId,
+        Long productId,
+        String productSku,
+        Integer quantity,
+        BigDecimal unitPrice,
+        BigDecimal subtotal
+) {
+}
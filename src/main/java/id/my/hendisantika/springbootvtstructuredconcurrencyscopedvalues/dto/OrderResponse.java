@@ -66,6 +66,41 @@ public record OrderResponse(
         );
     }
 
+    /**
+     * Builds the response from the rows of one order, one row per item.
+     */
+    public static OrderResponse from(List<OrderDetailRow> rows, String processedBy) {
+        OrderDetailRow header = rows.getFirst();
+        List<OrderItemResponse> itemResponses = rows.stream()
+                .filter(row -> row.itemId() != null)
+                .map(row -> new OrderItemResponse(
+                        row.itemId(),
+                        new ProductInfo(row.productId(), row.productName(), row.productSku()),
+                        row.quantity(),
+                        row.unitPrice(),
+                        row.subtotal()
+                ))
+                .toList();
+
+        return new OrderResponse(
+                header.orderId(),
+                header.orderNumber(),
+                new CustomerInfo(
+                        header.customerId(),
+                        header.customerFirstName() + " " + header.customerLastName(),
+                        header.customerEmail()
+                ),
+                itemResponses,
+                header.totalAmount(),
+                header.status().name(),
+                header.shippingAddress(),
+                header.notes(),
+                header.createdAt(),
+                header.updatedAt(),
+                processedBy
+        );
+    }
+
     public record CustomerInfo(
             Long id,
             String fullName,
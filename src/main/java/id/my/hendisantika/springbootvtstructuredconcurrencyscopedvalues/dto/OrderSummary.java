@@ -0,0 +1,34 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto;
+
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Order;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 19.15
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Order header with its number of line items, read with a single query
+ * instead of loading each order's item collection. Used by the order listings
+ * and the customer dashboard.
+ */
+public record OrderSummary(
+        Long id,
+        String orderNumber,
+        Long customerId,
+        Order.OrderStatus status,
+        BigDecimal totalAmount,
+        LocalDateTime createdAt,
+        long itemCount
+) {
+}
@@ -0,0 +1,28 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 18.40
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Order count and amount spent, aggregated by the database.
+ */
+public record OrderTotals(
+        long orderCount,
+        BigDecimal totalSpent
+) {
+    public OrderTotals {
+        // SUM over no rows is NULL
+        totalSpent = totalSpent != null ? totalSpent : BigDecimal.ZERO;
+    }
+}
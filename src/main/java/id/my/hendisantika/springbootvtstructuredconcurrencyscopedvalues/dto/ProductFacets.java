@@ -0,0 +1,50 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 22.25
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Facet counts over the active products, optionally of one category.
+ *
+ * @param category     the category counted, null for the whole catalog
+ * @param products     active products
+ * @param inStock      active products with stock
+ * @param categories   active products per category, always over the whole catalog
+ * @param priceBuckets active products per price range
+ */
+public record ProductFacets(
+        String category,
+        int products,
+        int inStock,
+        List<CategoryCount> categories,
+        List<PriceBucket> priceBuckets
+) {
+
+    public record CategoryCount(
+            String category,
+            int count
+    ) {
+    }
+
+    /**
+     * Products priced from {@code from} (inclusive) to {@code to} (exclusive, null for no bound).
+     */
+    public record PriceBucket(
+            BigDecimal from,
+            BigDecimal to,
+            int count
+    ) {
+    }
+}
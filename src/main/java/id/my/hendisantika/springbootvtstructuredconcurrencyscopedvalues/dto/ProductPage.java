@@ -0,0 +1,29 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto;
+
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Product;
+
+import java.util.List;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 21.55
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * One page of products from the catalog snapshot.
+ */
+public record ProductPage(
+        List<Product> content,
+        int page,
+        int size,
+        long totalElements,
+        int totalPages
+) {
+}
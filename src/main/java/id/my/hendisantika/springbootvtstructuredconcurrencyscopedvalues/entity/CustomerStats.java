@@ -0,0 +1,51 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 19.40
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Read model with a customer's order count and amount spent, excluding
+ * cancelled orders.
+ * <p>
+ * Rows are only written through the upserts in
+ * {@link id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.CustomerStatsRepository},
+ * in the same transaction as the order change they reflect.
+ */
+@Entity
+@Table(name = "customer_stats")
+@Getter
+@NoArgsConstructor
+public class CustomerStats {
+
+    @Id
+    @Column(name = "customer_id")
+    private Long customerId;
+
+    @Column(name = "order_count", nullable = false)
+    private long orderCount;
+
+    @Column(name = "total_spent", nullable = false, precision = 14, scale = 2)
+    private BigDecimal totalSpent;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,35 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 16.05
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Table-backed id sequences for high-volume entities.
+ * <p>
+ * Unlike IDENTITY columns, ids from a pooled table generator are known before
+ * the INSERT, which lets Hibernate batch inserts. Each round-trip to the
+ * sequence table reserves {@link #ALLOCATION_SIZE} ids.
+ */
+public final class IdSequences {
+
+    public static final String TABLE = "id_sequences";
+    public static final String SEGMENT_COLUMN = "sequence_name";
+    public static final String VALUE_COLUMN = "next_val";
+    public static final int ALLOCATION_SIZE = 50;
+
+    public static final String ORDERS = "orders";
+    public static final String ORDER_ITEMS = "order_items";
+
+    private IdSequences() {
+        // Utility class - prevent instantiation
+    }
+}
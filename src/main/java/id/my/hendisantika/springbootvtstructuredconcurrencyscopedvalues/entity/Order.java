@@ -20,7 +20,13 @@ import java.util.List;
  * To change this template use File | Settings | File Templates.
  */
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        // Serves a customer's orders newest first, e.g. the dashboard's recent orders
+        @Index(name = "idx_orders_customer_created", columnList = "customer_id, created_at"),
+        // Keyset pages of a customer's or a status's orders in id order
+        @Index(name = "idx_orders_customer_id", columnList = "customer_id, id"),
+        @Index(name = "idx_orders_status_id", columnList = "status, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -29,7 +35,14 @@ import java.util.List;
 public class Order {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "order_id")
+    @TableGenerator(
+            name = "order_id",
+            table = IdSequences.TABLE,
+            pkColumnName = IdSequences.SEGMENT_COLUMN,
+            valueColumnName = IdSequences.VALUE_COLUMN,
+            pkColumnValue = IdSequences.ORDERS,
+            allocationSize = IdSequences.ALLOCATION_SIZE)
     private Long id;
 
     @Column(name = "order_number", unique = true, nullable = false)
@@ -21,7 +21,10 @@ import java.time.LocalDateTime;
  * To change this template use File | Settings | File Templates.
  */
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        // Serves the first N active products in id order without scanning the table
+        @Index(name = "idx_products_active_id", columnList = "is_active, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
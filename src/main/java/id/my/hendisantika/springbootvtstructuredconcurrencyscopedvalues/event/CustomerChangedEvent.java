@@ -0,0 +1,21 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.event;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 23.20
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Published when a customer is created, updated or deleted.
+ *
+ * @param customerId id of the customer
+ */
+public record CustomerChangedEvent(Long customerId) {
+}
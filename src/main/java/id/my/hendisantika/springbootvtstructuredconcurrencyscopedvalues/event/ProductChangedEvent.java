@@ -0,0 +1,21 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.event;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 20.40
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Published when a product is created, updated or deleted.
+ *
+ * @param productId id of the product
+ */
+public record ProductChangedEvent(Long productId) {
+}
@@ -0,0 +1,28 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.event;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 20.40
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Published when only the stock quantity of products changed.
+ *
+ * @param productIds ids of the products whose stock changed
+ */
+public record ProductStockChangedEvent(Collection<Long> productIds) {
+
+    public static ProductStockChangedEvent of(Long productId) {
+        return new ProductStockChangedEvent(List.of(productId));
+    }
+}
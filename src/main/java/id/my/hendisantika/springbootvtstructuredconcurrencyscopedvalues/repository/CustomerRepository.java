@@ -1,10 +1,14 @@
 package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository;
 
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.CustomerMatch;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.CustomerView;
 import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Customer;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,12 +26,44 @@ import java.util.Optional;
 @Repository
 public interface CustomerRepository extends JpaRepository<Customer, Long> {
 
+    String CUSTOMER_VIEW_SELECT = """
+            SELECT new id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.CustomerView(
+                c.id, c.firstName, c.lastName, c.email, c.phoneNumber, c.shippingAddress, c.createdAt, c.updatedAt)
+            FROM Customer c
+            """;
+
     Optional<Customer> findByEmail(String email);
 
-    List<Customer> findByFirstNameContainingIgnoreCaseOrLastNameContainingIgnoreCase(String firstName, String lastName);
+    @Query("""
+            SELECT new id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.CustomerMatch(
+                c.id, c.firstName, c.lastName, c.email)
+            FROM Customer c
+            """)
+    List<CustomerMatch> findAllCustomerMatches();
+
+    // Keyset page: seeks straight to the id after the cursor
+    @Query(CUSTOMER_VIEW_SELECT + "WHERE c.id > :after ORDER BY c.id")
+    List<CustomerView> findCustomerViews(long after, Limit limit);
+
+    @Query(CUSTOMER_VIEW_SELECT + "WHERE c.id = :id")
+    Optional<CustomerView> findCustomerViewById(Long id);
+
+    @Query(CUSTOMER_VIEW_SELECT + "WHERE c.id IN :ids")
+    List<CustomerView> findCustomerViewsByIdIn(Collection<Long> ids);
+
+    @Query("""
+            SELECT new id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.CustomerMatch(
+                c.id, c.firstName, c.lastName, c.email)
+            FROM Customer c
+            WHERE c.id = :id
+            """)
+    Optional<CustomerMatch> findCustomerMatchById(Long id);
 
     @Query("SELECT c FROM Customer c LEFT JOIN FETCH c.orders WHERE c.id = :id")
     Optional<Customer> findByIdWithOrders(Long id);
 
     boolean existsByEmail(String email);
+
+    @Query("SELECT c.id FROM Customer c ORDER BY c.id")
+    List<Long> findAllIds();
 }
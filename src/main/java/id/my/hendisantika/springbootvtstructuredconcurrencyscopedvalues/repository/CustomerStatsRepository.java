@@ -0,0 +1,70 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository;
+
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.CustomerStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 19.45
+ * To change this template use File | Settings | File Templates.
+ */
+@Repository
+public interface CustomerStatsRepository extends JpaRepository<CustomerStats, Long> {
+
+    /**
+     * Adds a delta to the customer's existing stats row: a primary key update that
+     * touches no order rows.
+     *
+     * @return 0 if the customer has no stats row yet
+     */
+    @Modifying
+    @Query(value = "UPDATE customer_stats SET order_count = order_count + :orderDelta, " +
+            "total_spent = total_spent + :amountDelta, updated_at = NOW(6) WHERE customer_id = :customerId",
+            nativeQuery = true)
+    int addDelta(Long customerId, long orderDelta, BigDecimal amountDelta);
+
+    /**
+     * Creates the customer's missing stats row from their orders as flushed so far, which
+     * already include the change the delta describes. Reads and locks all of the customer's
+     * orders, so only for customers without a row: if another transaction created it in the
+     * meantime, the delta is added to that row instead.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "INSERT INTO customer_stats (customer_id, order_count, total_spent, updated_at) " +
+            "SELECT :customerId, COUNT(*), COALESCE(SUM(o.total_amount), 0), NOW(6) " +
+            "FROM orders o WHERE o.customer_id = :customerId AND o.status <> 'CANCELLED' " +
+            "ON DUPLICATE KEY UPDATE " +
+            "customer_stats.order_count = customer_stats.order_count + :orderDelta, " +
+            "customer_stats.total_spent = customer_stats.total_spent + :amountDelta, " +
+            "customer_stats.updated_at = NOW(6)",
+            nativeQuery = true)
+    int createWithDelta(Long customerId, long orderDelta, BigDecimal amountDelta);
+
+    /**
+     * Recomputes the stats of all customers with ids in the given range from their orders.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO customer_stats (customer_id, order_count, total_spent, updated_at) " +
+            "SELECT * FROM (" +
+            "SELECT c.id AS customer_id, COUNT(o.id) AS order_count, " +
+            "COALESCE(SUM(o.total_amount), 0) AS total_spent, NOW(6) AS updated_at " +
+            "FROM customers c LEFT JOIN orders o ON o.customer_id = c.id AND o.status <> 'CANCELLED' " +
+            "WHERE c.id BETWEEN :fromCustomerId AND :toCustomerId GROUP BY c.id) AS recomputed " +
+            "ON DUPLICATE KEY UPDATE " +
+            "customer_stats.order_count = recomputed.order_count, " +
+            "customer_stats.total_spent = recomputed.total_spent, " +
+            "customer_stats.updated_at = recomputed.updated_at",
+            nativeQuery = true)
+    int recompute(Long fromCustomerId, Long toCustomerId);
+}
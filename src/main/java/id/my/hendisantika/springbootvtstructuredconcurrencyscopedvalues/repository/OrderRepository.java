@@ -1,11 +1,19 @@
 package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository;
 
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.CustomerOrderTotals;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.OrderDetailRow;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.OrderExportRow;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.OrderSummary;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.OrderTotals;
 import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Order;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,24 +31,142 @@ import java.util.Optional;
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
 
+    /**
+     * Order headers with their item counts. The count is a correlated subquery, so it
+     * only runs for the orders within the page.
+     */
+    String ORDER_SUMMARY_SELECT = """
+            SELECT new id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.OrderSummary(
+                o.id, o.orderNumber, o.customer.id, o.status, o.totalAmount, o.createdAt,
+                (SELECT COUNT(i) FROM OrderItem i WHERE i.order = o))
+            FROM Order o
+            """;
+
+    /**
+     * One row per item with the order, customer and product columns an order response needs.
+     */
+    String ORDER_DETAIL_SELECT = """
+            SELECT new id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.OrderDetailRow(
+                o.id, o.orderNumber, c.id, c.firstName, c.lastName, c.email, o.totalAmount, o.status,
+                o.shippingAddress, o.notes, o.createdAt, o.updatedAt,
+                i.id, p.id, p.name, p.sku, i.quantity, i.unitPrice, i.subtotal)
+            FROM Order o JOIN o.customer c LEFT JOIN o.items i LEFT JOIN i.product p
+            """;
+
     Optional<Order> findByOrderNumber(String orderNumber);
 
     List<Order> findByCustomerId(Long customerId);
 
-    List<Order> findByStatus(Order.OrderStatus status);
+    // Keyset pages: each seeks straight to the id after the cursor, so deep pages cost the same as the first
+    @Query(ORDER_SUMMARY_SELECT + "WHERE o.id > :after ORDER BY o.id")
+    List<OrderSummary> findOrderSummaries(long after, Limit limit);
+
+    @Query(ORDER_SUMMARY_SELECT + "WHERE o.customer.id = :customerId AND o.id > :after ORDER BY o.id")
+    List<OrderSummary> findOrderSummariesByCustomerId(Long customerId, long after, Limit limit);
+
+    @Query(ORDER_SUMMARY_SELECT + "WHERE o.status = :status AND o.id > :after ORDER BY o.id")
+    List<OrderSummary> findOrderSummariesByStatus(Order.OrderStatus status, long after, Limit limit);
+
+    @Query(ORDER_DETAIL_SELECT + "WHERE o.id = :id ORDER BY i.id")
+    List<OrderDetailRow> findOrderDetailRows(Long id);
+
+    @Query(ORDER_DETAIL_SELECT + "WHERE o.orderNumber = :orderNumber ORDER BY i.id")
+    List<OrderDetailRow> findOrderDetailRowsByOrderNumber(String orderNumber);
 
-    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.items WHERE o.id = :id")
-    Optional<Order> findByIdWithItems(Long id);
+    @Query(ORDER_DETAIL_SELECT + "WHERE o.id IN :ids ORDER BY o.id, i.id")
+    List<OrderDetailRow> findOrderDetailRowsByIdIn(Collection<Long> ids);
 
-    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.items LEFT JOIN FETCH o.customer WHERE o.orderNumber = :orderNumber")
-    Optional<Order> findByOrderNumberWithDetails(String orderNumber);
+    /**
+     * Loads an order with its customer, items and their products in one statement,
+     * for changes that answer with the full order.
+     */
+    @EntityGraph(attributePaths = {"customer", "items.product"})
+    Optional<Order> findWithDetailsById(Long id);
+
+    /**
+     * The highest order numbers of the given length, highest first. Walks the unique
+     * {@code order_number} index backwards, skipping only numbers of other lengths that
+     * sort above the first match.
+     */
+    @Query("SELECT o.orderNumber FROM Order o WHERE LENGTH(o.orderNumber) = :length ORDER BY o.orderNumber DESC")
+    List<String> findHighestOrderNumbers(int length, Limit limit);
 
     @Query("SELECT o FROM Order o WHERE o.createdAt BETWEEN :startDate AND :endDate")
     List<Order> findOrdersBetweenDates(LocalDateTime startDate, LocalDateTime endDate);
 
+    /**
+     * Keyset page of the ids of the orders to export, in id order. Null filters match
+     * everything.
+     */
+    @Query("""
+            SELECT o.id FROM Order o
+            WHERE o.id > :after
+              AND (:status IS NULL OR o.status = :status)
+              AND (:from IS NULL OR o.createdAt >= :from)
+              AND (:to IS NULL OR o.createdAt <= :to)
+            ORDER BY o.id
+            """)
+    List<Long> findExportOrderIds(Order.OrderStatus status, LocalDateTime from, LocalDateTime to, long after,
+                                  Limit limit);
+
+    /**
+     * Every item of the given orders with its order header, ordered by order id; orders
+     * without items come as one row with null item columns.
+     */
+    @Query("""
+            SELECT new id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.OrderExportRow(
+                o.id, o.orderNumber, o.customer.id, o.status, o.totalAmount, o.shippingAddress, o.createdAt,
+                i.id, p.id, p.sku, i.quantity, i.unitPrice, i.subtotal)
+            FROM Order o LEFT JOIN o.items i LEFT JOIN i.product p
+            WHERE o.id IN :orderIds
+            ORDER BY o.id, i.id
+            """)
+    List<OrderExportRow> findOrderExportRows(Collection<Long> orderIds);
+
     @Query("SELECT COUNT(o) FROM Order o WHERE o.customer.id = :customerId")
     long countByCustomerId(Long customerId);
 
-    @Query("SELECT o FROM Order o WHERE o.customer.id = :customerId ORDER BY o.createdAt DESC")
-    List<Order> findRecentOrdersByCustomerId(Long customerId);
+    @Query("SELECT new id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.OrderTotals(COUNT(o), SUM(o.totalAmount)) " +
+            "FROM Order o WHERE o.customer.id = :customerId AND o.status <> :excludedStatus")
+    OrderTotals getOrderTotalsByCustomerId(Long customerId, Order.OrderStatus excludedStatus);
+
+    /**
+     * Order totals of several customers, one row per customer with orders.
+     */
+    @Query("""
+            SELECT new id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.CustomerOrderTotals(
+                o.customer.id, COUNT(o), SUM(o.totalAmount))
+            FROM Order o
+            WHERE o.customer.id IN :customerIds AND o.status <> :excludedStatus
+            GROUP BY o.customer.id
+            """)
+    List<CustomerOrderTotals> getOrderTotalsByCustomerIds(Collection<Long> customerIds, Order.OrderStatus excludedStatus);
+
+    /**
+     * A customer's newest orders with their item counts in one statement.
+     */
+    @Query(ORDER_SUMMARY_SELECT + "WHERE o.customer.id = :customerId ORDER BY o.createdAt DESC")
+    List<OrderSummary> findRecentOrderSummaries(Long customerId, Limit limit);
+
+    /**
+     * The newest {@code perCustomer} orders of each of several customers in one statement,
+     * grouped by customer and newest first. The orders are numbered per customer with
+     * {@code row_number()} over the (customer_id, created_at) index; item counts are only
+     * computed for the orders that are kept.
+     */
+    @Query("""
+            SELECT new id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.OrderSummary(
+                r.id, r.orderNumber, r.customerId, r.status, r.totalAmount, r.createdAt,
+                (SELECT COUNT(i) FROM OrderItem i WHERE i.order.id = r.id))
+            FROM (
+                SELECT o.id AS id, o.orderNumber AS orderNumber, o.customer.id AS customerId, o.status AS status,
+                    o.totalAmount AS totalAmount, o.createdAt AS createdAt,
+                    row_number() OVER (PARTITION BY o.customer.id ORDER BY o.createdAt DESC, o.id DESC) AS rn
+                FROM Order o
+                WHERE o.customer.id IN :customerIds
+            ) r
+            WHERE r.rn <= :perCustomer
+            ORDER BY r.customerId, r.rn
+            """)
+    List<OrderSummary> findRecentOrderSummariesByCustomerIds(Collection<Long> customerIds, int perCustomer);
 }
@@ -1,11 +1,15 @@
 package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository;
 
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.catalog.CatalogRow;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.catalog.StockLevel;
 import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Product;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,18 +25,40 @@ import java.util.Optional;
  * To change this template use File | Settings | File Templates.
  */
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductStockRepository {
 
     Optional<Product> findBySku(String sku);
 
-    List<Product> findByCategory(String category);
+    @Query("SELECT p.stockQuantity FROM Product p WHERE p.id = :id")
+    Optional<Integer> findStockQuantityById(Long id);
 
-    List<Product> findByIsActiveTrue();
+    @Query("""
+            SELECT new id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.catalog.CatalogRow(
+                p.id, p.name, p.description, p.sku, p.price, p.stockQuantity, p.category, p.imageUrl,
+                p.isActive, p.createdAt, p.updatedAt)
+            FROM Product p
+            """)
+    List<CatalogRow> findAllCatalogRows();
 
-    List<Product> findByStockQuantityGreaterThan(Integer quantity);
+    @Query("""
+            SELECT new id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.catalog.CatalogRow(
+                p.id, p.name, p.description, p.sku, p.price, p.stockQuantity, p.category, p.imageUrl,
+                p.isActive, p.createdAt, p.updatedAt)
+            FROM Product p
+            WHERE p.id IN :ids
+            """)
+    List<CatalogRow> findCatalogRowsByIdIn(Collection<Long> ids);
+
+    @Query("""
+            SELECT new id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.catalog.StockLevel(p.id, p.stockQuantity)
+            FROM Product p
+            WHERE p.id IN :ids
+            """)
+    List<StockLevel> findStockLevelsByIdIn(Collection<Long> ids);
 
-    @Query("SELECT p FROM Product p WHERE p.stockQuantity < :threshold AND p.isActive = true")
-    List<Product> findLowStockProducts(Integer threshold);
+    List<Product> findByIsActiveTrueOrderByIdAsc(Limit limit);
+
+    List<Product> findByStockQuantityGreaterThan(Integer quantity);
 
     @Query("SELECT p FROM Product p WHERE LOWER(p.name) LIKE LOWER(CONCAT('%', :keyword, '%')) OR LOWER(p.description) LIKE LOWER(CONCAT('%', :keyword, '%'))")
     List<Product> searchProducts(String keyword);
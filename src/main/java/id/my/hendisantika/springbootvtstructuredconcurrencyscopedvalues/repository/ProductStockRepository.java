@@ -0,0 +1,42 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository;
+
+import java.util.Map;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 15.20
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Multi-row stock updates for {@link ProductRepository}.
+ * <p>
+ * Both operations send one JDBC batch, update the rows in ascending product id
+ * order so concurrent orders always lock products in the same order and cannot
+ * deadlock, and join the caller's transaction.
+ */
+public interface ProductStockRepository {
+
+    /**
+     * Decrements the stock of every product by the given quantity, guarded by
+     * {@code stock_quantity >= quantity} on each row.
+     *
+     * @param quantities quantity to reserve per product id
+     * @throws IllegalStateException if any product is missing or lacks stock; the
+     *                               caller's transaction must roll back
+     */
+    void reserveStock(Map<Long, Integer> quantities);
+
+    /**
+     * Increments the stock of every product by the given quantity.
+     *
+     * @param quantities quantity to return per product id
+     */
+    void releaseStock(Map<Long, Integer> quantities);
+}
@@ -0,0 +1,88 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 15.20
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * JDBC implementation of {@link ProductStockRepository}. JdbcTemplate runs on the
+ * connection of the surrounding JPA transaction, so the updates commit or roll
+ * back together with the order.
+ */
+@Slf4j
+@RequiredArgsConstructor
+class ProductStockRepositoryImpl implements ProductStockRepository {
+
+    private static final String RESERVE_SQL =
+            "UPDATE products SET stock_quantity = stock_quantity - ? WHERE id = ? AND stock_quantity >= ?";
+    private static final String RELEASE_SQL =
+            "UPDATE products SET stock_quantity = stock_quantity + ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void reserveStock(Map<Long, Integer> quantities) {
+        List<Map.Entry<Long, Integer>> rows = inProductIdOrder(quantities);
+        int[] updateCounts = jdbcTemplate.batchUpdate(RESERVE_SQL, new StockBatch(rows, true));
+
+        List<Long> rejected = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            if (updateCounts[i] != 1) {
+                rejected.add(rows.get(i).getKey());
+            }
+        }
+
+        if (!rejected.isEmpty()) {
+            log.warn("Stock reservation rejected for products {}", rejected);
+            throw new IllegalStateException("Insufficient stock for products: " + rejected);
+        }
+    }
+
+    @Override
+    public void releaseStock(Map<Long, Integer> quantities) {
+        jdbcTemplate.batchUpdate(RELEASE_SQL, new StockBatch(inProductIdOrder(quantities), false));
+    }
+
+    private static List<Map.Entry<Long, Integer>> inProductIdOrder(Map<Long, Integer> quantities) {
+        return List.copyOf(new TreeMap<>(quantities).entrySet());
+    }
+
+    private record StockBatch(List<Map.Entry<Long, Integer>> rows, boolean guarded)
+            implements BatchPreparedStatementSetter {
+
+        @Override
+        public void setValues(PreparedStatement ps, int i) throws SQLException {
+            Map.Entry<Long, Integer> row = rows.get(i);
+            ps.setInt(1, row.getValue());
+            ps.setLong(2, row.getKey());
+            if (guarded) {
+                ps.setInt(3, row.getValue());
+            }
+        }
+
+        @Override
+        public int getBatchSize() {
+            return rows.size();
+        }
+    }
+}
@@ -0,0 +1,406 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.service;
+
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.config.CustomerSearchProperties;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.CustomerMatch;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.CustomerSearchPage;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.event.CustomerChangedEvent;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.CustomerRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.FixedDelayTask;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 23.30
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * In-memory typeahead index over customer names and emails.
+ * <p>
+ * Words of three or more characters are looked up in a trigram index, so they
+ * match anywhere inside a name or email; shorter words only match as a prefix
+ * and are looked up in an index of one- and two-character prefixes. A query
+ * intersects the posting sets of all its words, smallest first and by
+ * identity, before looking at any customer, so its cost follows the number of
+ * likely matches, not the number of customers. Matches rank whole name words
+ * over name prefixes over email prefixes over infixes. A lone short word can
+ * match a large share of all customers, so its ranking is cached per prefix
+ * until a change touches that prefix.
+ * <p>
+ * Changes on this instance are applied right after their transaction commits
+ * by re-reading the customer; a full rebuild every
+ * {@code app.customer-search.resync-interval} picks up changes made elsewhere.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CustomerSearchIndex implements SchedulingConfigurer {
+
+    // Only whitespace separates words, so email fragments like "jane.doe@ex" stay whole
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final int GRAM_LENGTH = 3;
+
+    private static final int WORD_MATCH = 4;
+    private static final int WORD_PREFIX_MATCH = 3;
+    private static final int EMAIL_PREFIX_MATCH = 2;
+    private static final int INFIX_MATCH = 1;
+
+    /**
+     * Best score first, then by last name, first name and id.
+     */
+    private static final Comparator<Scored> RANKING = (a, b) -> compare(a.score(), a.entry(), b.score(), b.entry());
+
+    private final CustomerRepository customerRepository;
+    private final CustomerSearchProperties properties;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile Index index;
+
+    /**
+     * Returns one page of the customers matching every word of the query, best first.
+     * Pages past the last match are empty.
+     */
+    public CustomerSearchPage search(String query, int page, int size) {
+        if (page < 0 || size < 1) {
+            throw new IllegalArgumentException("page must be >= 0 and size >= 1");
+        }
+        List<String> words = words(query);
+        if (words.isEmpty()) {
+            return new CustomerSearchPage(List.of(), page, size, 0, 0);
+        }
+        if (words.size() == 1 && words.getFirst().length() < GRAM_LENGTH) {
+            return page(index().ranked(words.getFirst()), page, size);
+        }
+
+        // Keep only the best (page + 1) * size matches; the worst of them at the head
+        int keep = (int) Math.min((page + 1L) * size, Integer.MAX_VALUE);
+        PriorityQueue<Scored> best = new PriorityQueue<>(RANKING.reversed());
+        int matches = 0;
+        for (Entry entry : index().candidates(words)) {
+            int score = 0;
+            for (String word : words) {
+                int wordScore = entry.score(word);
+                if (wordScore == 0) {
+                    score = 0;
+                    break;
+                }
+                score += wordScore;
+            }
+            if (score == 0) {
+                continue;
+            }
+            matches++;
+            if (best.size() == keep) {
+                Scored worst = best.peek();
+                if (compare(score, entry, worst.score(), worst.entry()) >= 0) {
+                    continue;
+                }
+                best.poll();
+            }
+            best.add(new Scored(entry, score));
+        }
+
+        List<Scored> ranked = new ArrayList<>(best);
+        ranked.sort(RANKING);
+        int from = (int) Math.min((long) page * size, ranked.size());
+        List<CustomerMatch> content = ranked.subList(from, ranked.size()).stream()
+                .map(scored -> scored.entry().customer())
+                .toList();
+        int totalPages = (matches + size - 1) / size;
+        return new CustomerSearchPage(content, page, size, matches, totalPages);
+    }
+
+    private static CustomerSearchPage page(List<CustomerMatch> ranked, int page, int size) {
+        int from = (int) Math.min((long) page * size, ranked.size());
+        int to = Math.min(from + size, ranked.size());
+        int totalPages = (ranked.size() + size - 1) / size;
+        return new CustomerSearchPage(ranked.subList(from, to), page, size, ranked.size(), totalPages);
+    }
+
+    /**
+     * Rebuilds the index from all customers.
+     */
+    public void reload() {
+        writeLock.lock();
+        try {
+            long start = System.currentTimeMillis();
+            Index rebuilt = new Index();
+            customerRepository.findAllCustomerMatches().forEach(rebuilt::put);
+            index = rebuilt;
+            log.debug("Indexed {} customers in {} ms", rebuilt.size(), System.currentTimeMillis() - start);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reload();
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        Duration interval = properties.resyncInterval();
+        registrar.addFixedDelayTask(new FixedDelayTask(this::resync, interval, interval));
+    }
+
+    public void resync() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            log.warn("Customer index resync failed, keeping the current index", e);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCustomerChanged(CustomerChangedEvent event) {
+        writeLock.lock();
+        try {
+            Index current = index;
+            if (current == null) {
+                // Not built yet; the initial build will see this change
+                return;
+            }
+            // Re-read under the lock, so concurrent changes are applied in commit order
+            customerRepository.findCustomerMatchById(event.customerId()).ifPresentOrElse(
+                    current::put,
+                    () -> current.remove(event.customerId()));
+        } catch (RuntimeException e) {
+            log.warn("Could not index customer {}, the next resync will catch up", event.customerId(), e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private Index index() {
+        Index current = index;
+        if (current == null) {
+            writeLock.lock();
+            try {
+                if (index == null) {
+                    reload();
+                }
+                current = index;
+            } finally {
+                writeLock.unlock();
+            }
+        }
+        return current;
+    }
+
+    private static int compare(int score, Entry entry, int otherScore, Entry otherEntry) {
+        if (score != otherScore) {
+            return Integer.compare(otherScore, score);
+        }
+        int byName = entry.sortKey().compareTo(otherEntry.sortKey());
+        return byName != 0 ? byName : Long.compare(entry.customer().id(), otherEntry.customer().id());
+    }
+
+    private static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        for (String word : WHITESPACE.split(text.strip().toLowerCase(Locale.ROOT))) {
+            if (!word.isEmpty() && !words.contains(word)) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private static void addGrams(Set<String> grams, String text) {
+        for (int start = 0; start + GRAM_LENGTH <= text.length(); start++) {
+            grams.add(text.substring(start, start + GRAM_LENGTH));
+        }
+    }
+
+    private static void addPrefixes(Set<String> prefixes, String text) {
+        for (int length = 1; length < GRAM_LENGTH && length <= text.length(); length++) {
+            prefixes.add(text.substring(0, length));
+        }
+    }
+
+    /**
+     * A customer with its lower-cased search fields. Compared by identity, so the
+     * index sets never hash its fields.
+     */
+    private static final class Entry {
+
+        private final CustomerMatch customer;
+        private final String[] nameWords;
+        private final String email;
+        private final String sortKey;
+
+        Entry(CustomerMatch customer) {
+            this.customer = customer;
+            this.nameWords = words(customer.firstName() + " " + customer.lastName()).toArray(String[]::new);
+            this.email = customer.email().toLowerCase(Locale.ROOT);
+            this.sortKey = (customer.lastName() + '\u0000' + customer.firstName()).toLowerCase(Locale.ROOT);
+        }
+
+        CustomerMatch customer() {
+            return customer;
+        }
+
+        String sortKey() {
+            return sortKey;
+        }
+
+        Set<String> grams() {
+            Set<String> grams = new HashSet<>();
+            for (String word : nameWords) {
+                addGrams(grams, word);
+            }
+            addGrams(grams, email);
+            return grams;
+        }
+
+        Set<String> prefixes() {
+            Set<String> prefixes = new HashSet<>();
+            for (String word : nameWords) {
+                addPrefixes(prefixes, word);
+            }
+            addPrefixes(prefixes, email);
+            return prefixes;
+        }
+
+        /**
+         * How well a query word matches, 0 if it does not. Short words only match as a prefix.
+         */
+        int score(String word) {
+            int score = 0;
+            for (String nameWord : nameWords) {
+                if (nameWord.equals(word)) {
+                    return WORD_MATCH;
+                }
+                if (nameWord.startsWith(word)) {
+                    score = WORD_PREFIX_MATCH;
+                } else if (word.length() >= GRAM_LENGTH && nameWord.contains(word)) {
+                    score = Math.max(score, INFIX_MATCH);
+                }
+            }
+            if (score < EMAIL_PREFIX_MATCH && email.startsWith(word)) {
+                return EMAIL_PREFIX_MATCH;
+            }
+            if (score == 0 && word.length() >= GRAM_LENGTH && email.contains(word)) {
+                return INFIX_MATCH;
+            }
+            return score;
+        }
+    }
+
+    private record Scored(Entry entry, int score) {
+    }
+
+    /**
+     * The index data. Updated by one writer at a time; read concurrently.
+     */
+    private static final class Index {
+
+        private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+        private final Map<String, Set<Entry>> byGram = new ConcurrentHashMap<>();
+        private final Map<String, Set<Entry>> byPrefix = new ConcurrentHashMap<>();
+        private final Map<String, List<CustomerMatch>> rankedByPrefix = new ConcurrentHashMap<>();
+
+        int size() {
+            return entries.size();
+        }
+
+        void put(CustomerMatch customer) {
+            remove(customer.id());
+            Entry entry = new Entry(customer);
+            entries.put(customer.id(), entry);
+            entry.grams().forEach(gram -> byGram.computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet()).add(entry));
+            entry.prefixes().forEach(prefix -> byPrefix.computeIfAbsent(prefix, p -> ConcurrentHashMap.newKeySet()).add(entry));
+            // After the sets: a ranking being computed concurrently finishes before it is dropped
+            entry.prefixes().forEach(rankedByPrefix::remove);
+        }
+
+        void remove(Long customerId) {
+            Entry entry = entries.remove(customerId);
+            if (entry != null) {
+                entry.grams().forEach(gram -> removeEntry(byGram, gram, entry));
+                entry.prefixes().forEach(prefix -> removeEntry(byPrefix, prefix, entry));
+                entry.prefixes().forEach(rankedByPrefix::remove);
+            }
+        }
+
+        /**
+         * All customers matching a one- or two-character word, best first.
+         */
+        List<CustomerMatch> ranked(String prefix) {
+            return rankedByPrefix.computeIfAbsent(prefix, p -> byPrefix.getOrDefault(p, Set.of()).stream()
+                    .map(entry -> new Scored(entry, entry.score(p)))
+                    .sorted(RANKING)
+                    .map(scored -> scored.entry().customer())
+                    .toList());
+        }
+
+        /**
+         * Customers in the posting sets of every query word: the trigrams of long
+         * words (a superset of the customers containing them), the prefix set of
+         * short ones.
+         */
+        List<Entry> candidates(List<String> words) {
+            List<Set<Entry>> postings = new ArrayList<>();
+            for (String word : words) {
+                if (word.length() < GRAM_LENGTH) {
+                    postings.add(byPrefix.getOrDefault(word, Set.of()));
+                } else {
+                    for (int start = 0; start + GRAM_LENGTH <= word.length(); start++) {
+                        postings.add(byGram.getOrDefault(word.substring(start, start + GRAM_LENGTH), Set.of()));
+                    }
+                }
+            }
+            postings.sort(Comparator.comparingInt(Set::size));
+
+            List<Entry> candidates = new ArrayList<>();
+            List<Set<Entry>> filters = postings.subList(1, postings.size());
+            next:
+            for (Entry entry : postings.getFirst()) {
+                for (Set<Entry> filter : filters) {
+                    if (!filter.contains(entry)) {
+                        continue next;
+                    }
+                }
+                candidates.add(entry);
+            }
+            return candidates;
+        }
+
+        private static void removeEntry(Map<String, Set<Entry>> index, String key, Entry entry) {
+            Set<Entry> entries = index.get(key);
+            if (entries != null) {
+                entries.remove(entry);
+                if (entries.isEmpty()) {
+                    index.remove(key);
+                }
+            }
+        }
+    }
+}
@@ -1,24 +1,44 @@
 package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.service;
 
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.concurrency.ChunkedLoader;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.concurrency.DeadlineJoiner;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.config.DashboardProperties;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.config.MultiGetProperties;
 import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.context.ScopedValues;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.CursorPage;
 import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.CustomerDashboard;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.CustomerSearchPage;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.CustomerView;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.MultiGetResult;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.OrderSummary;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.OrderTotals;
 import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Customer;
-import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Order;
 import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Product;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.event.CustomerChangedEvent;
 import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.CustomerRepository;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.CustomerStatsRepository;
 import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.OrderRepository;
 import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.StructuredTaskScope;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Created by IntelliJ IDEA.
@@ -44,22 +64,34 @@ import java.util.concurrent.StructuredTaskScope;
  * - StructuredTaskScope.open() replaces new StructuredTaskScope.ShutdownOnFailure()
  * - join() now throws FailedException if any subtask fails (no separate throwIfFailed())
  * - Joiner API provides flexible composition policies
+ * <p>
+ * The dashboard uses a custom {@link DeadlineJoiner}: sections that are not
+ * ready by the deadline are cancelled and the dashboard is returned partially.
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class CustomerService {
 
+    private static final int RECENT_ORDERS = 5;
+    private static final int RECOMMENDATIONS = 3;
+
     private final CustomerRepository customerRepository;
+    private final CustomerStatsRepository customerStatsRepository;
     private final OrderRepository orderRepository;
     private final ProductRepository productRepository;
+    private final CustomerStatsService customerStatsService;
+    private final CustomerSearchIndex customerSearchIndex;
+    private final DashboardProperties dashboardProperties;
+    private final MultiGetProperties multiGetProperties;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Fetches a comprehensive customer dashboard using Structured Concurrency.
      * Multiple data sources are queried in parallel using virtual threads.
      * <p>
      * This demonstrates:
-     * - StructuredTaskScope.open() for fail-fast behavior (JDK 25 API)
+     * - A custom Joiner that enforces a deadline and keeps partial results
      * - Automatic ScopedValue propagation to subtasks
      * - Virtual thread creation for I/O-bound operations
      */
@@ -75,8 +107,9 @@ public class CustomerService {
                 .orElseThrow(() -> new IllegalArgumentException("Customer not found: " + customerId));
 
         // Use Structured Concurrency to fetch related data in parallel (JDK 25 API)
-        // StructuredTaskScope.open() replaces new StructuredTaskScope.ShutdownOnFailure()
-        try (var scope = StructuredTaskScope.open()) {
+        // Sections still running at the deadline are cancelled instead of holding up the whole dashboard
+        var joiner = DeadlineJoiner.<Object>until(sectionDeadline());
+        try (var scope = StructuredTaskScope.open(joiner)) {
 
             // Each fork creates a new virtual thread that inherits ScopedValues
             var recentOrdersTask = scope.fork(() -> {
@@ -94,13 +127,15 @@ public class CustomerService {
             var recommendationsTask = scope.fork(() -> {
                 log.debug("Fetching recommendations on thread: {} [requestId={}]",
                         Thread.currentThread(), ScopedValues.currentRequestContext().requestId());
-                return getProductRecommendations(customerId);
+                return getProductRecommendations();
             });
 
-            // Wait for all tasks to complete - join() throws FailedException if any subtask fails (JDK 25)
-            scope.join();
+            // Wait until every section is done or the deadline passes; failures do not cancel siblings
+            DeadlineJoiner.Outcome outcome = joiner.join(scope);
+            if (!outcome.complete()) {
+                log.warn("Dashboard for customerId={} is partial: {} [requestId={}]", customerId, outcome, requestId);
+            }
 
-            // All tasks completed successfully - build the dashboard
             long fetchTimeMs = System.currentTimeMillis() - startTime;
 
             CustomerDashboard.CustomerDetails customerDetails = new CustomerDashboard.CustomerDetails(
@@ -111,11 +146,19 @@ public class CustomerService {
                     customer.getShippingAddress()
             );
 
+            CustomerDashboard.Sections sections = new CustomerDashboard.Sections(
+                    sectionStatus("recentOrders", recentOrdersTask),
+                    sectionStatus("stats", statsTask),
+                    sectionStatus("recommendations", recommendationsTask)
+            );
+
             return new CustomerDashboard(
                     customerDetails,
-                    recentOrdersTask.get(),
-                    statsTask.get(),
-                    recommendationsTask.get(),
+                    valueOrDefault(recentOrdersTask, List.of()),
+                    valueOrDefault(statsTask, null),
+                    valueOrDefault(recommendationsTask, List.of()),
+                    sections,
+                    !outcome.complete(),
                     requestId,
                     fetchTimeMs
             );
@@ -126,35 +169,147 @@ public class CustomerService {
         }
     }
 
+    /**
+     * Builds the dashboards of several customers with one set-based query per section,
+     * whatever the number of customers. The three sections run once for the whole batch,
+     * forked into a single scope with the same deadline as one dashboard; customers that
+     * do not exist are reported as missing.
+     */
+    @Transactional(readOnly = true)
+    public MultiGetResult<CustomerDashboard> getCustomerDashboards(List<Long> customerIds) {
+        long startTime = System.currentTimeMillis();
+        String requestId = ScopedValues.currentRequestContext().requestId();
+
+        List<CustomerView> customers = customerRepository.findCustomerViewsByIdIn(Set.copyOf(customerIds));
+        List<Long> foundIds = customers.stream().map(CustomerView::id).toList();
+        log.info("Building {} customer dashboards [requestId={}]", foundIds.size(), requestId);
+        if (foundIds.isEmpty()) {
+            return MultiGetResult.of(customerIds, Map.of());
+        }
+
+        var joiner = DeadlineJoiner.<Object>until(sectionDeadline());
+        try (var scope = StructuredTaskScope.open(joiner)) {
+
+            var recentOrdersTask = scope.fork(() -> fetchRecentOrders(foundIds));
+            var statsTask = scope.fork(() -> {
+                simulateLatency(75);
+                return customerStatsService.getTotals(foundIds);
+            });
+            // Recommendations are not personalised yet, so all customers share them
+            var recommendationsTask = scope.fork(() -> getProductRecommendations());
+
+            DeadlineJoiner.Outcome outcome = joiner.join(scope);
+            if (!outcome.complete()) {
+                log.warn("Dashboards for {} customers are partial: {} [requestId={}]",
+                        foundIds.size(), outcome, requestId);
+            }
+
+            long fetchTimeMs = System.currentTimeMillis() - startTime;
+            CustomerDashboard.Sections sections = new CustomerDashboard.Sections(
+                    sectionStatus("recentOrders", recentOrdersTask),
+                    sectionStatus("stats", statsTask),
+                    sectionStatus("recommendations", recommendationsTask)
+            );
+            Map<Long, List<CustomerDashboard.RecentOrder>> recentOrders = valueOrDefault(recentOrdersTask, Map.of());
+            Map<Long, OrderTotals> totals = valueOrDefault(statsTask, null);
+            List<CustomerDashboard.ProductRecommendation> recommendations =
+                    valueOrDefault(recommendationsTask, List.of());
+
+            Map<Long, CustomerDashboard> dashboards = new HashMap<>();
+            for (CustomerView customer : customers) {
+                dashboards.put(customer.id(), new CustomerDashboard(
+                        new CustomerDashboard.CustomerDetails(
+                                customer.id(),
+                                customer.firstName() + " " + customer.lastName(),
+                                customer.email(),
+                                customer.phoneNumber(),
+                                customer.shippingAddress()
+                        ),
+                        recentOrders.getOrDefault(customer.id(), List.of()),
+                        totals != null ? toCustomerStats(totals.get(customer.id()), customer.createdAt()) : null,
+                        recommendations,
+                        sections,
+                        !outcome.complete(),
+                        requestId,
+                        fetchTimeMs
+                ));
+            }
+            return MultiGetResult.of(customerIds, dashboards);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Dashboard fetch interrupted", e);
+        }
+    }
+
+    /**
+     * The dashboard deadline, capped by the request deadline, so a tight client budget
+     * yields a partial dashboard rather than a timeout.
+     */
+    private Instant sectionDeadline() {
+        Instant sectionDeadline = Instant.now().plus(dashboardProperties.deadline());
+        return ScopedValues.currentDeadline()
+                .map(requestDeadline -> requestDeadline.earliest(sectionDeadline))
+                .orElse(sectionDeadline);
+    }
+
+    private static CustomerDashboard.SectionStatus sectionStatus(String section, StructuredTaskScope.Subtask<?> task) {
+        return switch (task.state()) {
+            case SUCCESS -> CustomerDashboard.SectionStatus.OK;
+            case FAILED -> {
+                log.warn("Dashboard section {} failed: {}", section, task.exception().toString());
+                yield CustomerDashboard.SectionStatus.FAILED;
+            }
+            case UNAVAILABLE -> CustomerDashboard.SectionStatus.TIMED_OUT;
+        };
+    }
+
+    private static <V> V valueOrDefault(StructuredTaskScope.Subtask<V> task, V defaultValue) {
+        return task.state() == StructuredTaskScope.Subtask.State.SUCCESS ? task.get() : defaultValue;
+    }
+
     private List<CustomerDashboard.RecentOrder> fetchRecentOrders(Long customerId) {
         // Simulate some I/O latency
         simulateLatency(50);
 
-        List<Order> orders = orderRepository.findRecentOrdersByCustomerId(customerId);
+        // Item counts come with the orders; touching order.getItems() here would load each collection
+        List<OrderSummary> orders = orderRepository.findRecentOrderSummaries(customerId, Limit.of(RECENT_ORDERS));
         return orders.stream()
-                .limit(5)
-                .map(order -> new CustomerDashboard.RecentOrder(
-                        order.getId(),
-                        order.getOrderNumber(),
-                        order.getStatus().name(),
-                        order.getTotalAmount(),
-                        order.getCreatedAt().toString(),
-                        order.getItems().size()
-                ))
+                .map(CustomerService::toRecentOrder)
                 .toList();
     }
 
+    private Map<Long, List<CustomerDashboard.RecentOrder>> fetchRecentOrders(Collection<Long> customerIds) {
+        simulateLatency(50);
+
+        // Newest orders of every customer in one statement, grouped by customer
+        return orderRepository.findRecentOrderSummariesByCustomerIds(customerIds, RECENT_ORDERS).stream()
+                .collect(Collectors.groupingBy(OrderSummary::customerId,
+                        Collectors.mapping(CustomerService::toRecentOrder, Collectors.toList())));
+    }
+
+    private static CustomerDashboard.RecentOrder toRecentOrder(OrderSummary order) {
+        return new CustomerDashboard.RecentOrder(
+                order.id(),
+                order.orderNumber(),
+                order.status().name(),
+                order.totalAmount(),
+                order.createdAt().toString(),
+                (int) order.itemCount()
+        );
+    }
+
     private CustomerDashboard.CustomerStats calculateCustomerStats(Long customerId, LocalDateTime memberSince) {
         // Simulate some I/O latency
         simulateLatency(75);
 
-        List<Order> allOrders = orderRepository.findByCustomerId(customerId);
+        // One primary key lookup in the customer_stats read model
+        return toCustomerStats(customerStatsService.getTotals(customerId), memberSince);
+    }
 
-        long totalOrders = allOrders.size();
-        BigDecimal totalSpent = allOrders.stream()
-                .map(Order::getTotalAmount)
-                .filter(amount -> amount != null)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    private static CustomerDashboard.CustomerStats toCustomerStats(OrderTotals totals, LocalDateTime memberSince) {
+        long totalOrders = totals.orderCount();
+        BigDecimal totalSpent = totals.totalSpent();
 
         BigDecimal averageOrderValue = totalOrders > 0
                 ? totalSpent.divide(BigDecimal.valueOf(totalOrders), 2, RoundingMode.HALF_UP)
@@ -168,14 +323,13 @@ public class CustomerService {
         );
     }
 
-    private List<CustomerDashboard.ProductRecommendation> getProductRecommendations(Long customerId) {
+    private List<CustomerDashboard.ProductRecommendation> getProductRecommendations() {
         // Simulate some I/O latency (e.g., calling ML service)
         simulateLatency(100);
 
         // Simple recommendation: return active products
-        List<Product> products = productRepository.findByIsActiveTrue();
+        List<Product> products = productRepository.findByIsActiveTrueOrderByIdAsc(Limit.of(RECOMMENDATIONS));
         return products.stream()
-                .limit(3)
                 .map(product -> new CustomerDashboard.ProductRecommendation(
                         product.getId(),
                         product.getName(),
@@ -195,23 +349,47 @@ public class CustomerService {
     }
 
     @Transactional(readOnly = true)
-    public Optional<Customer> findById(Long id) {
-        return customerRepository.findById(id);
+    public Optional<CustomerView> findById(Long id) {
+        return customerRepository.findCustomerViewById(id);
+    }
+
+    /**
+     * Resolves a batch of ids with one {@code IN} query per chunk of ids.
+     * Not transactional: the chunks are read by parallel subtasks on connections
+     * of their own, which a transaction here would not cover.
+     */
+    public MultiGetResult<CustomerView> findAllById(List<Long> ids) {
+        Map<Long, CustomerView> customers = ChunkedLoader.load(
+                        ids.stream().distinct().toList(),
+                        multiGetProperties.chunkSize(),
+                        customerRepository::findCustomerViewsByIdIn)
+                .stream()
+                .collect(Collectors.toMap(CustomerView::id, Function.identity()));
+        return MultiGetResult.of(ids, customers);
     }
 
     @Transactional(readOnly = true)
-    public List<Customer> findAll() {
-        return customerRepository.findAll();
+    public CursorPage<CustomerView> findAll(long after, int limit) {
+        return CursorPage.of(customerRepository.findCustomerViews(after, Limit.of(limit + 1)), limit, CustomerView::id);
+    }
+
+    /**
+     * Typeahead search by partial name or email, served from the in-memory index.
+     */
+    public CustomerSearchPage search(String query, int page, int size) {
+        return customerSearchIndex.search(query, page, size);
     }
 
     @Transactional
-    public Customer save(Customer customer) {
+    public CustomerView save(Customer customer) {
         customer.setCreatedAt(LocalDateTime.now());
-        return customerRepository.save(customer);
+        Customer savedCustomer = customerRepository.save(customer);
+        eventPublisher.publishEvent(new CustomerChangedEvent(savedCustomer.getId()));
+        return CustomerView.from(savedCustomer);
     }
 
     @Transactional
-    public Customer update(Long id, Customer customerDetails) {
+    public CustomerView update(Long id, Customer customerDetails) {
         Customer customer = customerRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Customer not found: " + id));
 
@@ -222,11 +400,15 @@ public class CustomerService {
         customer.setShippingAddress(customerDetails.getShippingAddress());
         customer.setUpdatedAt(LocalDateTime.now());
 
-        return customerRepository.save(customer);
+        Customer savedCustomer = customerRepository.save(customer);
+        eventPublisher.publishEvent(new CustomerChangedEvent(id));
+        return CustomerView.from(savedCustomer);
     }
 
     @Transactional
     public void delete(Long id) {
+        customerStatsRepository.deleteById(id);
         customerRepository.deleteById(id);
+        eventPublisher.publishEvent(new CustomerChangedEvent(id));
     }
 }
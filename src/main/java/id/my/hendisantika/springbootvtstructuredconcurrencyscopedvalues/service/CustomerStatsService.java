@@ -0,0 +1,190 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.service;
+
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.config.CustomerStatsProperties;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.context.RequestDeadline;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.context.ScopedValues;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.CustomerStatsRebuild;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.OrderTotals;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Order;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.CustomerRepository;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.CustomerStatsRepository;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.StructuredTaskScope;
+import java.util.stream.Collectors;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 20.05
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Maintains the customer stats read model (order count and amount spent,
+ * excluding cancelled orders).
+ * <p>
+ * Order changes apply their delta in the order's own transaction, so the
+ * dashboard reads a customer's stats with one primary key lookup instead of
+ * aggregating their orders. {@link #rebuild()} recomputes every customer in
+ * parallel chunks, for existing data or after drift.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CustomerStatsService {
+
+    private final CustomerStatsRepository customerStatsRepository;
+    private final CustomerRepository customerRepository;
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final CustomerStatsProperties customerStatsProperties;
+
+    /**
+     * Gets the customer's totals from the read model, or aggregates their orders
+     * if the read model has no row for them yet.
+     */
+    public OrderTotals getTotals(Long customerId) {
+        return customerStatsRepository.findById(customerId)
+                .map(stats -> new OrderTotals(stats.getOrderCount(), stats.getTotalSpent()))
+                .orElseGet(() -> orderRepository.getOrderTotalsByCustomerId(customerId, Order.OrderStatus.CANCELLED));
+    }
+
+    /**
+     * Gets the totals of several customers: one query on the read model, plus one grouped
+     * aggregate over the orders of the customers it has no row for yet.
+     */
+    public Map<Long, OrderTotals> getTotals(Collection<Long> customerIds) {
+        Map<Long, OrderTotals> totals = new HashMap<>();
+        customerStatsRepository.findAllById(customerIds).forEach(stats ->
+                totals.put(stats.getCustomerId(), new OrderTotals(stats.getOrderCount(), stats.getTotalSpent())));
+
+        List<Long> withoutStats = customerIds.stream().filter(id -> !totals.containsKey(id)).toList();
+        if (!withoutStats.isEmpty()) {
+            withoutStats.forEach(id -> totals.put(id, new OrderTotals(0, BigDecimal.ZERO)));
+            orderRepository.getOrderTotalsByCustomerIds(withoutStats, Order.OrderStatus.CANCELLED)
+                    .forEach(customerTotals -> totals.put(customerTotals.customerId(), customerTotals.toOrderTotals()));
+        }
+        return totals;
+    }
+
+    /**
+     * Records a newly placed order. Must run in the transaction that saves the order.
+     */
+    public void orderPlaced(Order order) {
+        apply(order, 1);
+    }
+
+    /**
+     * Records several newly placed orders with one delta per customer. Must run in the
+     * transaction that saves the orders.
+     */
+    public void ordersPlaced(List<Order> orders) {
+        Map<Long, List<Order>> ordersByCustomer = orders.stream()
+                .collect(Collectors.groupingBy(order -> order.getCustomer().getId()));
+        ordersByCustomer.forEach((customerId, customerOrders) -> applyDelta(
+                customerId,
+                customerOrders.size(),
+                customerOrders.stream().map(Order::getTotalAmount).reduce(BigDecimal.ZERO, BigDecimal::add)));
+    }
+
+    /**
+     * Records an order that moved to CANCELLED. Must run in the transaction that updates the order.
+     */
+    public void orderCancelled(Order order) {
+        apply(order, -1);
+    }
+
+    /**
+     * Records an order that moved out of CANCELLED. Must run in the transaction that updates the order.
+     */
+    public void orderReinstated(Order order) {
+        apply(order, 1);
+    }
+
+    /**
+     * Recomputes the stats of one customer from their orders.
+     */
+    public void refresh(Long customerId) {
+        transactionTemplate.executeWithoutResult(status -> customerStatsRepository.recompute(customerId, customerId));
+    }
+
+    /**
+     * Recomputes the stats of all customers from their orders, in chunks of consecutive
+     * customer ids. At most {@code parallelism} chunks run at once, each in its own
+     * transaction. Orders placed while a chunk runs may be missed or counted twice for
+     * that chunk's customers, so run it when order traffic is low.
+     */
+    public CustomerStatsRebuild rebuild() {
+        long startTime = System.currentTimeMillis();
+        String requestId = ScopedValues.currentRequestContext().requestId();
+        CustomerStatsProperties.Rebuild settings = customerStatsProperties.rebuild();
+
+        List<Long> customerIds = customerRepository.findAllIds();
+        log.info("Rebuilding customer stats for {} customers [requestId={}]", customerIds.size(), requestId);
+
+        Semaphore permits = new Semaphore(settings.parallelism());
+        int chunks = 0;
+        try (var scope = StructuredTaskScope.open(
+                StructuredTaskScope.Joiner.<Integer>awaitAllSuccessfulOrThrow(),
+                RequestDeadline.withRemainingTime())) {
+
+            for (int from = 0; from < customerIds.size(); from += settings.chunkSize()) {
+                Long fromCustomerId = customerIds.get(from);
+                Long toCustomerId = customerIds.get(Math.min(from + settings.chunkSize(), customerIds.size()) - 1);
+                scope.fork(() -> {
+                    permits.acquire();
+                    try {
+                        return transactionTemplate.execute(status ->
+                                customerStatsRepository.recompute(fromCustomerId, toCustomerId));
+                    } finally {
+                        permits.release();
+                    }
+                });
+                chunks++;
+            }
+
+            scope.join();
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Customer stats rebuild interrupted", e);
+        }
+
+        long durationMs = System.currentTimeMillis() - startTime;
+        log.info("Rebuilt customer stats for {} customers in {} chunks in {}ms [requestId={}]",
+                customerIds.size(), chunks, durationMs, requestId);
+
+        return new CustomerStatsRebuild(customerIds.size(), chunks, durationMs, requestId);
+    }
+
+    private void apply(Order order, int direction) {
+        BigDecimal amount = order.getTotalAmount() != null ? order.getTotalAmount() : BigDecimal.ZERO;
+        applyDelta(order.getCustomer().getId(), direction, direction > 0 ? amount : amount.negate());
+    }
+
+    /**
+     * Updates the customer's row by primary key; only the first change of a customer
+     * without a row pays for aggregating their orders.
+     */
+    private void applyDelta(Long customerId, long orderDelta, BigDecimal amountDelta) {
+        if (customerStatsRepository.addDelta(customerId, orderDelta, amountDelta) == 0) {
+            customerStatsRepository.createWithDelta(customerId, orderDelta, amountDelta);
+        }
+    }
+}
@@ -1,15 +1,22 @@
 package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.service;
 
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.concurrency.LatencyTracker;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.config.InventoryProperties;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.context.RequestDeadline;
 import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.context.ScopedValues;
 import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Product;
 import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.ProductRepository;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.StructuredTaskScope;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Created by IntelliJ IDEA.
@@ -39,39 +46,77 @@ import java.util.concurrent.StructuredTaskScope;
  * - StructuredTaskScope.open(Joiner.anySuccessfulResultOrThrow()) replaces ShutdownOnSuccess
  * - StructuredTaskScope.open() replaces ShutdownOnFailure
  * - join() returns the result directly (no separate result() method)
+ * <p>
+ * Hedged requests: instead of hitting every warehouse on every check, the
+ * preferred warehouse is asked first and the others are only launched if it
+ * has not answered within its tracked p95 latency (or as soon as it fails).
+ * A preferred warehouse call cancelled because a hedge won still counts, with
+ * the time it had taken so far, so a slowing warehouse raises the hedge delay.
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class InventoryCheckService {
 
+    private static final List<Warehouse> WAREHOUSES = List.of(
+            new Warehouse("WAREHOUSE-EAST", 100),
+            new Warehouse("WAREHOUSE-WEST", 150),
+            new Warehouse("WAREHOUSE-CENTRAL", 75)
+    );
+
     private final ProductRepository productRepository;
+    private final InventoryProperties.Hedging hedging;
+    private final Map<String, LatencyTracker> latencyTrackers = new LinkedHashMap<>();
+
+    public InventoryCheckService(ProductRepository productRepository, InventoryProperties inventoryProperties) {
+        this.productRepository = productRepository;
+        this.hedging = inventoryProperties.hedging();
+        WAREHOUSES.forEach(warehouse ->
+                latencyTrackers.put(warehouse.id(), new LatencyTracker(hedging.windowSize())));
+        if (!latencyTrackers.containsKey(hedging.preferredWarehouse())) {
+            throw new IllegalArgumentException("Unknown preferred warehouse: " + hedging.preferredWarehouse());
+        }
+    }
+
+    /**
+     * Checks inventory using the configured mode (hedged or full race).
+     */
+    @Transactional(readOnly = true)
+    public InventoryResult findAvailableInventory(Long productId, int requiredQuantity) {
+        return findAvailableInventory(productId, requiredQuantity, hedging.enabled());
+    }
 
     /**
-     * Checks inventory across multiple simulated "warehouses" in parallel.
+     * Checks inventory across multiple simulated "warehouses".
      * Returns as soon as any warehouse reports sufficient stock.
      * <p>
      * This demonstrates JDK 25's Joiner.anySuccessfulResultOrThrow() - the first warehouse
      * to confirm stock availability wins, and other checks are cancelled.
+     * When {@code hedged} is set, only the preferred warehouse is queried right away.
      */
     @Transactional(readOnly = true)
-    public InventoryResult findAvailableInventory(Long productId, int requiredQuantity) {
+    public InventoryResult findAvailableInventory(Long productId, int requiredQuantity, boolean hedged) {
         String requestId = ScopedValues.currentRequestContext().requestId();
-        log.info("Checking inventory for product {} (qty: {}) [requestId={}]",
-                productId, requiredQuantity, requestId);
+        log.info("Checking inventory for product {} (qty: {}, hedged: {}) [requestId={}]",
+                productId, requiredQuantity, hedged, requestId);
 
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new IllegalArgumentException("Product not found: " + productId));
 
         // JDK 25 API: Joiner.anySuccessfulResultOrThrow() replaces ShutdownOnSuccess
         // join() returns the first successful result directly
+        // The scope times out with the request deadline
         try (var scope = StructuredTaskScope.open(
-                StructuredTaskScope.Joiner.<InventoryResult>anySuccessfulResultOrThrow())) {
-
-            // Simulate checking multiple warehouses in parallel
-            scope.fork(() -> checkWarehouse("WAREHOUSE-EAST", product, requiredQuantity, 100));
-            scope.fork(() -> checkWarehouse("WAREHOUSE-WEST", product, requiredQuantity, 150));
-            scope.fork(() -> checkWarehouse("WAREHOUSE-CENTRAL", product, requiredQuantity, 75));
+                StructuredTaskScope.Joiner.<InventoryResult>anySuccessfulResultOrThrow(),
+                RequestDeadline.withRemainingTime())) {
+
+            if (hedged) {
+                forkHedged(scope, product, requiredQuantity);
+            } else {
+                // Simulate checking multiple warehouses in parallel
+                for (Warehouse warehouse : WAREHOUSES) {
+                    scope.fork(() -> checkWarehouse(warehouse, product, requiredQuantity, false));
+                }
+            }
 
             // join() returns the first successful result (JDK 25 API)
             InventoryResult result = scope.join();
@@ -82,6 +127,8 @@ public class InventoryCheckService {
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             throw new RuntimeException("Inventory check interrupted", e);
+        } catch (StructuredTaskScope.TimeoutException e) {
+            throw e;
         } catch (Exception e) {
             log.warn("No warehouse has sufficient inventory for product {} [requestId={}]",
                     productId, requestId);
@@ -89,19 +136,80 @@ public class InventoryCheckService {
         }
     }
 
-    private InventoryResult checkWarehouse(String warehouseId, Product product,
-                                           int requiredQuantity, long simulatedLatencyMs) {
+    /**
+     * Forks the preferred warehouse right away and the others as hedges.
+     * A hedge waits for the hedge delay (or the preferred warehouse failing)
+     * before it calls its warehouse; if the preferred warehouse wins first,
+     * the scope is cancelled and the waiting hedges never reach their backend.
+     */
+    private void forkHedged(StructuredTaskScope<InventoryResult, InventoryResult> scope,
+                            Product product, int requiredQuantity) {
+        Warehouse preferred = WAREHOUSES.stream()
+                .filter(warehouse -> warehouse.id().equals(hedging.preferredWarehouse()))
+                .findFirst()
+                .orElseThrow();
+        Duration hedgeDelay = hedgeDelay(preferred);
+        CountDownLatch preferredFailed = new CountDownLatch(1);
+
+        scope.fork(() -> {
+            try {
+                return checkWarehouse(preferred, product, requiredQuantity, true);
+            } catch (RuntimeException e) {
+                preferredFailed.countDown();
+                throw e;
+            }
+        });
+
+        for (Warehouse warehouse : WAREHOUSES) {
+            if (warehouse == preferred) {
+                continue;
+            }
+            scope.fork(() -> {
+                boolean failedFast = preferredFailed.await(hedgeDelay.toNanos(), TimeUnit.NANOSECONDS);
+                log.debug("Hedging to {} after {} ({}) [requestId={}]", warehouse.id(),
+                        failedFast ? "preferred warehouse failure" : hedgeDelay.toMillis() + "ms",
+                        preferred.id(), ScopedValues.currentRequestContext().requestId());
+                return checkWarehouse(warehouse, product, requiredQuantity, false);
+            });
+        }
+    }
+
+    /**
+     * Hedge delay: the tracked latency percentile of the preferred warehouse.
+     */
+    private Duration hedgeDelay(Warehouse preferred) {
+        Duration delay = latencyTrackers.get(preferred.id())
+                .percentile(hedging.percentile(), hedging.minSamples(), hedging.initialDelay());
+        return delay.compareTo(hedging.minDelay()) < 0 ? hedging.minDelay() : delay;
+    }
+
+    /**
+     * @param recordIfCancelled record the elapsed time of a cancelled call as a latency sample.
+     *                          Set for the preferred warehouse of a hedged check: it is only
+     *                          cancelled once a hedge launched after the hedge delay has won,
+     *                          so it was at least that slow. Leaving such calls out would keep
+     *                          only its fast answers in the window and its percentile too low.
+     */
+    private InventoryResult checkWarehouse(Warehouse warehouse, Product product, int requiredQuantity,
+                                           boolean recordIfCancelled) {
+        String warehouseId = warehouse.id();
         String requestId = ScopedValues.currentRequestContext().requestId();
         log.debug("Checking {} for product {} [requestId={}]",
                 warehouseId, product.getId(), requestId);
 
         // Simulate network latency to warehouse system
+        long start = System.nanoTime();
         try {
-            Thread.sleep(simulatedLatencyMs);
+            Thread.sleep(warehouse.simulatedLatencyMs());
         } catch (InterruptedException e) {
+            if (recordIfCancelled) {
+                // A lower bound of the warehouse's latency, recorded as if it had answered now
+                latencyTrackers.get(warehouseId).record(Duration.ofNanos(System.nanoTime() - start));
+            }
             Thread.currentThread().interrupt();
             throw new RuntimeException("Warehouse check interrupted", e);
         }
+        latencyTrackers.get(warehouseId).record(Duration.ofNanos(System.nanoTime() - start));
 
         // Simulate warehouse-specific stock (in reality, this would call an external service)
         int availableStock = simulateWarehouseStock(warehouseId, product);
@@ -122,6 +230,10 @@ public class InventoryCheckService {
         throw new InsufficientStockException(warehouseId, availableStock, requiredQuantity);
     }
 
+    LatencyTracker latencyTracker(String warehouseId) {
+        return latencyTrackers.get(warehouseId);
+    }
+
     private int simulateWarehouseStock(String warehouseId, Product product) {
         // Simulate different stock levels at different warehouses
         int baseStock = product.getStockQuantity();
@@ -146,7 +258,10 @@ public class InventoryCheckService {
                 .orElseThrow(() -> new IllegalArgumentException("Product not found: " + productId));
 
         // JDK 25 API: StructuredTaskScope.open() replaces new StructuredTaskScope.ShutdownOnFailure()
-        try (var scope = StructuredTaskScope.open()) {
+        // The scope times out with the request deadline
+        try (var scope = StructuredTaskScope.open(
+                StructuredTaskScope.Joiner.<WarehouseInfo>awaitAllSuccessfulOrThrow(),
+                RequestDeadline.withRemainingTime())) {
 
             var eastTask = scope.fork(() -> getWarehouseInfo("WAREHOUSE-EAST", product, 50));
             var westTask = scope.fork(() -> getWarehouseInfo("WAREHOUSE-WEST", product, 75));
@@ -192,6 +307,9 @@ public class InventoryCheckService {
         return new WarehouseInfo(warehouseId, stock, stock > 0);
     }
 
+    private record Warehouse(String id, long simulatedLatencyMs) {
+    }
+
     public record InventoryResult(
             String warehouseId,
             Long productId,
@@ -0,0 +1,294 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.service;
+
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.concurrency.AdmissionRejectedException;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.concurrency.ChunkedLoader;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.concurrency.DeadlineExceededException;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.config.OrderProperties;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.context.RequestDeadline;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.context.ScopedValues;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.OrderBatchResult;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.OrderRequest;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Customer;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Order;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.OrderItem;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Product;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.event.ProductStockChangedEvent;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.CustomerRepository;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.OrderRepository;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 23.59
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Creates many orders in one call.
+ * <p>
+ * The customers and products of the whole batch are read once, and every order
+ * is validated in memory against that read, with the stock taken by earlier
+ * orders of the batch deducted. Valid orders are then saved in chunks of
+ * {@code app.orders.batch.chunk-size}, one transaction per chunk: one guarded
+ * stock decrement per product for the whole chunk, batched order and item
+ * inserts, and one stats delta per customer. Invalid orders are reported and
+ * skipped without failing the rest of the batch, and a chunk that fails fails
+ * only its own orders. Once the request deadline has passed or no connection
+ * can be had, the chunks not yet saved are reported failed without being tried.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderBatchService {
+
+    private final OrderRepository orderRepository;
+    private final CustomerRepository customerRepository;
+    private final ProductRepository productRepository;
+    private final OrderNumberGenerator orderNumberGenerator;
+    private final CustomerStatsService customerStatsService;
+    private final OrderProperties orderProperties;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public OrderBatchResult submit(List<OrderRequest> requests) {
+        long startTime = System.currentTimeMillis();
+        String requestId = ScopedValues.currentRequestContext().requestId();
+        OrderProperties.Batch settings = orderProperties.batch();
+        if (requests.isEmpty() || requests.size() > settings.maxOrders()) {
+            throw new IllegalArgumentException("A batch must have between 1 and " + settings.maxOrders() + " orders");
+        }
+        log.info("Submitting a batch of {} orders [requestId={}]", requests.size(), requestId);
+
+        // One read of the customers and one of the products for the whole batch
+        int loadChunkSize = orderProperties.validation().chunkSize();
+        Map<Long, Customer> customers = loadById(
+                requests.stream().filter(Objects::nonNull).map(OrderRequest::customerId),
+                loadChunkSize, customerRepository::findAllById, Customer::getId);
+        Map<Long, Product> products = loadById(
+                requests.stream().filter(Objects::nonNull).flatMap(request -> request.items() == null
+                        ? Stream.empty()
+                        : request.items().stream().filter(Objects::nonNull).map(OrderRequest.OrderItemRequest::productId)),
+                loadChunkSize, productRepository::findAllById, Product::getId);
+
+        OrderBatchResult.Entry[] results = new OrderBatchResult.Entry[requests.size()];
+        List<PendingOrder> accepted = new ArrayList<>(requests.size());
+        Map<Long, Integer> remainingStock = new HashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            OrderRequest request = requests.get(i);
+            String error = validate(request, customers, products, remainingStock);
+            if (error != null) {
+                results[i] = OrderBatchResult.Entry.failed(i, error);
+            } else {
+                accepted.add(new PendingOrder(i, request, customers.get(request.customerId())));
+            }
+        }
+
+        RuntimeException stoppedBy = null;
+        for (int from = 0; from < accepted.size(); from += settings.chunkSize()) {
+            List<PendingOrder> chunk = accepted.subList(from, Math.min(from + settings.chunkSize(), accepted.size()));
+            if (stoppedBy != null) {
+                fail(chunk, "Batch stopped before this order: " + stoppedBy.getMessage(), results);
+            } else {
+                stoppedBy = saveChunk(chunk, products, results);
+            }
+        }
+
+        OrderBatchResult result = OrderBatchResult.of(
+                Arrays.asList(results), System.currentTimeMillis() - startTime, requestId);
+        log.info("Batch of {} orders: {} created, {} failed in {}ms [requestId={}]",
+                requests.size(), result.created(), result.failed(), result.durationMs(), requestId);
+        return result;
+    }
+
+    private static <T> Map<Long, T> loadById(Stream<Long> ids, int chunkSize,
+                                             Function<List<Long>, List<T>> loader, Function<T, Long> idOf) {
+        List<Long> distinctIds = ids.filter(Objects::nonNull).distinct().toList();
+        return ChunkedLoader.load(distinctIds, chunkSize, loader).stream()
+                .collect(Collectors.toMap(idOf, Function.identity()));
+    }
+
+    /**
+     * Checks one order against the batch's read of customers and products, and takes its
+     * quantities from the remaining stock if it is valid.
+     *
+     * @return why the order is rejected, or {@code null} if it is valid
+     */
+    private static String validate(OrderRequest request, Map<Long, Customer> customers,
+                                   Map<Long, Product> products, Map<Long, Integer> remainingStock) {
+        if (request == null) {
+            return "Order is missing";
+        }
+        if (request.customerId() == null || request.items() == null || request.items().isEmpty()) {
+            return "Customer ID and at least one item are required";
+        }
+        if (!customers.containsKey(request.customerId())) {
+            return "Customer not found: " + request.customerId();
+        }
+
+        Map<Long, Integer> requestedQuantities = new LinkedHashMap<>();
+        for (OrderRequest.OrderItemRequest item : request.items()) {
+            if (item == null || item.productId() == null || item.quantity() == null || item.quantity() < 1) {
+                return "Every item needs a product ID and a positive quantity";
+            }
+            requestedQuantities.merge(item.productId(), item.quantity(), Integer::sum);
+        }
+
+        for (Map.Entry<Long, Integer> requested : requestedQuantities.entrySet()) {
+            Product product = products.get(requested.getKey());
+            if (product == null) {
+                return "Product not found: " + requested.getKey();
+            }
+            if (!Boolean.TRUE.equals(product.getIsActive())) {
+                return "Product is not active: " + product.getName();
+            }
+            int available = remainingStock.getOrDefault(product.getId(), product.getStockQuantity());
+            if (available < requested.getValue()) {
+                return "Insufficient stock for product: " + product.getName() +
+                        " (available: " + available + ", requested: " + requested.getValue() + ")";
+            }
+        }
+
+        requestedQuantities.forEach((productId, quantity) -> remainingStock.put(productId,
+                remainingStock.getOrDefault(productId, products.get(productId).getStockQuantity()) - quantity));
+        return null;
+    }
+
+    /**
+     * Saves a chunk in one transaction. If the stock of a product changed since the batch
+     * was read and the chunk no longer fits, its orders are retried one transaction each,
+     * so only the orders that cannot be served fail. Any other failure fails the chunk's
+     * orders only, unless the request ran out of time or connections: then there is no
+     * point in trying the next chunks.
+     *
+     * @return the failure that should stop the batch, or {@code null} to go on with the next chunk
+     */
+    private RuntimeException saveChunk(List<PendingOrder> chunk, Map<Long, Product> products,
+                                       OrderBatchResult.Entry[] results) {
+        try {
+            ScopedValues.currentDeadline().ifPresent(RequestDeadline::ensureNotExpired);
+            List<OrderBatchResult.Entry> created = transactionTemplate.execute(status -> insert(chunk, products));
+            created.forEach(entry -> results[entry.index()] = entry);
+            return null;
+        } catch (IllegalStateException e) {
+            if (chunk.size() == 1) {
+                fail(chunk, e.getMessage(), results);
+                return null;
+            }
+            log.warn("Chunk of {} orders rejected, retrying one by one: {}", chunk.size(), e.getMessage());
+            for (int i = 0; i < chunk.size(); i++) {
+                RuntimeException stoppedBy = saveChunk(List.of(chunk.get(i)), products, results);
+                if (stoppedBy != null) {
+                    fail(chunk.subList(i + 1, chunk.size()),
+                            "Batch stopped before this order: " + stoppedBy.getMessage(), results);
+                    return stoppedBy;
+                }
+            }
+            return null;
+        } catch (RuntimeException e) {
+            fail(chunk, e.getMessage(), results);
+            if (stopsTheBatch(e)) {
+                log.error("Chunk of {} orders failed, stopping the batch: {}", chunk.size(), e.getMessage());
+                return e;
+            }
+            log.error("Chunk of {} orders failed: {}", chunk.size(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Whether {@code e}, or a cause of it, means the request deadline passed or no
+     * connection could be had, which the next chunk would run into as well.
+     */
+    private static boolean stopsTheBatch(RuntimeException e) {
+        for (Throwable current = e; current != null && current.getCause() != current; current = current.getCause()) {
+            if (current instanceof DeadlineExceededException
+                    || current instanceof TransactionTimedOutException
+                    || current instanceof QueryTimeoutException
+                    || current instanceof AdmissionRejectedException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void fail(List<PendingOrder> orders, String error, OrderBatchResult.Entry[] results) {
+        orders.forEach(order -> results[order.index()] = OrderBatchResult.Entry.failed(order.index(), error));
+    }
+
+    private List<OrderBatchResult.Entry> insert(List<PendingOrder> chunk, Map<Long, Product> products) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Order> orders = new ArrayList<>(chunk.size());
+        Map<Long, Integer> reservedQuantities = new HashMap<>();
+        for (PendingOrder pending : chunk) {
+            OrderRequest request = pending.request();
+            Order order = Order.builder()
+                    .orderNumber(orderNumberGenerator.nextOrderNumber())
+                    .customer(customerRepository.getReferenceById(pending.customer().getId()))
+                    .shippingAddress(request.shippingAddress() != null
+                            ? request.shippingAddress()
+                            : pending.customer().getShippingAddress())
+                    .notes(request.notes())
+                    .status(Order.OrderStatus.PENDING)
+                    .createdAt(now)
+                    .items(new ArrayList<>())
+                    .build();
+            for (OrderRequest.OrderItemRequest item : request.items()) {
+                Product product = products.get(item.productId());
+                OrderItem orderItem = OrderItem.builder()
+                        .product(productRepository.getReferenceById(product.getId()))
+                        .quantity(item.quantity())
+                        .unitPrice(product.getPrice())
+                        .build();
+                orderItem.calculateSubtotal();
+                order.addItem(orderItem);
+
+                reservedQuantities.merge(product.getId(), item.quantity(), Integer::sum);
+            }
+            order.calculateTotalAmount();
+            orders.add(order);
+        }
+
+        // One guarded decrement per product for the whole chunk, in product id order
+        productRepository.reserveStock(reservedQuantities);
+        eventPublisher.publishEvent(new ProductStockChangedEvent(List.copyOf(reservedQuantities.keySet())));
+
+        orderRepository.saveAll(orders);
+        customerStatsService.ordersPlaced(orders);
+
+        List<OrderBatchResult.Entry> created = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            Order order = orders.get(i);
+            created.add(OrderBatchResult.Entry.created(
+                    chunk.get(i).index(), order.getId(), order.getOrderNumber(), order.getTotalAmount()));
+        }
+        return created;
+    }
+
+    private record PendingOrder(int index, OrderRequest request, Customer customer) {
+    }
+}
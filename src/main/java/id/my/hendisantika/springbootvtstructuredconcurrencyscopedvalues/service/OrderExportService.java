@@ -0,0 +1,151 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.service;
+
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.concurrency.AdmissionRejectedException;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.config.OrderProperties;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.OrderExport;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.OrderExportRow;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Order;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.OrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.data.domain.Limit;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 23.59
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Writes orders with their items as newline-delimited JSON, one order per line.
+ * <p>
+ * Orders are read as plain DTOs in keyset pages of {@code app.orders.export.page-size}
+ * orders, each in a short read-only transaction of its own, so the connection (and
+ * its bulkhead permit) goes back to the pool before the page is written. A slow
+ * client therefore holds nothing but the current page, and the database never
+ * waits on the network. At most {@code app.orders.export.max-concurrent} exports
+ * run at once; more are rejected with a 503.
+ */
+@Slf4j
+@Service
+public class OrderExportService {
+
+    private static final byte NEWLINE = '\n';
+
+    private final OrderRepository orderRepository;
+    private final JsonMapper jsonMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final OrderProperties.Export settings;
+    private final Semaphore running;
+
+    public OrderExportService(OrderRepository orderRepository, JsonMapper jsonMapper,
+                              PlatformTransactionManager transactionManager, OrderProperties orderProperties) {
+        this.orderRepository = orderRepository;
+        this.jsonMapper = jsonMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.settings = orderProperties.export();
+        this.running = new Semaphore(settings.maxConcurrent());
+    }
+
+    /**
+     * Writes the orders matching the filters, in id order. Null filters match
+     * everything; {@code from} and {@code to} are inclusive. Orders created or
+     * changed while the export runs are included if their page has not been read yet.
+     *
+     * @return the number of orders written
+     * @throws AdmissionRejectedException if the maximum number of exports is already running
+     */
+    public long export(Order.OrderStatus status, LocalDateTime from, LocalDateTime to, OutputStream out)
+            throws IOException {
+        if (!running.tryAcquire()) {
+            throw new AdmissionRejectedException(
+                    "Already running " + settings.maxConcurrent() + " order exports", settings.retryAfter());
+        }
+        try {
+            ObjectWriter writer = jsonMapper.writerFor(OrderExport.class);
+            Limit pageSize = Limit.of(settings.pageSize());
+            long exported = 0;
+            long after = 0;
+            Page page;
+            do {
+                long cursor = after;
+                page = readOnlyTransaction.execute(tx -> readPage(status, from, to, cursor, pageSize));
+                for (OrderExport order : page.orders()) {
+                    writeLine(writer, order, out);
+                    exported++;
+                }
+                out.flush();
+                after = page.last();
+            } while (page.full());
+            log.info("Exported {} orders [status={}, from={}, to={}]", exported, status, from, to);
+            return exported;
+        } finally {
+            running.release();
+        }
+    }
+
+    private Page readPage(Order.OrderStatus status, LocalDateTime from, LocalDateTime to, long after, Limit limit) {
+        List<Long> orderIds = orderRepository.findExportOrderIds(status, from, to, after, limit);
+        if (orderIds.isEmpty()) {
+            return new Page(List.of(), after, false);
+        }
+        return new Page(group(orderRepository.findOrderExportRows(orderIds)), orderIds.getLast(),
+                orderIds.size() == limit.max());
+    }
+
+    /**
+     * Groups rows ordered by order id into one export per order; a row without an
+     * item stands for an order without items.
+     */
+    static List<OrderExport> group(List<OrderExportRow> rows) {
+        List<OrderExport> orders = new ArrayList<>();
+        OrderExportRow header = null;
+        List<OrderExport.Item> items = new ArrayList<>();
+        for (OrderExportRow row : rows) {
+            // Rows come ordered by order id, so an order is complete once the next one starts
+            if (header != null && !header.orderId().equals(row.orderId())) {
+                orders.add(OrderExport.of(header, items));
+                items = new ArrayList<>();
+            }
+            if (header == null || !header.orderId().equals(row.orderId())) {
+                header = row;
+            }
+            if (row.itemId() != null) {
+                items.add(OrderExport.Item.of(row));
+            }
+        }
+        if (header != null) {
+            orders.add(OrderExport.of(header, items));
+        }
+        return orders;
+    }
+
+    private static void writeLine(ObjectWriter writer, OrderExport order, OutputStream out) throws IOException {
+        out.write(writer.writeValueAsBytes(order));
+        out.write(NEWLINE);
+    }
+
+    /**
+     * One page of orders, the id to continue after, and whether more may follow.
+     */
+    private record Page(List<OrderExport> orders, long last, boolean full) {
+    }
+}
@@ -0,0 +1,99 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.service;
+
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.concurrency.ChunkedLoader;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.config.OrderProperties;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.context.ScopedValues;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.OrderRequest;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Product;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 09.10
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Validates the line items of an order against the product catalog.
+ * <p>
+ * All requested products are loaded with one {@code IN} query on the caller's
+ * thread, i.e. inside the caller's transaction and on its connection, and the
+ * items are then checked in memory. Only orders with more distinct products
+ * than {@code app.orders.validation.chunk-size} fall back to loading chunks in
+ * parallel subtasks (see {@link ChunkedLoader}).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderItemValidator {
+
+    private final ProductRepository productRepository;
+    private final OrderProperties orderProperties;
+
+    /**
+     * Validates every item; fails on the first item that references an unknown or
+     * inactive product, or asks for more than is in stock. Quantities of items
+     * for the same product are added up before the stock check.
+     */
+    public List<ValidatedItem> validate(List<OrderRequest.OrderItemRequest> items) {
+        String requestId = ScopedValues.currentRequestContext().requestId();
+
+        Map<Long, Integer> requestedQuantities = new LinkedHashMap<>();
+        for (OrderRequest.OrderItemRequest item : items) {
+            requestedQuantities.merge(item.productId(), item.quantity(), Integer::sum);
+        }
+
+        List<Long> productIds = List.copyOf(requestedQuantities.keySet());
+        Map<Long, Product> products = ChunkedLoader.load(
+                        productIds,
+                        orderProperties.validation().chunkSize(),
+                        productRepository::findAllById)
+                .stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        log.debug("Validating {} items over {} products [requestId={}]", items.size(), productIds.size(), requestId);
+
+        requestedQuantities.forEach((productId, quantity) -> {
+            Product product = products.get(productId);
+            if (product == null) {
+                throw new IllegalArgumentException("Product not found: " + productId);
+            }
+
+            if (!Boolean.TRUE.equals(product.getIsActive())) {
+                throw new IllegalArgumentException("Product is not active: " + product.getName());
+            }
+
+            if (!product.hasEnoughStock(quantity)) {
+                throw new IllegalArgumentException(
+                        "Insufficient stock for product: " + product.getName() +
+                                " (available: " + product.getStockQuantity() +
+                                ", requested: " + quantity + ")");
+            }
+        });
+
+        List<ValidatedItem> validatedItems = new ArrayList<>(items.size());
+        for (OrderRequest.OrderItemRequest item : items) {
+            validatedItems.add(new ValidatedItem(products.get(item.productId()), item.quantity()));
+        }
+        return validatedItems;
+    }
+
+    public record ValidatedItem(Product product, int quantity) {
+    }
+}
@@ -0,0 +1,134 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.service;
+
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.config.OrderProperties;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.OrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 17.10
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Generates time-ordered, collision-free order numbers such as {@code ORD-01HZ3K8Q0M4TR}.
+ * <p>
+ * Each number encodes a Snowflake-style 63-bit id:
+ * <pre>
+ * | 41 bits: ms since 2025-01-01 | 10 bits: node id | 12 bits: sequence |
+ * </pre>
+ * written as 13 fixed-width Crockford base32 characters, so order numbers
+ * sort in creation order and new rows land at the end of the unique
+ * {@code order_number} index. The node id ({@code app.orders.node-id}) keeps
+ * instances apart; within one instance the generator is lock-free and
+ * strictly monotonic: the last timestamp and sequence share one
+ * {@link AtomicLong} updated by CAS. When the 4096 numbers of a millisecond
+ * run out, or the clock steps back, the sequence carries into the next
+ * millisecond instead of waiting.
+ * <p>
+ * The generator starts after the highest order number already stored, so a
+ * restart onto a clock that is behind (or a number carried ahead of the clock
+ * before the restart) never reissues a number.
+ */
+@Slf4j
+@Component
+public class OrderNumberGenerator {
+
+    private static final String PREFIX = "ORD-";
+
+    private static final long EPOCH_MILLIS = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+    private static final int ENCODED_LENGTH = 13;
+    private static final String CROCKFORD_BASE32 = "0123456789ABCDEFGHJKMNPQRSTVWXYZ";
+
+    private final long nodeBits;
+    private final LongSupplier clock;
+
+    /**
+     * Milliseconds since the epoch shifted left by the sequence bits, plus the sequence.
+     */
+    private final AtomicLong lastTimeAndSequence = new AtomicLong();
+
+    @Autowired
+    public OrderNumberGenerator(OrderProperties orderProperties, OrderRepository orderRepository) {
+        this(orderProperties, orderRepository, System::currentTimeMillis);
+    }
+
+    OrderNumberGenerator(OrderProperties orderProperties, OrderRepository orderRepository, LongSupplier clock) {
+        int nodeId = orderProperties.nodeId();
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("app.orders.node-id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeBits = (long) nodeId << SEQUENCE_BITS;
+        this.clock = clock;
+        seed(orderRepository.findHighestOrderNumbers(PREFIX.length() + ENCODED_LENGTH, Limit.of(1)));
+    }
+
+    public String nextOrderNumber() {
+        long id = nextId();
+
+        char[] chars = new char[PREFIX.length() + ENCODED_LENGTH];
+        PREFIX.getChars(0, PREFIX.length(), chars, 0);
+        for (int i = chars.length - 1; i >= PREFIX.length(); i--) {
+            chars[i] = CROCKFORD_BASE32.charAt((int) (id & 31));
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    private long nextId() {
+        long timeAndSequence;
+        while (true) {
+            long last = lastTimeAndSequence.get();
+            long now = (clock.getAsLong() - EPOCH_MILLIS) << SEQUENCE_BITS;
+            timeAndSequence = Math.max(now, last + 1);
+            if (lastTimeAndSequence.compareAndSet(last, timeAndSequence)) {
+                break;
+            }
+        }
+
+        long millis = timeAndSequence >>> SEQUENCE_BITS;
+        long sequence = timeAndSequence & ((1L << SEQUENCE_BITS) - 1);
+        return (millis << (NODE_BITS + SEQUENCE_BITS)) | nodeBits | sequence;
+    }
+
+    /**
+     * Continues after the given order number, whichever node issued it: its
+     * timestamp and sequence become the last ones used here.
+     */
+    private void seed(List<String> highest) {
+        if (highest.isEmpty()) {
+            return;
+        }
+        String orderNumber = highest.getFirst();
+        long id = 0;
+        for (int i = PREFIX.length(); i < orderNumber.length(); i++) {
+            int digit = CROCKFORD_BASE32.indexOf(orderNumber.charAt(i));
+            if (!orderNumber.startsWith(PREFIX) || digit < 0) {
+                log.warn("Highest stored order number {} is not a generated one, starting from the clock", orderNumber);
+                return;
+            }
+            id = (id << 5) | digit;
+        }
+        long millis = id >>> (NODE_BITS + SEQUENCE_BITS);
+        long sequence = id & ((1L << SEQUENCE_BITS) - 1);
+        lastTimeAndSequence.set((millis << SEQUENCE_BITS) | sequence);
+        log.info("Order numbers continue after {}", orderNumber);
+    }
+}
@@ -1,27 +1,38 @@
 package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.service;
 
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.concurrency.ChunkedLoader;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.config.MultiGetProperties;
 import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.context.RequestContext;
 import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.context.ScopedValues;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.CursorPage;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.MultiGetResult;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.OrderDetailRow;
 import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.OrderRequest;
 import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.OrderResponse;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.OrderSummary;
 import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Customer;
 import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Order;
 import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.OrderItem;
-import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Product;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.event.ProductStockChangedEvent;
 import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.CustomerRepository;
 import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.OrderRepository;
 import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.ProductRepository;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.service.OrderItemValidator.ValidatedItem;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
-import java.util.concurrent.StructuredTaskScope;
+import java.util.stream.Collectors;
 
 /**
  * Created by IntelliJ IDEA.
@@ -39,9 +50,8 @@ import java.util.concurrent.StructuredTaskScope;
  * Order service demonstrating Structured Concurrency with JDK 25 API.
  * <p>
  * This demonstrates:
- * - StructuredTaskScope.open() for parallel validation
- * - Parallel validation using virtual threads
- * - ScopedValue access within subtasks
+ * - Batched item validation with one IN query per order (see {@link OrderItemValidator})
+ * - ScopedValue access throughout the request
  * <p>
  * JDK 25 API Changes:
  * - StructuredTaskScope.open() replaces new StructuredTaskScope.ShutdownOnFailure()
@@ -55,10 +65,15 @@ public class OrderService {
     private final OrderRepository orderRepository;
     private final CustomerRepository customerRepository;
     private final ProductRepository productRepository;
+    private final OrderItemValidator orderItemValidator;
+    private final OrderNumberGenerator orderNumberGenerator;
+    private final CustomerStatsService customerStatsService;
+    private final MultiGetProperties multiGetProperties;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
-     * Creates a new order with parallel validation of items.
-     * Uses Structured Concurrency to validate all items concurrently.
+     * Creates a new order after validating all items against the catalog.
+     * The products of all items are loaded with a single query.
      */
     @Transactional
     public OrderResponse createOrder(OrderRequest request) {
@@ -70,12 +85,12 @@ public class OrderService {
         Customer customer = customerRepository.findById(request.customerId())
                 .orElseThrow(() -> new IllegalArgumentException("Customer not found: " + request.customerId()));
 
-        // Validate all items in parallel using Structured Concurrency
-        List<ValidatedItem> validatedItems = validateItemsInParallel(request.items());
+        // Validate all items with one batched product lookup
+        List<ValidatedItem> validatedItems = orderItemValidator.validate(request.items());
 
         // Create the order
         Order order = Order.builder()
-                .orderNumber(generateOrderNumber())
+                .orderNumber(orderNumberGenerator.nextOrderNumber())
                 .customer(customer)
                 .shippingAddress(request.shippingAddress() != null
                         ? request.shippingAddress()
@@ -87,6 +102,7 @@ public class OrderService {
                 .build();
 
         // Add validated items to order
+        Map<Long, Integer> reservedQuantities = new HashMap<>();
         for (ValidatedItem validatedItem : validatedItems) {
             OrderItem orderItem = OrderItem.builder()
                     .product(validatedItem.product())
@@ -96,15 +112,20 @@ public class OrderService {
             orderItem.calculateSubtotal();
             order.addItem(orderItem);
 
-            // Decrease stock
-            productRepository.decreaseStock(validatedItem.product().getId(), validatedItem.quantity());
+            reservedQuantities.merge(validatedItem.product().getId(), validatedItem.quantity(), Integer::sum);
         }
 
+        // Reserve stock for all items at once; the validation read may be stale by now,
+        // so a product that sold out in the meantime fails here and rolls the order back
+        productRepository.reserveStock(reservedQuantities);
+        eventPublisher.publishEvent(new ProductStockChangedEvent(List.copyOf(reservedQuantities.keySet())));
+
         // Calculate total
         order.calculateTotalAmount();
 
         // Save order
         Order savedOrder = orderRepository.save(order);
+        customerStatsService.orderPlaced(savedOrder);
 
         log.info("Order created: {} [requestId={}]", savedOrder.getOrderNumber(), context.requestId());
 
@@ -112,97 +133,64 @@ public class OrderService {
     }
 
     /**
-     * Validates all order items in parallel using Structured Concurrency (JDK 25 API).
-     * All validations must succeed, otherwise the entire operation fails.
+     * Finds an order by ID with its customer and items, read as one joined projection query.
      */
-    private List<ValidatedItem> validateItemsInParallel(List<OrderRequest.OrderItemRequest> items) {
-        // JDK 25 API: StructuredTaskScope.open() replaces new StructuredTaskScope.ShutdownOnFailure()
-        try (var scope = StructuredTaskScope.open()) {
-
-            // Fork a validation task for each item
-            List<StructuredTaskScope.Subtask<ValidatedItem>> tasks = items.stream()
-                    .map(item -> scope.fork(() -> validateItem(item)))
-                    .toList();
-
-            // Wait for all validations to complete - join() throws FailedException on failure (JDK 25)
-            scope.join();
-
-            // Collect results
-            return tasks.stream()
-                    .map(StructuredTaskScope.Subtask::get)
-                    .toList();
-
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new RuntimeException("Order validation interrupted", e);
-        }
+    @Transactional(readOnly = true)
+    public Optional<OrderResponse> findByIdWithDetails(Long id) {
+        return toResponse(orderRepository.findOrderDetailRows(id));
     }
 
-    private ValidatedItem validateItem(OrderRequest.OrderItemRequest item) {
-        String requestId = ScopedValues.currentRequestContext().requestId();
-        log.debug("Validating item productId={} quantity={} on thread {} [requestId={}]",
-                item.productId(), item.quantity(), Thread.currentThread(), requestId);
-
-        Product product = productRepository.findById(item.productId())
-                .orElseThrow(() -> new IllegalArgumentException("Product not found: " + item.productId()));
-
-        if (!product.getIsActive()) {
-            throw new IllegalArgumentException("Product is not active: " + product.getName());
-        }
-
-        if (!product.hasEnoughStock(item.quantity())) {
-            throw new IllegalArgumentException(
-                    "Insufficient stock for product: " + product.getName() +
-                            " (available: " + product.getStockQuantity() +
-                            ", requested: " + item.quantity() + ")");
-        }
-
-        return new ValidatedItem(product, item.quantity());
+    @Transactional(readOnly = true)
+    public Optional<OrderResponse> findByOrderNumber(String orderNumber) {
+        return toResponse(orderRepository.findOrderDetailRowsByOrderNumber(orderNumber));
     }
 
     /**
-     * Finds an order by ID with full details, demonstrating parallel data enrichment.
+     * Resolves a batch of ids with one joined {@code IN} query per chunk of ids.
+     * Not transactional: the chunks are read by parallel subtasks on connections
+     * of their own, which a transaction here would not cover.
      */
-    @Transactional(readOnly = true)
-    public Optional<OrderResponse> findByIdWithDetails(Long id) {
-        return orderRepository.findByIdWithItems(id)
-                .map(order -> {
-                    // Initialize lazy-loaded associations
-                    order.getCustomer().getFullName();
-                    order.getItems().forEach(item -> item.getProduct().getName());
-                    return OrderResponse.from(order, ScopedValues.currentRequestContext().requestId());
-                });
-    }
+    public MultiGetResult<OrderResponse> findAllById(List<Long> ids) {
+        List<OrderDetailRow> rows = ChunkedLoader.load(
+                ids.stream().distinct().toList(),
+                multiGetProperties.chunkSize(),
+                orderRepository::findOrderDetailRowsByIdIn);
 
-    @Transactional(readOnly = true)
-    public Optional<OrderResponse> findByOrderNumber(String orderNumber) {
-        return orderRepository.findByOrderNumberWithDetails(orderNumber)
-                .map(order -> OrderResponse.from(order, ScopedValues.currentRequestContext().requestId()));
+        // Rows of one order are adjacent, ordered by order id within each chunk
+        String requestId = ScopedValues.currentRequestContext().requestId();
+        Map<Long, OrderResponse> orders = rows.stream()
+                .collect(Collectors.groupingBy(OrderDetailRow::orderId, LinkedHashMap::new, Collectors.toList()))
+                .entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> OrderResponse.from(entry.getValue(), requestId)));
+        return MultiGetResult.of(ids, orders);
     }
 
     @Transactional(readOnly = true)
-    public List<Order> findByCustomerId(Long customerId) {
-        return orderRepository.findByCustomerId(customerId);
+    public CursorPage<OrderSummary> findByCustomerId(Long customerId, long after, int limit) {
+        return CursorPage.of(orderRepository.findOrderSummariesByCustomerId(
+                customerId, after, Limit.of(limit + 1)), limit, OrderSummary::id);
     }
 
     @Transactional(readOnly = true)
-    public List<Order> findByStatus(Order.OrderStatus status) {
-        return orderRepository.findByStatus(status);
+    public CursorPage<OrderSummary> findByStatus(Order.OrderStatus status, long after, int limit) {
+        return CursorPage.of(orderRepository.findOrderSummariesByStatus(
+                status, after, Limit.of(limit + 1)), limit, OrderSummary::id);
     }
 
     @Transactional(readOnly = true)
-    public List<Order> findAll() {
-        return orderRepository.findAll();
+    public CursorPage<OrderSummary> findAll(long after, int limit) {
+        return CursorPage.of(orderRepository.findOrderSummaries(after, Limit.of(limit + 1)), limit, OrderSummary::id);
     }
 
     @Transactional
-    public Order updateStatus(Long orderId, Order.OrderStatus newStatus) {
+    public OrderResponse updateStatus(Long orderId, Order.OrderStatus newStatus) {
         String requestId = ScopedValues.currentRequestContext().requestId();
         log.info("Updating order {} status to {} [requestId={}]", orderId, newStatus, requestId);
 
-        Order order = orderRepository.findById(orderId)
+        Order order = orderRepository.findWithDetailsById(orderId)
                 .orElseThrow(() -> new IllegalArgumentException("Order not found: " + orderId));
 
+        Order.OrderStatus previousStatus = order.getStatus();
         order.setStatus(newStatus);
         order.setUpdatedAt(LocalDateTime.now());
 
@@ -212,15 +200,29 @@ public class OrderService {
             order.setDeliveredAt(LocalDateTime.now());
         }
 
-        return orderRepository.save(order);
+        // Customer stats exclude cancelled orders
+        if (previousStatus != Order.OrderStatus.CANCELLED && newStatus == Order.OrderStatus.CANCELLED) {
+            customerStatsService.orderCancelled(order);
+        } else if (previousStatus == Order.OrderStatus.CANCELLED && newStatus != Order.OrderStatus.CANCELLED) {
+            // Cancelling released the stock: take it again, or fail with 409 if it has been sold since
+            Map<Long, Integer> reservedQuantities = new HashMap<>();
+            for (OrderItem item : order.getItems()) {
+                reservedQuantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+            }
+            productRepository.reserveStock(reservedQuantities);
+            eventPublisher.publishEvent(new ProductStockChangedEvent(List.copyOf(reservedQuantities.keySet())));
+            customerStatsService.orderReinstated(order);
+        }
+
+        return OrderResponse.from(orderRepository.save(order), requestId);
     }
 
     @Transactional
-    public Order cancelOrder(Long orderId) {
+    public OrderResponse cancelOrder(Long orderId) {
         String requestId = ScopedValues.currentRequestContext().requestId();
         log.info("Cancelling order {} [requestId={}]", orderId, requestId);
 
-        Order order = orderRepository.findByIdWithItems(orderId)
+        Order order = orderRepository.findWithDetailsById(orderId)
                 .orElseThrow(() -> new IllegalArgumentException("Order not found: " + orderId));
 
         if (order.getStatus() == Order.OrderStatus.SHIPPED ||
@@ -228,21 +230,28 @@ public class OrderService {
             throw new IllegalStateException("Cannot cancel order that has been shipped or delivered");
         }
 
-        // Restore stock for each item
+        // Restore stock for all items at once
+        Map<Long, Integer> releasedQuantities = new HashMap<>();
         for (OrderItem item : order.getItems()) {
-            productRepository.increaseStock(item.getProduct().getId(), item.getQuantity());
+            releasedQuantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
         }
+        productRepository.releaseStock(releasedQuantities);
+        eventPublisher.publishEvent(new ProductStockChangedEvent(List.copyOf(releasedQuantities.keySet())));
 
+        Order.OrderStatus previousStatus = order.getStatus();
         order.setStatus(Order.OrderStatus.CANCELLED);
         order.setUpdatedAt(LocalDateTime.now());
 
-        return orderRepository.save(order);
-    }
+        if (previousStatus != Order.OrderStatus.CANCELLED) {
+            customerStatsService.orderCancelled(order);
+        }
 
-    private String generateOrderNumber() {
-        return "ORD-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+        return OrderResponse.from(orderRepository.save(order), requestId);
     }
 
-    private record ValidatedItem(Product product, int quantity) {
+    private static Optional<OrderResponse> toResponse(List<OrderDetailRow> rows) {
+        return rows.isEmpty()
+                ? Optional.empty()
+                : Optional.of(OrderResponse.from(rows, ScopedValues.currentRequestContext().requestId()));
     }
 }
@@ -0,0 +1,283 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.catalog.CatalogRow;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.catalog.StockLevel;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.concurrency.ChunkedLoader;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.config.ProductCacheProperties;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Product;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.event.ProductChangedEvent;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.event.ProductStockChangedEvent;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.ProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-vt-structured-concurrency-scoped-values
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 16/10/26
+ * Time: 20.50
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Bounded, read-through cache of products by id and by SKU.
+ * <p>
+ * Catalog data (name, price, category, ...) and stock are cached separately:
+ * catalog entries live for {@code app.product-cache.ttl}, stock quantities
+ * only for {@code app.product-cache.stock-ttl}, so frequent stock changes do
+ * not evict the catalog. Changes on this instance invalidate the affected
+ * entries once their transaction has committed. Single loads are atomic with
+ * that invalidation; bulk loads and the stock cached alongside a load are not,
+ * so every invalidation also bumps a change counter and a load that saw the
+ * counter move while it was reading drops what it just cached instead of
+ * keeping a possibly old row for the whole TTL. The SKU index only maps SKUs
+ * to ids and is checked against the catalog entry, so a renamed SKU never
+ * resolves to the product.
+ * <p>
+ * Hit and miss counts are published as {@code cache.*} metrics with the tags
+ * {@code cache=product.catalog} and {@code cache=product.stock}.
+ */
+@Slf4j
+@Component
+public class ProductCache implements MeterBinder {
+
+    private final ProductRepository productRepository;
+    private final Cache<Long, CatalogEntry> catalog;
+    private final Cache<Long, Integer> stock;
+    private final Cache<String, Long> skuIndex;
+    private final AtomicLong catalogChanges = new AtomicLong();
+    private final AtomicLong stockChanges = new AtomicLong();
+
+    public ProductCache(ProductRepository productRepository, ProductCacheProperties properties) {
+        this.productRepository = productRepository;
+        this.catalog = Caffeine.newBuilder()
+                .maximumSize(properties.maximumSize())
+                .expireAfterWrite(properties.ttl())
+                .recordStats()
+                .build();
+        this.stock = Caffeine.newBuilder()
+                .maximumSize(properties.maximumSize())
+                .expireAfterWrite(properties.stockTtl())
+                .recordStats()
+                .build();
+        this.skuIndex = Caffeine.newBuilder()
+                .maximumSize(properties.maximumSize())
+                .expireAfterWrite(properties.ttl())
+                .build();
+    }
+
+    /**
+     * Gets a product, loading it on a miss. The returned instance is detached; changes
+     * to it are not persisted.
+     */
+    public Optional<Product> findById(Long id) {
+        CatalogEntry entry = catalog.get(id, this::load);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        Integer stockQuantity = stock.get(id, productId -> productRepository.findStockQuantityById(productId).orElse(null));
+        // Deleted between the two lookups
+        return stockQuantity != null ? Optional.of(entry.toProduct(stockQuantity)) : Optional.empty();
+    }
+
+    /**
+     * Gets the products among {@code ids} that exist, keyed by id. Misses are loaded
+     * with one {@code IN} query per {@code chunkSize} ids.
+     */
+    public Map<Long, Product> findAllById(Collection<Long> ids, int chunkSize) {
+        long catalogVersion = catalogChanges.get();
+        long stockVersion = stockChanges.get();
+        Set<Long> loaded = new HashSet<>();
+        Map<Long, CatalogEntry> entries = catalog.getAll(ids, missing -> {
+            loaded.addAll(missing);
+            return loadAll(missing, chunkSize);
+        });
+        // Stock of products loaded just now is already cached
+        Map<Long, Integer> stockQuantities = stock.getAll(entries.keySet(), missing -> {
+            loaded.addAll(missing);
+            return ChunkedLoader.load(List.copyOf(missing), chunkSize, productRepository::findStockLevelsByIdIn)
+                    .stream()
+                    .collect(Collectors.toMap(StockLevel::id, StockLevel::stockQuantity));
+        });
+        discardIfChanged(loaded, catalogVersion, stockVersion);
+
+        Map<Long, Product> products = new HashMap<>(entries.size());
+        entries.forEach((id, entry) -> {
+            Integer stockQuantity = stockQuantities.get(id);
+            // Deleted between the two lookups
+            if (stockQuantity != null) {
+                products.put(id, entry.toProduct(stockQuantity));
+            }
+        });
+        return products;
+    }
+
+    public Optional<Product> findBySku(String sku) {
+        Long id = skuIndex.getIfPresent(sku);
+        if (id != null) {
+            Optional<Product> product = findById(id);
+            if (product.isPresent() && sku.equals(product.get().getSku())) {
+                return product;
+            }
+            skuIndex.invalidate(sku);
+        }
+
+        long catalogVersion = catalogChanges.get();
+        long stockVersion = stockChanges.get();
+        return productRepository.findBySku(sku).map(product -> {
+            cache(product);
+            discardIfChanged(List.of(product.getId()), catalogVersion, stockVersion);
+            return CatalogEntry.of(product).toProduct(product.getStockQuantity());
+        });
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        log.debug("Invalidating cached product {}", event.productId());
+        // Counted before invalidating, so a load that still puts the old row sees the change
+        catalogChanges.incrementAndGet();
+        stockChanges.incrementAndGet();
+        invalidate(event.productId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductStockChanged(ProductStockChangedEvent event) {
+        stockChanges.incrementAndGet();
+        stock.invalidateAll(event.productIds());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, catalog, "product.catalog");
+        CaffeineCacheMetrics.monitor(registry, stock, "product.stock");
+    }
+
+    private CatalogEntry load(Long id) {
+        // The catalog entry itself is put atomically with invalidate(id), the stock is not
+        long stockVersion = stockChanges.get();
+        return productRepository.findById(id)
+                .map(product -> {
+                    stock.put(id, product.getStockQuantity());
+                    skuIndex.put(product.getSku(), id);
+                    if (stockChanges.get() != stockVersion) {
+                        stock.invalidate(id);
+                    }
+                    return CatalogEntry.of(product);
+                })
+                .orElse(null);
+    }
+
+    private Map<Long, CatalogEntry> loadAll(Set<? extends Long> ids, int chunkSize) {
+        Map<Long, CatalogEntry> entries = new HashMap<>(ids.size());
+        for (CatalogRow row : ChunkedLoader.load(List.copyOf(ids), chunkSize, productRepository::findCatalogRowsByIdIn)) {
+            stock.put(row.id(), row.stockQuantity());
+            skuIndex.put(row.sku(), row.id());
+            entries.put(row.id(), CatalogEntry.of(row));
+        }
+        return entries;
+    }
+
+    /**
+     * Drops entries a load has just cached if a change committed while it was reading;
+     * its invalidation may have run before the load put the old rows.
+     */
+    private void discardIfChanged(Collection<Long> ids, long catalogVersion, long stockVersion) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        if (catalogChanges.get() != catalogVersion) {
+            ids.forEach(this::invalidate);
+        } else if (stockChanges.get() != stockVersion) {
+            stock.invalidateAll(ids);
+        }
+    }
+
+    private void invalidate(Long id) {
+        CatalogEntry entry = catalog.getIfPresent(id);
+        if (entry != null) {
+            skuIndex.invalidate(entry.sku());
+        }
+        catalog.invalidate(id);
+        stock.invalidate(id);
+    }
+
+    private void cache(Product product) {
+        catalog.put(product.getId(), CatalogEntry.of(product));
+        stock.put(product.getId(), product.getStockQuantity());
+        skuIndex.put(product.getSku(), product.getId());
+    }
+
+    /**
+     * Immutable copy of a product's catalog data, without its stock.
+     */
+    private record CatalogEntry(
+            Long id,
+            String name,
+            String description,
+            String sku,
+            BigDecimal price,
+            String category,
+            String imageUrl,
+            Boolean isActive,
+            LocalDateTime createdAt,
+            LocalDateTime updatedAt
+    ) {
+        static CatalogEntry of(Product product) {
+            return new CatalogEntry(
+                    product.getId(),
+                    product.getName(),
+                    product.getDescription(),
+                    product.getSku(),
+                    product.getPrice(),
+                    product.getCategory(),
+                    product.getImageUrl(),
+                    product.getIsActive(),
+                    product.getCreatedAt(),
+                    product.getUpdatedAt());
+        }
+
+        static CatalogEntry of(CatalogRow row) {
+            return new CatalogEntry(row.id(), row.name(), row.description(), row.sku(), row.price(), row.category(),
+                    row.imageUrl(), row.isActive(), row.createdAt(), row.updatedAt());
+        }
+
+        Product toProduct(int stockQuantity) {
+            return Product.builder()
+                    .id(id)
+                    .name(name)
+                    .description(description)
+                    .sku(sku)
+                    .price(price)
+                    .stockQuantity(stockQuantity)
+                    .category(category)
+                    .imageUrl(imageUrl)
+                    .isActive(isActive)
+                    .createdAt(createdAt)
+                    .updatedAt(updatedAt)
+                    .build();
+        }
+    }
+}
@@ -1,16 +1,28 @@
 package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.service;
 
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.catalog.CatalogQuery;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.catalog.CatalogResult;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.catalog.ProductCatalog;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.config.MultiGetProperties;
 import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.context.ScopedValues;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.CursorPage;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.MultiGetResult;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.ProductFacets;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.ProductPage;
 import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Product;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.event.ProductChangedEvent;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.event.ProductStockChangedEvent;
 import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Created by IntelliJ IDEA.
@@ -29,32 +41,77 @@ import java.util.Optional;
 public class ProductService {
 
     private final ProductRepository productRepository;
-
-    @Transactional(readOnly = true)
+    private final ProductCache productCache;
+    private final ProductCatalog productCatalog;
+    private final MultiGetProperties multiGetProperties;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Served from the product cache; not transactional, so a cache hit needs no connection.
+     */
     public Optional<Product> findById(Long id) {
         log.debug("Finding product by id={} [requestId={}]",
                 id, ScopedValues.currentRequestContext().requestId());
-        return productRepository.findById(id);
+        return productCache.findById(id);
     }
 
-    @Transactional(readOnly = true)
+    /**
+     * Resolves a batch of ids through the product cache; misses are loaded together.
+     */
+    public MultiGetResult<Product> findAllById(List<Long> ids) {
+        return MultiGetResult.of(ids, productCache.findAllById(Set.copyOf(ids), multiGetProperties.chunkSize()));
+    }
+
+    /**
+     * Served from the product cache; not transactional, so a cache hit needs no connection.
+     */
     public Optional<Product> findBySku(String sku) {
-        return productRepository.findBySku(sku);
+        return productCache.findBySku(sku);
     }
 
-    @Transactional(readOnly = true)
-    public List<Product> findAll() {
-        return productRepository.findAll();
+    /**
+     * Listings below are served from the catalog snapshot and never touch the database.
+     */
+    public CursorPage<Product> findAll(long after, int limit) {
+        return CursorPage.of(productCatalog.snapshot().after(after, limit + 1), limit, Product::getId);
     }
 
-    @Transactional(readOnly = true)
     public List<Product> findActiveProducts() {
-        return productRepository.findByIsActiveTrue();
+        return productCatalog.snapshot().query(CatalogQuery.builder()
+                .active(true)
+                .build()).products();
     }
 
-    @Transactional(readOnly = true)
     public List<Product> findByCategory(String category) {
-        return productRepository.findByCategory(category);
+        return productCatalog.snapshot().query(CatalogQuery.builder()
+                .category(category)
+                .build()).products();
+    }
+
+    public List<Product> findLowStockProducts(int threshold) {
+        return productCatalog.snapshot().query(CatalogQuery.builder()
+                .active(true)
+                .stockBelow(threshold)
+                .build()).products();
+    }
+
+    /**
+     * Filters, sorts and pages the catalog snapshot.
+     */
+    public ProductPage browse(CatalogQuery query, int page, int size) {
+        CatalogResult result = productCatalog.snapshot().query(query.toBuilder()
+                .offset(Math.multiplyExact(page, size))
+                .limit(size)
+                .build());
+        int totalPages = (result.totalMatches() + size - 1) / size;
+        return new ProductPage(result.products(), page, size, result.totalMatches(), totalPages);
+    }
+
+    /**
+     * Facet counts of the active products, kept up to date by the catalog snapshot.
+     */
+    public ProductFacets getFacets(String category) {
+        return productCatalog.snapshot().facets(category);
     }
 
     @Transactional(readOnly = true)
@@ -62,9 +119,15 @@ public class ProductService {
         return productRepository.searchProducts(keyword);
     }
 
-    @Transactional(readOnly = true)
-    public List<Product> findLowStockProducts(int threshold) {
-        return productRepository.findLowStockProducts(threshold);
+    /**
+     * Ranked search over the in-memory index of name, SKU and description.
+     */
+    public List<Product> searchRanked(String keyword, int limit) {
+        return productCatalog.search(keyword, limit);
+    }
+
+    public List<String> suggest(String prefix, int limit) {
+        return productCatalog.suggest(prefix, limit);
     }
 
     @Transactional
@@ -72,7 +135,9 @@ public class ProductService {
         log.info("Creating new product: {} [requestId={}]",
                 product.getName(), ScopedValues.currentRequestContext().requestId());
         product.setCreatedAt(LocalDateTime.now());
-        return productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(savedProduct.getId()));
+        return savedProduct;
     }
 
     @Transactional
@@ -93,7 +158,9 @@ public class ProductService {
         product.setIsActive(productDetails.getIsActive());
         product.setUpdatedAt(LocalDateTime.now());
 
-        return productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(id));
+        return savedProduct;
     }
 
     @Transactional
@@ -101,6 +168,9 @@ public class ProductService {
         log.info("Decreasing stock for product {} by {} [requestId={}]",
                 productId, quantity, ScopedValues.currentRequestContext().requestId());
         int updated = productRepository.decreaseStock(productId, quantity);
+        if (updated > 0) {
+            eventPublisher.publishEvent(ProductStockChangedEvent.of(productId));
+        }
         return updated > 0;
     }
 
@@ -109,6 +179,7 @@ public class ProductService {
         log.info("Increasing stock for product {} by {} [requestId={}]",
                 productId, quantity, ScopedValues.currentRequestContext().requestId());
         productRepository.increaseStock(productId, quantity);
+        eventPublisher.publishEvent(ProductStockChangedEvent.of(productId));
     }
 
     @Transactional
@@ -116,5 +187,6 @@ public class ProductService {
         log.info("Deleting product: {} [requestId={}]",
                 id, ScopedValues.currentRequestContext().requestId());
         productRepository.deleteById(id);
+        eventPublisher.publishEvent(new ProductChangedEvent(id));
     }
 }
@@ -0,0 +1,117 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.benchmark;
+
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Customer;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Product;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixtures, cleanup and measurement shared by the database benchmarks.
+ */
+final class BenchmarkSupport {
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * An unsaved customer with an email made unique by {@code suffix}.
+     */
+    static Customer customer(long suffix) {
+        return Customer.builder()
+                .firstName("Benchmark")
+                .lastName("Customer")
+                .email("benchmark-" + suffix + "@example.com")
+                .build();
+    }
+
+    /**
+     * {@code count} unsaved products priced 9.99 with SKUs made unique by {@code suffix}.
+     */
+    static List<Product> products(long suffix, int count, int stockQuantity) {
+        List<Product> products = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            products.add(Product.builder()
+                    .name("Benchmark Product " + i)
+                    .sku("BENCH-" + suffix + "-" + i)
+                    .price(new BigDecimal("9.99"))
+                    .stockQuantity(stockQuantity)
+                    .category("Benchmark")
+                    .build());
+        }
+        return products;
+    }
+
+    /**
+     * Deletes a customer's orders with their items and the customer's stats row, with
+     * plain SQL so the orders are not loaded first.
+     */
+    static void deleteOrdersOf(JdbcTemplate jdbcTemplate, Long customerId) {
+        jdbcTemplate.update("DELETE oi FROM order_items oi JOIN orders o ON o.id = oi.order_id WHERE o.customer_id = ?",
+                customerId);
+        jdbcTemplate.update("DELETE FROM orders WHERE customer_id = ?", customerId);
+        jdbcTemplate.update("DELETE FROM customer_stats WHERE customer_id = ?", customerId);
+    }
+
+    static Statistics statistics(EntityManagerFactory entityManagerFactory) {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    /**
+     * Runs {@code round} {@code warmupRounds} times, then measures {@code measuredRounds}
+     * more: wall time, bytes allocated on the calling thread and, with {@code statistics},
+     * the statements Hibernate prepared. Results are per unit, a round handling
+     * {@code unitsPerRound} units (orders, calls, ...).
+     *
+     * @param statistics Hibernate statistics to count statements with, or {@code null}
+     */
+    static Result measure(String unit, int unitsPerRound, int warmupRounds, int measuredRounds,
+                          Statistics statistics, Runnable round) {
+        for (int i = 0; i < warmupRounds; i++) {
+            round.run();
+        }
+
+        if (statistics != null) {
+            statistics.clear();
+        }
+        long allocatedBefore = THREAD_MX_BEAN.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < measuredRounds; i++) {
+            round.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = THREAD_MX_BEAN.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+        double units = (double) unitsPerRound * measuredRounds;
+        return new Result(unit, elapsed / 1_000_000.0 / units, allocated / units,
+                statistics != null ? statistics.getPrepareStatementCount() / units : Double.NaN);
+    }
+
+    /**
+     * Cost of one unit of work.
+     */
+    record Result(String unit, double millisPerUnit, double bytesPerUnit, double statementsPerUnit) {
+
+        double unitsPerSecond() {
+            return 1_000 / millisPerUnit;
+        }
+
+        @Override
+        public String toString() {
+            String result = "%.0f %s/s, %.3f ms/%s, %.1f KiB allocated/%s".formatted(
+                    unitsPerSecond(), unit, millisPerUnit, unit, bytesPerUnit / 1024, unit);
+            return Double.isNaN(statementsPerUnit)
+                    ? result
+                    : result + ", %.2f statements/%s".formatted(statementsPerUnit, unit);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.benchmark;
+
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.catalog.CatalogQuery;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.catalog.CatalogRow;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.catalog.CatalogSnapshot;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.catalog.CatalogSort;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.catalog.StockLevel;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Product;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures a filtered, price-sorted page query against a catalog snapshot of
+ * {@value #PRODUCT_COUNT} products, next to the same query as a stream over
+ * product entities, plus the cost of applying a stock change and a product
+ * change to the snapshot, reading the facet counts it maintains and reading
+ * a deep page by offset and by keyset.
+ * <p>
+ * Needs no database and only runs on request:
+ * {@code mvn test -Dbenchmark=true -Dtest=CatalogSnapshotBenchmarkTest}.
+ * Results are written to the log.
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CatalogSnapshotBenchmarkTest {
+
+    private static final int PRODUCT_COUNT = 50_000;
+    private static final int WARMUP_ITERATIONS = 200;
+    private static final int MEASURED_ITERATIONS = 1_000;
+    private static final List<String> CATEGORIES = List.of("Electronics", "Accessories", "Books", "Garden", "Toys");
+    private static final List<BigDecimal> PRICE_BUCKETS = List.of(
+            new BigDecimal("25"), new BigDecimal("50"), new BigDecimal("100"));
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final List<CatalogRow> rows = IntStream.rangeClosed(1, PRODUCT_COUNT)
+            .mapToObj(CatalogSnapshotBenchmarkTest::row)
+            .toList();
+
+    private final List<Product> entities = rows.stream()
+            .map(row -> Product.builder()
+                    .id(row.id())
+                    .name(row.name())
+                    .sku(row.sku())
+                    .price(row.price())
+                    .stockQuantity(row.stockQuantity())
+                    .category(row.category())
+                    .isActive(row.isActive())
+                    .build())
+            .toList();
+
+    @Test
+    void filteredPageQuery() {
+        CatalogSnapshot snapshot = CatalogSnapshot.of(rows, PRICE_BUCKETS);
+        CatalogQuery query = CatalogQuery.builder()
+                .category("electronics")
+                .active(true)
+                .inStock(true)
+                .minPrice(new BigDecimal("10.00"))
+                .sort(CatalogSort.PRICE)
+                .descending(true)
+                .offset(40)
+                .limit(20)
+                .build();
+
+        List<Long> expected = entityQuery().stream().map(Product::getId).toList();
+        assertThat(snapshot.query(query).products()).extracting(Product::getId).isEqualTo(expected);
+
+        Result streamed = measure(this::entityQuery);
+        Result snapshotQuery = measure(() -> snapshot.query(query));
+        Result stockChange = measure(() -> snapshot.withStock(List.of(new StockLevel(42L, 7))));
+        Result productChange = measure(() -> snapshot.withProducts(List.of(row(42)), Set.of()));
+        Result facets = measure(() -> snapshot.facets("electronics"));
+
+        log.info("stream over entities: {}", streamed);
+        log.info("snapshot query:       {}", snapshotQuery);
+        log.info("stock change:         {}", stockChange);
+        log.info("product change:       {}", productChange);
+        log.info("category facets:      {}", facets);
+    }
+
+    @Test
+    void facetCountsFollowChanges() {
+        CatalogSnapshot snapshot = CatalogSnapshot.of(rows, PRICE_BUCKETS)
+                .withStock(List.of(new StockLevel(1L, 0), new StockLevel(2L, 5)))
+                .withProducts(List.of(row(PRODUCT_COUNT + 1), rename(3, "Garden")), Set.of(4L));
+
+        assertThat(snapshot.facets("electronics")).usingRecursiveComparison().ignoringCollectionOrder().isEqualTo(CatalogSnapshot.of(
+                snapshot.query(CatalogQuery.all()).products().stream().map(CatalogSnapshotBenchmarkTest::row).toList(),
+                PRICE_BUCKETS).facets("electronics"));
+        assertThat(snapshot.facets(null).products())
+                .isEqualTo(snapshot.query(CatalogQuery.builder().active(true).build()).totalMatches());
+    }
+
+    @Test
+    void deepKeysetPage() {
+        CatalogSnapshot snapshot = CatalogSnapshot.of(rows, PRICE_BUCKETS);
+        int offset = PRODUCT_COUNT - 100;
+        CatalogQuery byOffset = CatalogQuery.builder().offset(offset).limit(50).build();
+
+        assertThat(snapshot.after(offset, 50)).extracting(Product::getId)
+                .isEqualTo(snapshot.query(byOffset).products().stream().map(Product::getId).toList());
+        assertThat(snapshot.after(PRODUCT_COUNT - 10, 50)).hasSize(10);
+        assertThat(snapshot.after(PRODUCT_COUNT, 50)).isEmpty();
+
+        Result offsetPage = measure(() -> snapshot.query(byOffset));
+        Result keysetPage = measure(() -> snapshot.after(offset, 50));
+
+        log.info("deep offset page:     {}", offsetPage);
+        log.info("deep keyset page:     {}", keysetPage);
+    }
+
+    private List<Product> entityQuery() {
+        return entities.stream()
+                .filter(product -> product.getCategory().equalsIgnoreCase("electronics"))
+                .filter(Product::getIsActive)
+                .filter(Product::isInStock)
+                .filter(product -> product.getPrice().compareTo(new BigDecimal("10.00")) >= 0)
+                .sorted(Comparator.comparing(Product::getPrice).thenComparing(Product::getId).reversed())
+                .skip(40)
+                .limit(20)
+                .toList();
+    }
+
+    private Result measure(Supplier<?> query) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            query.get();
+        }
+
+        long allocatedBefore = THREAD_MX_BEAN.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            query.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = THREAD_MX_BEAN.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+        return new Result((double) allocated / MEASURED_ITERATIONS, (double) elapsed / MEASURED_ITERATIONS / 1_000);
+    }
+
+    private static CatalogRow rename(int id, String category) {
+        CatalogRow row = row(id);
+        return new CatalogRow(row.id(), row.name(), row.description(), row.sku(), row.price(), row.stockQuantity(),
+                category, row.imageUrl(), row.isActive(), row.createdAt(), row.updatedAt());
+    }
+
+    private static CatalogRow row(Product product) {
+        return new CatalogRow(product.getId(), product.getName(), product.getDescription(), product.getSku(),
+                product.getPrice(), product.getStockQuantity(), product.getCategory(), product.getImageUrl(),
+                product.getIsActive(), product.getCreatedAt(), product.getUpdatedAt());
+    }
+
+    private static CatalogRow row(int id) {
+        return new CatalogRow((long) id, "Product " + id, null, "SKU-" + id,
+                BigDecimal.valueOf(id % 10_000, 2).add(BigDecimal.ONE), id % 13, CATEGORIES.get(id % CATEGORIES.size()),
+                null, id % 7 != 0, LocalDateTime.now(), null);
+    }
+
+    private record Result(double bytesPerCall, double microsPerCall) {
+
+        @Override
+        public String toString() {
+            return "%.0f bytes/call, %.1f µs/call".formatted(bytesPerCall, microsPerCall);
+        }
+    }
+}
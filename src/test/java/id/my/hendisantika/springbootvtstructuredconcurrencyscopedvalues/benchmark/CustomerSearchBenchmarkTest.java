@@ -0,0 +1,148 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.benchmark;
+
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.config.CustomerSearchProperties;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.CustomerMatch;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.CustomerSearchPage;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.event.CustomerChangedEvent;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.CustomerRepository;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.service.CustomerSearchIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Random;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures typeahead searches over a {@link CustomerSearchIndex} of
+ * {@value #CUSTOMER_COUNT} customers, next to the linear scan a leading
+ * wildcard {@code LIKE} performs.
+ * <p>
+ * The repository is mocked, so this needs no database. Only runs on request:
+ * {@code mvn test -Dbenchmark=true -Dtest=CustomerSearchBenchmarkTest}.
+ * Results are written to the log.
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CustomerSearchBenchmarkTest {
+
+    private static final int CUSTOMER_COUNT = 100_000;
+    private static final int WARMUP_ITERATIONS = 200;
+    private static final int MEASURED_ITERATIONS = 1_000;
+    private static final List<String> SYLLABLES = List.of("ka", "ri", "to", "ma", "ne", "su", "lo", "bi", "de",
+            "wa", "ya", "hu", "pe", "go", "fi", "ra", "ti", "no", "sa", "mi", "ku", "le", "da", "vo");
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final List<CustomerMatch> customers = IntStream.rangeClosed(1, CUSTOMER_COUNT)
+            .mapToObj(CustomerSearchBenchmarkTest::customer)
+            .toList();
+
+    private static final CustomerSearchProperties SEARCH_PROPERTIES = new CustomerSearchProperties(Duration.ofMinutes(15));
+
+    private final CustomerRepository customerRepository = mock(CustomerRepository.class);
+
+    @Test
+    void typeaheadSearch() {
+        when(customerRepository.findAllCustomerMatches()).thenReturn(customers);
+        CustomerSearchIndex index = new CustomerSearchIndex(customerRepository, SEARCH_PROPERTIES);
+        index.reload();
+
+        CustomerSearchPage page = index.search("ka ri", 0, 10);
+        assertThat(page.totalElements()).isPositive();
+        assertThat(page.content()).hasSize(10).allSatisfy(customer -> assertThat(List.of(
+                        customer.firstName().toLowerCase(Locale.ROOT), customer.lastName().toLowerCase(Locale.ROOT)))
+                .anySatisfy(name -> assertThat(name).startsWith("ka"))
+                .anySatisfy(name -> assertThat(name).startsWith("ri")));
+        assertThat(index.search("ka", 3, 10).content()).hasSize(10).allSatisfy(customer -> assertThat(List.of(
+                        customer.firstName().toLowerCase(Locale.ROOT), customer.lastName().toLowerCase(Locale.ROOT)))
+                .anySatisfy(name -> assertThat(name).startsWith("ka")));
+        assertThat(index.search("marisu", 0, 10).content()).isNotEmpty().allSatisfy(customer ->
+                assertThat(customer.firstName() + customer.lastName()).containsIgnoringCase("marisu"));
+        assertThat(index.search("customer-4242@", 0, 10).content())
+                .extracting(CustomerMatch::id).containsExactly(4242L);
+
+        Result scan = measure(() -> customers.stream()
+                .filter(customer -> customer.firstName().toLowerCase(Locale.ROOT).contains("ka")
+                        || customer.lastName().toLowerCase(Locale.ROOT).contains("ka"))
+                .toList());
+        Result prefix = measure(() -> index.search("ka", 0, 10));
+        Result twoWords = measure(() -> index.search("ka ri", 0, 10));
+        Result infix = measure(() -> index.search("marisu", 0, 10));
+        Result email = measure(() -> index.search("customer-4242", 0, 10));
+
+        log.info("substring scan:      {}", scan);
+        log.info("short prefix:        {}", prefix);
+        log.info("two-word typeahead:  {}", twoWords);
+        log.info("name fragment:       {}", infix);
+        log.info("email fragment:      {}", email);
+    }
+
+    @Test
+    void changesAreIndexed() {
+        when(customerRepository.findAllCustomerMatches()).thenReturn(customers.subList(0, 100));
+        when(customerRepository.findCustomerMatchById(1L))
+                .thenReturn(Optional.of(new CustomerMatch(1L, "Zelda", "Quinn", "zelda@example.com")));
+        when(customerRepository.findCustomerMatchById(2L)).thenReturn(Optional.empty());
+        CustomerSearchIndex index = new CustomerSearchIndex(customerRepository, SEARCH_PROPERTIES);
+        index.reload();
+
+        index.onCustomerChanged(new CustomerChangedEvent(1L));
+        index.onCustomerChanged(new CustomerChangedEvent(2L));
+
+        assertThat(index.search("zel qui", 0, 10).content()).extracting(CustomerMatch::id).containsExactly(1L);
+        assertThat(index.search(customers.getFirst().email(), 0, 10).totalElements()).isZero();
+        assertThat(index.search(customers.get(1).email(), 0, 10).totalElements()).isZero();
+    }
+
+    private Result measure(Supplier<?> query) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            query.get();
+        }
+
+        long allocatedBefore = THREAD_MX_BEAN.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            query.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = THREAD_MX_BEAN.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+        return new Result((double) allocated / MEASURED_ITERATIONS, (double) elapsed / MEASURED_ITERATIONS / 1_000);
+    }
+
+    /**
+     * Names of two or three random syllables, about 14,000 distinct ones.
+     */
+    private static CustomerMatch customer(int id) {
+        Random random = new Random(id);
+        return new CustomerMatch((long) id, name(random), name(random), "customer-" + id + "@example.com");
+    }
+
+    private static String name(Random random) {
+        StringBuilder name = new StringBuilder();
+        for (int i = 0, syllables = 2 + random.nextInt(2); i < syllables; i++) {
+            name.append(SYLLABLES.get(random.nextInt(SYLLABLES.size())));
+        }
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private record Result(double bytesPerCall, double microsPerCall) {
+
+        @Override
+        public String toString() {
+            return "%.0f bytes/call, %.1f µs/call".formatted(bytesPerCall, microsPerCall);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.benchmark;
+
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.OrderTotals;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Customer;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Order;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.CustomerRepository;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.OrderRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the customer stats computed from every loaded {@link Order} entity
+ * (the previous dashboard code) with the aggregate query, for a customer with
+ * {@value #ORDER_COUNT} orders. Reports latency and bytes allocated on the
+ * calling thread per call: the aggregate query must be faster and allocate at
+ * least {@value #MIN_ALLOCATION_RATIO} times less.
+ * <p>
+ * Needs the MySQL database from compose.yaml and only runs on request:
+ * {@code mvn test -Dbenchmark=true -Dtest=CustomerStatsBenchmarkTest}.
+ * Results are written to the log.
+ */
+@Slf4j
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CustomerStatsBenchmarkTest {
+
+    private static final int ORDER_COUNT = 10_000;
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASURED_ITERATIONS = 20;
+    private static final int MIN_ALLOCATION_RATIO = 10;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Customer customer;
+
+    @BeforeAll
+    void createCustomerWithOrders() {
+        long suffix = System.nanoTime();
+        customer = customerRepository.save(BenchmarkSupport.customer(suffix));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < ORDER_COUNT; i++) {
+                entityManager.persist(Order.builder()
+                        .orderNumber("BENCH-" + suffix + "-" + i)
+                        .customer(entityManager.getReference(Customer.class, customer.getId()))
+                        .totalAmount(BigDecimal.valueOf(1_000 + i % 500, 2))
+                        .createdAt(LocalDateTime.now().minusMinutes(i))
+                        .build());
+                if (i % 500 == 499) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+        });
+    }
+
+    @AfterAll
+    void deleteBenchmarkData() {
+        BenchmarkSupport.deleteOrdersOf(jdbcTemplate, customer.getId());
+        customerRepository.delete(customer);
+    }
+
+    @Test
+    void entityScanVersusAggregateQuery() {
+        Supplier<BigDecimal> entityScan = () -> orderRepository.findByCustomerId(customer.getId()).stream()
+                .map(Order::getTotalAmount)
+                .filter(amount -> amount != null)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        Supplier<BigDecimal> aggregate = () -> orderRepository
+                .getOrderTotalsByCustomerId(customer.getId(), Order.OrderStatus.CANCELLED)
+                .totalSpent();
+        assertThat(inReadOnlyTransaction(aggregate)).isEqualByComparingTo(inReadOnlyTransaction(entityScan));
+        OrderTotals totals = orderRepository.getOrderTotalsByCustomerId(customer.getId(), Order.OrderStatus.CANCELLED);
+        assertThat(totals.orderCount()).isEqualTo(ORDER_COUNT);
+
+        BenchmarkSupport.Result scanned = measure(entityScan);
+        BenchmarkSupport.Result aggregated = measure(aggregate);
+
+        log.info("{} orders | entity scan: {} | aggregate query: {}", ORDER_COUNT, scanned, aggregated);
+
+        assertThat(aggregated.millisPerUnit()).isLessThan(scanned.millisPerUnit());
+        assertThat(aggregated.bytesPerUnit() * MIN_ALLOCATION_RATIO).isLessThan(scanned.bytesPerUnit());
+    }
+
+    private BenchmarkSupport.Result measure(Supplier<BigDecimal> stats) {
+        return BenchmarkSupport.measure("call", 1, WARMUP_ITERATIONS, MEASURED_ITERATIONS, null,
+                () -> inReadOnlyTransaction(stats));
+    }
+
+    private BigDecimal inReadOnlyTransaction(Supplier<BigDecimal> stats) {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnly.setReadOnly(true);
+        return readOnly.execute(status -> stats.get());
+    }
+}
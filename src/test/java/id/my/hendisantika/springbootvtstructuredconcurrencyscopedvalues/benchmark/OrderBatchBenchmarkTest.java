@@ -0,0 +1,119 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.benchmark;
+
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.OrderBatchResult;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.OrderRequest;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Customer;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Product;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.CustomerRepository;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.ProductRepository;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.service.OrderBatchService;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.service.OrderService;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures orders per second when a batch is submitted one
+ * {@code POST /api/orders} at a time and through the batch submission,
+ * which reads the catalog once and saves the orders in chunked transactions.
+ * The batch must reach at least {@value #MIN_SPEEDUP} times the orders per
+ * second, the order-of-magnitude gain it was built for.
+ * <p>
+ * Needs the MySQL database from compose.yaml and only runs on request:
+ * {@code mvn test -Dbenchmark=true -Dtest=OrderBatchBenchmarkTest}.
+ * Results are written to the log.
+ */
+@Slf4j
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class OrderBatchBenchmarkTest {
+
+    private static final int ORDERS_PER_BATCH = 2_000;
+    private static final int ITEMS_PER_ORDER = 5;
+    private static final int PRODUCTS = 50;
+    private static final int WARMUP_ROUNDS = 1;
+    private static final int MEASURED_ROUNDS = 3;
+    private static final int MIN_SPEEDUP = 10;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderBatchService orderBatchService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Customer customer;
+    private List<Product> products;
+    private List<OrderRequest> batch;
+
+    @BeforeAll
+    void createCustomerAndProducts() {
+        long suffix = System.nanoTime();
+        customer = customerRepository.save(BenchmarkSupport.customer(suffix));
+        products = productRepository.saveAll(BenchmarkSupport.products(suffix, PRODUCTS, 100_000_000));
+
+        batch = new ArrayList<>(ORDERS_PER_BATCH);
+        for (int i = 0; i < ORDERS_PER_BATCH; i++) {
+            List<OrderRequest.OrderItemRequest> items = new ArrayList<>(ITEMS_PER_ORDER);
+            for (int j = 0; j < ITEMS_PER_ORDER; j++) {
+                items.add(new OrderRequest.OrderItemRequest(products.get((i + j) % PRODUCTS).getId(), 1));
+            }
+            batch.add(new OrderRequest(customer.getId(), items, "Benchmark Street 1", null));
+        }
+    }
+
+    @AfterAll
+    void deleteBenchmarkData() {
+        BenchmarkSupport.deleteOrdersOf(jdbcTemplate, customer.getId());
+        customerRepository.delete(customer);
+        productRepository.deleteAll(products);
+    }
+
+    @Test
+    void oneOrderPerRequestVersusBatchSubmission() {
+        Statistics statistics = BenchmarkSupport.statistics(entityManagerFactory);
+
+        BenchmarkSupport.Result perOrder = measure(statistics, () -> batch.forEach(orderService::createOrder));
+        BenchmarkSupport.Result batched = measure(statistics, () -> {
+            OrderBatchResult result = orderBatchService.submit(batch);
+            assertThat(result.failed()).isZero();
+        });
+
+        log.info("{} orders x {} items | one per request: {} | batch: {}",
+                ORDERS_PER_BATCH, ITEMS_PER_ORDER, perOrder, batched);
+
+        assertThat(batched.unitsPerSecond()).isGreaterThanOrEqualTo(perOrder.unitsPerSecond() * MIN_SPEEDUP);
+        // Per request: at least the order and its items' INSERTs; batched, a statement carries many orders
+        assertThat(perOrder.statementsPerUnit()).isGreaterThanOrEqualTo(2);
+        assertThat(batched.statementsPerUnit()).isLessThan(1);
+    }
+
+    private BenchmarkSupport.Result measure(Statistics statistics, Runnable round) {
+        return BenchmarkSupport.measure("order", ORDERS_PER_BATCH, WARMUP_ROUNDS, MEASURED_ROUNDS, statistics, round);
+    }
+}
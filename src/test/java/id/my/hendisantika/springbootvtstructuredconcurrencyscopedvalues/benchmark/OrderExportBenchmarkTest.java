@@ -0,0 +1,133 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.benchmark;
+
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.config.OrderProperties;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.OrderExportRow;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Order;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.OrderRepository;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.service.OrderExportService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Measures the NDJSON export of {@value #ORDER_COUNT} orders with
+ * {@value #ITEMS_PER_ORDER} items each, and checks that its allocation per
+ * order stays the same whatever the number of orders.
+ * <p>
+ * The repository is mocked with generated keyset pages, so this needs no
+ * database. Only runs on request:
+ * {@code mvn test -Dbenchmark=true -Dtest=OrderExportBenchmarkTest}.
+ * Results are written to the log.
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class OrderExportBenchmarkTest {
+
+    private static final int ORDER_COUNT = 200_000;
+    private static final int ITEMS_PER_ORDER = 3;
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final OrderExportService exportService = new OrderExportService(orderRepository, jsonMapper,
+            mock(PlatformTransactionManager.class), new OrderProperties(0, new OrderProperties.Validation(500),
+            new OrderProperties.Batch(5000, 500), new OrderProperties.Export(500, 2, Duration.ofSeconds(30))));
+
+    @Test
+    void exportAllocationPerOrderIsFlat() throws Exception {
+        Result small = measure(ORDER_COUNT / 10);
+        Result large = measure(ORDER_COUNT);
+
+        log.info("{} orders: {}", ORDER_COUNT / 10, small);
+        log.info("{} orders: {}", ORDER_COUNT, large);
+        assertThat(large.bytesPerOrder()).isLessThan(small.bytesPerOrder() * 1.5);
+    }
+
+    private Result measure(int orders) throws Exception {
+        doAnswer(invocation -> {
+            long after = invocation.getArgument(3);
+            Limit limit = invocation.getArgument(4);
+            return LongStream.rangeClosed(after + 1, Math.min(after + limit.max(), orders)).boxed().toList();
+        }).when(orderRepository).findExportOrderIds(any(), any(), any(), anyLong(), any());
+        doAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.stream().flatMap(id -> LongStream.range(0, ITEMS_PER_ORDER)
+                    .mapToObj(item -> row(id, id * ITEMS_PER_ORDER + item))).toList();
+        }).when(orderRepository).findOrderExportRows(anyCollection());
+        CountingOutputStream out = new CountingOutputStream();
+
+        long allocatedBefore = THREAD_MX_BEAN.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        long exported = exportService.export(null, null, null, out);
+        long elapsed = System.nanoTime() - start;
+        long allocated = THREAD_MX_BEAN.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+        assertThat(exported).isEqualTo(orders);
+        assertThat(out.lines).isEqualTo(orders);
+        return new Result((double) allocated / orders, (double) elapsed / orders / 1_000, out.bytes / orders);
+    }
+
+    private static OrderExportRow row(long orderId, Long itemId) {
+        return new OrderExportRow(orderId, "ORD-" + orderId, orderId % 1_000, Order.OrderStatus.DELIVERED,
+                new BigDecimal("149.97"), "Jl. Sudirman No. " + orderId, LocalDateTime.of(2026, 1, 1, 12, 0),
+                itemId, itemId != null ? itemId % 500 : null, itemId != null ? "SKU-" + itemId % 500 : null,
+                itemId != null ? 3 : null, itemId != null ? new BigDecimal("49.99") : null,
+                itemId != null ? new BigDecimal("149.97") : null);
+    }
+
+    /**
+     * Discards the export, only counting bytes and lines.
+     */
+    private static final class CountingOutputStream extends OutputStream {
+
+        private long bytes;
+        private long lines;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+            for (int i = off; i < off + len; i++) {
+                if (b[i] == '\n') {
+                    lines++;
+                }
+            }
+        }
+    }
+
+    private record Result(double bytesPerOrder, double microsPerOrder, long lineBytes) {
+
+        @Override
+        public String toString() {
+            return "%.0f bytes allocated/order, %.1f µs/order, %d bytes/line".formatted(
+                    bytesPerOrder, microsPerOrder, lineBytes);
+        }
+    }
+}
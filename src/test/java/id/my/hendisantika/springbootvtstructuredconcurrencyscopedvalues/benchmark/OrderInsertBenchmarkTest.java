@@ -0,0 +1,134 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.benchmark;
+
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Customer;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Order;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.OrderItem;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Product;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.CustomerRepository;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures order inserts per second with JDBC batching disabled (one INSERT
+ * round-trip per row, as with the former IDENTITY ids) and with the configured
+ * batch size. Without batching every order costs one statement per row; with
+ * it, one statement carries up to {@code hibernate.jdbc.batch_size} rows.
+ * <p>
+ * Needs the MySQL database from compose.yaml and only runs on request:
+ * {@code mvn test -Dbenchmark=true -Dtest=OrderInsertBenchmarkTest}.
+ * Results are written to the log.
+ */
+@Slf4j
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class OrderInsertBenchmarkTest {
+
+    private static final int ORDERS_PER_TRANSACTION = 100;
+    private static final int ITEMS_PER_ORDER = 10;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 10;
+
+    private final AtomicLong orderSequence = new AtomicLong();
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Customer customer;
+    private Product product;
+
+    @BeforeAll
+    void createCustomerAndProduct() {
+        long suffix = System.nanoTime();
+        customer = customerRepository.save(BenchmarkSupport.customer(suffix));
+        product = productRepository.save(BenchmarkSupport.products(suffix, 1, 0).getFirst());
+    }
+
+    @AfterAll
+    void deleteBenchmarkData() {
+        BenchmarkSupport.deleteOrdersOf(jdbcTemplate, customer.getId());
+        customerRepository.delete(customer);
+        productRepository.delete(product);
+    }
+
+    @Test
+    void unbatchedVersusBatchedInserts() {
+        Statistics statistics = BenchmarkSupport.statistics(entityManagerFactory);
+
+        BenchmarkSupport.Result unbatched = measure(statistics, 1);
+        BenchmarkSupport.Result batched = measure(statistics, null);
+
+        log.info("{} orders x {} items per transaction | unbatched: {} | batched: {}",
+                ORDERS_PER_TRANSACTION, ITEMS_PER_ORDER, unbatched, batched);
+
+        // One INSERT per order and per item unbatched; batched, the rows of a whole order and more share a statement
+        assertThat(unbatched.statementsPerUnit()).isGreaterThanOrEqualTo(1 + ITEMS_PER_ORDER);
+        assertThat(batched.statementsPerUnit()).isLessThan(1);
+        assertThat(batched.unitsPerSecond()).isGreaterThan(unbatched.unitsPerSecond());
+    }
+
+    /**
+     * @param jdbcBatchSize session batch size, or {@code null} for the configured one
+     */
+    private BenchmarkSupport.Result measure(Statistics statistics, Integer jdbcBatchSize) {
+        return BenchmarkSupport.measure("order", ORDERS_PER_TRANSACTION, WARMUP_ROUNDS, MEASURED_ROUNDS, statistics,
+                () -> insertOrders(jdbcBatchSize));
+    }
+
+    private void insertOrders(Integer jdbcBatchSize) {
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(jdbcBatchSize);
+            for (int i = 0; i < ORDERS_PER_TRANSACTION; i++) {
+                Order order = Order.builder()
+                        .orderNumber("BENCH-" + System.nanoTime() + "-" + orderSequence.incrementAndGet())
+                        .customer(customer)
+                        .createdAt(LocalDateTime.now())
+                        .build();
+                for (int j = 0; j < ITEMS_PER_ORDER; j++) {
+                    OrderItem item = OrderItem.builder()
+                            .product(product)
+                            .quantity(1)
+                            .unitPrice(product.getPrice())
+                            .build();
+                    item.calculateSubtotal();
+                    order.addItem(item);
+                }
+                order.calculateTotalAmount();
+                entityManager.persist(order);
+            }
+        });
+    }
+}
@@ -0,0 +1,117 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.benchmark;
+
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.OrderRequest;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Product;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.ProductRepository;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.service.OrderItemValidator;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.StructuredTaskScope;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares per-item parallel product lookups (one forked subtask and one query
+ * per order item, as order creation used to do) with the batched
+ * {@link OrderItemValidator}, which needs one {@code IN} query per order of up
+ * to {@code app.orders.validation.chunk-size} distinct products.
+ * <p>
+ * Needs the MySQL database from compose.yaml and only runs on request:
+ * {@code mvn test -Dbenchmark=true -Dtest=OrderItemValidationBenchmarkTest}.
+ * Results are written to the log.
+ */
+@Slf4j
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class OrderItemValidationBenchmarkTest {
+
+    private static final int[] ORDER_SIZES = {1, 10, 50, 200};
+    private static final int WARMUP_ITERATIONS = 20;
+    private static final int MEASURED_ITERATIONS = 100;
+    /**
+     * Order size from which one query is expected to beat the parallel lookups on latency.
+     */
+    private static final int FASTER_FROM_SIZE = 50;
+
+    @Autowired
+    private OrderItemValidator orderItemValidator;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private List<Product> products;
+
+    @BeforeAll
+    void createProducts() {
+        products = productRepository.saveAll(
+                BenchmarkSupport.products(System.nanoTime(), ORDER_SIZES[ORDER_SIZES.length - 1], 1_000_000));
+    }
+
+    @AfterAll
+    void deleteProducts() {
+        productRepository.deleteAll(products);
+    }
+
+    @Test
+    void perItemLookupsVersusBatchedValidation() {
+        Statistics statistics = BenchmarkSupport.statistics(entityManagerFactory);
+
+        for (int size : ORDER_SIZES) {
+            List<OrderRequest.OrderItemRequest> items = products.subList(0, size).stream()
+                    .map(product -> new OrderRequest.OrderItemRequest(product.getId(), 1))
+                    .toList();
+
+            BenchmarkSupport.Result perItem = measure(statistics, () -> validatePerItem(items));
+            BenchmarkSupport.Result batched = measure(statistics, () -> orderItemValidator.validate(items));
+
+            log.info("items={} per-item: {} | batched: {}", size, perItem, batched);
+
+            // One round-trip per item before, one per order now
+            assertThat(perItem.statementsPerUnit()).isEqualTo(size);
+            assertThat(batched.statementsPerUnit()).isEqualTo(1);
+            if (size >= FASTER_FROM_SIZE) {
+                assertThat(batched.millisPerUnit()).isLessThan(perItem.millisPerUnit());
+            }
+        }
+    }
+
+    private BenchmarkSupport.Result measure(Statistics statistics, Supplier<List<?>> validation) {
+        return BenchmarkSupport.measure("order", 1, WARMUP_ITERATIONS, MEASURED_ITERATIONS, statistics,
+                () -> transactionTemplate.execute(status -> validation.get()));
+    }
+
+    /**
+     * The previous approach: one subtask and one primary key lookup per item.
+     */
+    private List<Product> validatePerItem(List<OrderRequest.OrderItemRequest> items) {
+        try (var scope = StructuredTaskScope.open(StructuredTaskScope.Joiner.<Product>awaitAllSuccessfulOrThrow())) {
+            List<StructuredTaskScope.Subtask<Product>> tasks = items.stream()
+                    .map(item -> scope.fork(() -> productRepository.findById(item.productId()).orElseThrow()))
+                    .toList();
+            scope.join();
+            return tasks.stream().map(StructuredTaskScope.Subtask::get).toList();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+}
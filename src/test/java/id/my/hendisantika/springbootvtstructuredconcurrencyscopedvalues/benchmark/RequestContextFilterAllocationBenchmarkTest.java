@@ -0,0 +1,162 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.benchmark;
+
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.config.RequestContextFilter;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.config.RequestDeadlineProperties;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.config.RequestDeadlineResolver;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.context.RequestContext;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.context.RequestDeadline;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.context.ScopedValues;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures bytes allocated and time per request by {@link RequestContextFilter},
+ * next to the filter as it was before (two SecureRandom UUIDs, a Lombok builder,
+ * a regex-capable split of X-Forwarded-For and exception wrapping around the
+ * chain), and checks that it allocates less.
+ * <p>
+ * Uses the per-thread allocation counter of the JVM, needs no database and
+ * only runs on request:
+ * {@code mvn test -Dbenchmark=true -Dtest=RequestContextFilterAllocationBenchmarkTest}.
+ * Results are written to the log.
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class RequestContextFilterAllocationBenchmarkTest {
+
+    private static final int WARMUP_ITERATIONS = 200_000;
+    private static final int MEASURED_ITERATIONS = 1_000_000;
+    private static final double MIN_SAVING_WITHOUT_IDS = 200;
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final RequestDeadlineResolver deadlineResolver = new RequestDeadlineResolver(
+            new RequestDeadlineProperties(Duration.ofSeconds(10), Duration.ofSeconds(60), Map.of(
+                    "/api/customers/*/dashboard", Duration.ofSeconds(2),
+                    "/api/products/*/inventory/**", Duration.ofSeconds(2))));
+
+    private final RequestContextFilter filter = new RequestContextFilter(deadlineResolver);
+
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    private final FilterChain chain = (request, response) -> {
+        if (!ScopedValues.hasRequestContext()) {
+            throw new IllegalStateException("RequestContext not bound");
+        }
+    };
+
+    @Test
+    void filterAllocationPerRequest() throws Exception {
+        MockHttpServletRequest bareRequest = new MockHttpServletRequest("GET", "/api/products/1");
+        bareRequest.addHeader("X-Forwarded-For", "203.0.113.7, 10.0.0.1");
+        bareRequest.addHeader("User-Agent", "benchmark");
+
+        MockHttpServletRequest tracedRequest = new MockHttpServletRequest("GET", "/api/products/1");
+        tracedRequest.addHeader("X-Request-ID", "req-1");
+        tracedRequest.addHeader("X-Correlation-ID", "corr-1");
+        tracedRequest.addHeader("X-User-ID", "user-1");
+        tracedRequest.addHeader("X-Forwarded-For", "203.0.113.7, 10.0.0.1");
+        tracedRequest.addHeader("User-Agent", "benchmark");
+
+        Result legacyBare = measure(() -> legacyDoFilter(bareRequest));
+        Result legacyTraced = measure(() -> legacyDoFilter(tracedRequest));
+        Result bare = measure(() -> filter.doFilter(bareRequest, response, chain));
+        Result traced = measure(() -> filter.doFilter(tracedRequest, response, chain));
+
+        log.info("legacy filter, id headers missing: {}", legacyBare);
+        log.info("legacy filter, id headers present: {}", legacyTraced);
+        log.info("filter, id headers missing:        {}", bare);
+        log.info("filter, id headers present:        {}", traced);
+
+        // Without id headers the SecureRandom UUIDs were the largest cost; with them,
+        // the builder and the regex-capable split still allocated on every request
+        assertThat(bare.bytesPerRequest()).isLessThan(legacyBare.bytesPerRequest() - MIN_SAVING_WITHOUT_IDS);
+        assertThat(traced.bytesPerRequest()).isLessThan(legacyTraced.bytesPerRequest());
+    }
+
+    private Result measure(Iteration iteration) throws Exception {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            iteration.run();
+        }
+
+        long allocatedBefore = THREAD_MX_BEAN.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            iteration.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = THREAD_MX_BEAN.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+        return new Result((double) allocated / MEASURED_ITERATIONS, (double) elapsed / MEASURED_ITERATIONS);
+    }
+
+    /**
+     * What the filter used to do for every request.
+     */
+    private void legacyDoFilter(HttpServletRequest request) throws Exception {
+        String requestId = request.getHeader("X-Request-ID");
+        String correlationId = request.getHeader("X-Correlation-ID");
+        String xForwardedFor = request.getHeader("X-Forwarded-For");
+        RequestContext context = RequestContext.builder()
+                .requestId(requestId != null && !requestId.isBlank() ? requestId : UUID.randomUUID().toString())
+                .correlationId(correlationId != null && !correlationId.isBlank()
+                        ? correlationId : UUID.randomUUID().toString())
+                .userId(request.getHeader("X-User-ID"))
+                .userEmail(request.getHeader("X-User-Email"))
+                .clientIp(xForwardedFor != null && !xForwardedFor.isBlank()
+                        ? xForwardedFor.split(",")[0].trim()
+                        : request.getRemoteAddr())
+                .userAgent(request.getHeader("User-Agent"))
+                .timestamp(Instant.now())
+                .build();
+        RequestDeadline deadline = deadlineResolver.resolve(request);
+
+        log.debug("Binding RequestContext for request: {} [correlationId={}, budget={}ms]",
+                context.requestId(), context.correlationId(), deadline.budget().toMillis());
+        try {
+            ScopedValue.where(ScopedValues.REQUEST_CONTEXT, context)
+                    .where(ScopedValues.REQUEST_DEADLINE, deadline)
+                    .run(() -> {
+                        try {
+                            chain.doFilter(request, response);
+                        } catch (IOException | ServletException e) {
+                            throw new RuntimeException(e);
+                        }
+                    });
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw e;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Iteration {
+        void run() throws Exception;
+    }
+
+    private record Result(double bytesPerRequest, double nanosPerRequest) {
+
+        @Override
+        public String toString() {
+            return "%.0f bytes/request, %.0f ns/request".formatted(bytesPerRequest, nanosPerRequest);
+        }
+    }
+}
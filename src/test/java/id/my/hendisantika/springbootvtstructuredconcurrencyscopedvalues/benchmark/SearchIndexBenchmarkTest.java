@@ -0,0 +1,116 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.benchmark;
+
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.catalog.CatalogRow;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.catalog.SearchIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures ranked search and autocomplete over a {@link SearchIndex} of
+ * {@value #PRODUCT_COUNT} products, next to the linear substring scan that
+ * {@code LIKE '%keyword%'} performs.
+ * <p>
+ * Needs no database and only runs on request:
+ * {@code mvn test -Dbenchmark=true -Dtest=SearchIndexBenchmarkTest}.
+ * Results are written to the log.
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class SearchIndexBenchmarkTest {
+
+    private static final int PRODUCT_COUNT = 50_000;
+    private static final int WARMUP_ITERATIONS = 200;
+    private static final int MEASURED_ITERATIONS = 1_000;
+    private static final List<String> ADJECTIVES = List.of("Wireless", "Ergonomic", "Compact", "Portable", "Premium",
+            "Mechanical", "Smart", "Rugged", "Slim", "Classic");
+    private static final List<String> NOUNS = List.of("Mouse", "Keyboard", "Headphones", "Speaker", "Charger",
+            "Monitor", "Webcam", "Backpack", "Lamp", "Watch", "Router", "Tablet");
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final List<CatalogRow> rows = IntStream.rangeClosed(1, PRODUCT_COUNT)
+            .mapToObj(SearchIndexBenchmarkTest::row)
+            .toList();
+
+    @Test
+    void searchAndSuggest() {
+        SearchIndex index = SearchIndex.of(rows);
+
+        List<Long> ranked = index.search("wireless mouse", 20);
+        assertThat(ranked).hasSize(20).allSatisfy(id -> assertThat(rows.get((int) (id - 1)).name())
+                .containsIgnoringCase("wireless").containsIgnoringCase("mouse"));
+        assertThat(index.search("IRELES", 10)).isNotEmpty();
+        assertThat(index.suggest("mou", 5)).containsExactly("mouse");
+
+        Result scan = measure(() -> rows.stream()
+                .filter(row -> contains(row, "wireless") && contains(row, "mouse"))
+                .toList());
+        Result search = measure(() -> index.search("wireless mouse", 20));
+        Result infix = measure(() -> index.search("phone", 20));
+        Result suggest = measure(() -> index.suggest("ke", 10));
+
+        log.info("two-word substring scan:   {}", scan);
+        log.info("ranked two-word search:    {}", search);
+        log.info("infix search:              {}", infix);
+        log.info("autocomplete:              {}", suggest);
+    }
+
+    @Test
+    void updatesReplaceIndexedTerms() {
+        SearchIndex index = SearchIndex.of(rows.subList(0, 100));
+        index.put(new CatalogRow(1L, "Solar Lantern", null, "SKU-1", BigDecimal.TEN, 1, null, null,
+                true, LocalDateTime.now(), null));
+        index.remove(2L);
+
+        assertThat(index.search("lantern", 10)).containsExactly(1L);
+        assertThat(index.search(rows.getFirst().name(), 100)).doesNotContain(1L);
+        assertThat(index.search("sku 2", 100)).doesNotContain(2L);
+    }
+
+    private static boolean contains(CatalogRow row, String keyword) {
+        return row.name().toLowerCase(Locale.ROOT).contains(keyword)
+                || row.description().toLowerCase(Locale.ROOT).contains(keyword);
+    }
+
+    private Result measure(Supplier<?> query) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            query.get();
+        }
+
+        long allocatedBefore = THREAD_MX_BEAN.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            query.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = THREAD_MX_BEAN.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+        return new Result((double) allocated / MEASURED_ITERATIONS, (double) elapsed / MEASURED_ITERATIONS / 1_000);
+    }
+
+    private static CatalogRow row(int id) {
+        String name = ADJECTIVES.get(id % ADJECTIVES.size()) + " " + NOUNS.get(id % NOUNS.size()) + " " + id;
+        return new CatalogRow((long) id, name, "A " + name.toLowerCase(Locale.ROOT) + " for everyday use",
+                "SKU-" + id, BigDecimal.TEN, 10, "Electronics", null, true, LocalDateTime.now(), null);
+    }
+
+    private record Result(double bytesPerCall, double microsPerCall) {
+
+        @Override
+        public String toString() {
+            return "%.0f bytes/call, %.1f µs/call".formatted(bytesPerCall, microsPerCall);
+        }
+    }
+}
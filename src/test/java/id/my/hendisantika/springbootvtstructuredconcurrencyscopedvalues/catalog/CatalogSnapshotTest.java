@@ -0,0 +1,116 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.catalog;
+
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Product;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Guards the listing queries answered from a catalog snapshot: filtering,
+ * sort orders, offset and keyset paging, and that changes produce a new
+ * snapshot without touching the one readers already hold.
+ */
+class CatalogSnapshotTest {
+
+    private static final List<BigDecimal> PRICE_BUCKETS = List.of(new BigDecimal("25"), new BigDecimal("100"));
+
+    private final CatalogSnapshot snapshot = CatalogSnapshot.of(List.of(
+            row(4, "Desk Lamp", "30.00", 0, "Home", true),
+            row(1, "Keyboard", "49.99", 12, "Electronics", true),
+            row(3, "cable", "9.99", 100, "Electronics", true),
+            row(2, "Monitor", "199.00", 3, "Electronics", false),
+            row(5, "Mouse", "19.99", 7, "electronics", true),
+            row(6, "Notebook", "30.00", 40, null, true)
+    ), PRICE_BUCKETS);
+
+    @Test
+    void filtersByCategoryIgnoringCaseActiveFlagStockAndPrice() {
+        CatalogResult result = snapshot.query(CatalogQuery.builder()
+                .category("ELECTRONICS")
+                .active(true)
+                .inStock(true)
+                .minPrice(new BigDecimal("10"))
+                .build());
+
+        assertThat(result.products()).extracting(Product::getId).containsExactly(1L, 5L);
+        assertThat(result.totalMatches()).isEqualTo(2);
+        assertThat(snapshot.query(CatalogQuery.builder().stockBelow(10).build()).products())
+                .extracting(Product::getId).containsExactly(2L, 4L, 5L);
+    }
+
+    @Test
+    void sortsByPriceAndNameWithIdBreakingTies() {
+        assertThat(snapshot.query(CatalogQuery.builder().sort(CatalogSort.PRICE).build()).products())
+                .extracting(Product::getId).containsExactly(3L, 5L, 4L, 6L, 1L, 2L);
+        assertThat(snapshot.query(CatalogQuery.builder().sort(CatalogSort.PRICE).descending(true).build()).products())
+                .extracting(Product::getId).containsExactly(2L, 1L, 6L, 4L, 5L, 3L);
+        assertThat(snapshot.query(CatalogQuery.builder().sort(CatalogSort.NAME).build()).products())
+                .extracting(Product::getName)
+                .containsExactly("cable", "Desk Lamp", "Keyboard", "Monitor", "Mouse", "Notebook");
+    }
+
+    @Test
+    void pagesByOffsetAndCountsEveryMatch() {
+        CatalogQuery firstPage = CatalogQuery.builder().sort(CatalogSort.PRICE).limit(4).build();
+
+        CatalogResult first = snapshot.query(firstPage);
+        CatalogResult second = snapshot.query(firstPage.toBuilder().offset(4).build());
+        CatalogResult beyond = snapshot.query(firstPage.toBuilder().offset(10).build());
+
+        assertThat(first.products()).extracting(Product::getId).containsExactly(3L, 5L, 4L, 6L);
+        assertThat(second.products()).extracting(Product::getId).containsExactly(1L, 2L);
+        assertThat(beyond.products()).isEmpty();
+        assertThat(List.of(first.totalMatches(), second.totalMatches(), beyond.totalMatches())).containsOnly(6);
+    }
+
+    @Test
+    void pagesByKeysetInIdOrder() {
+        assertThat(snapshot.after(0, 2)).extracting(Product::getId).containsExactly(1L, 2L);
+        assertThat(snapshot.after(2, 3)).extracting(Product::getId).containsExactly(3L, 4L, 5L);
+        // Ids that are not in the catalog still position the page
+        assertThat(snapshot.withProducts(List.of(), Set.of(5L)).after(5, 10))
+                .extracting(Product::getId).containsExactly(6L);
+        assertThat(snapshot.after(6, 10)).isEmpty();
+        assertThat(snapshot.after(Long.MAX_VALUE, Integer.MAX_VALUE)).isEmpty();
+    }
+
+    @Test
+    void productChangesProduceANewSnapshot() {
+        CatalogSnapshot changed = snapshot.withProducts(List.of(
+                row(3, "cable", "59.99", 100, "Electronics", true),
+                row(7, "Charger", "15.00", 5, "Electronics", true)
+        ), Set.of(2L));
+
+        assertThat(changed.size()).isEqualTo(6);
+        assertThat(changed.findById(2)).isEmpty();
+        assertThat(changed.findById(7)).map(Product::getName).contains("Charger");
+        // The price change moves the product in the price order
+        assertThat(changed.query(CatalogQuery.builder().sort(CatalogSort.PRICE).build()).products())
+                .extracting(Product::getId).containsExactly(7L, 5L, 4L, 6L, 1L, 3L);
+
+        assertThat(snapshot.size()).isEqualTo(6);
+        assertThat(snapshot.findById(2)).isPresent();
+        assertThat(snapshot.findById(3)).map(Product::getPrice).contains(new BigDecimal("9.99"));
+    }
+
+    @Test
+    void stockChangesOnlyReplaceTheStockColumn() {
+        CatalogSnapshot changed = snapshot.withStock(List.of(new StockLevel(4L, 8), new StockLevel(99L, 1)));
+
+        assertThat(changed.findById(4)).map(Product::getStockQuantity).contains(8);
+        assertThat(changed.findById(99)).isEmpty();
+        assertThat(changed.query(CatalogQuery.builder().inStock(false).build()).products()).isEmpty();
+        assertThat(snapshot.findById(4)).map(Product::getStockQuantity).contains(0);
+    }
+
+    static CatalogRow row(long id, String name, String price, int stock, String category, boolean active) {
+        LocalDateTime createdAt = LocalDateTime.of(2026, 10, 16, 12, 0);
+        return new CatalogRow(id, name, name + " description", "SKU-" + id, new BigDecimal(price), stock,
+                category, null, active, createdAt, createdAt);
+    }
+}
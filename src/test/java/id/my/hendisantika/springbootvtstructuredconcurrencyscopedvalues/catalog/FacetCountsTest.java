@@ -0,0 +1,110 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.catalog;
+
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.ProductFacets;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+import static id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.catalog.CatalogSnapshotTest.row;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Guards the facet counters a catalog snapshot maintains: they count active
+ * products only, and stock and product changes adjust them to the same
+ * numbers a full rebuild would give.
+ */
+class FacetCountsTest {
+
+    private static final List<BigDecimal> PRICE_BUCKETS = List.of(new BigDecimal("25"), new BigDecimal("100"));
+
+    private final CatalogSnapshot snapshot = CatalogSnapshot.of(List.of(
+            row(1, "Keyboard", "49.99", 12, "Electronics", true),
+            row(2, "Monitor", "199.00", 3, "Electronics", false),
+            row(3, "Cable", "9.99", 0, "Electronics", true),
+            row(4, "Lamp", "30.00", 5, "Home", true),
+            row(5, "Sofa", "120.00", 0, "Home", true),
+            row(6, "Pencil", "10.00", 1, null, true)
+    ), PRICE_BUCKETS);
+
+    @Test
+    void countsActiveProductsPerCategoryPriceBucketAndStock() {
+        ProductFacets facets = snapshot.facets(null);
+
+        assertThat(facets.products()).isEqualTo(5);
+        assertThat(facets.inStock()).isEqualTo(3);
+        assertThat(facets.categories()).containsExactly(
+                new ProductFacets.CategoryCount("Electronics", 2),
+                new ProductFacets.CategoryCount("Home", 2));
+        assertThat(facets.priceBuckets()).containsExactly(
+                new ProductFacets.PriceBucket(BigDecimal.ZERO, new BigDecimal("25.00"), 2),
+                new ProductFacets.PriceBucket(new BigDecimal("25.00"), new BigDecimal("100.00"), 2),
+                new ProductFacets.PriceBucket(new BigDecimal("100.00"), null, 1));
+    }
+
+    @Test
+    void narrowsTheCountsToOneCategoryIgnoringCase() {
+        ProductFacets facets = snapshot.facets("home");
+
+        assertThat(facets.category()).isEqualTo("home");
+        assertThat(facets.products()).isEqualTo(2);
+        assertThat(facets.inStock()).isEqualTo(1);
+        assertThat(facets.priceBuckets()).extracting(ProductFacets.PriceBucket::count).containsExactly(0, 1, 1);
+        // The category list always spans the whole catalog
+        assertThat(facets.categories()).hasSize(2);
+        assertThat(snapshot.facets("garden").products()).isZero();
+    }
+
+    @Test
+    void stockChangesMoveProductsInAndOutOfStock() {
+        CatalogSnapshot changed = snapshot.withStock(List.of(
+                new StockLevel(3L, 4),
+                new StockLevel(1L, 0),
+                new StockLevel(4L, 9),
+                new StockLevel(2L, 0)));
+
+        assertThat(changed.facets("Electronics").inStock()).isEqualTo(1);
+        assertThat(changed.facets(null).inStock()).isEqualTo(3);
+        assertThat(snapshot.facets("Electronics").inStock()).isEqualTo(1);
+        assertFacetsMatchRebuild(changed);
+    }
+
+    @Test
+    void productChangesAdjustTheCountsLikeARebuild() {
+        CatalogSnapshot changed = snapshot.withProducts(List.of(
+                row(2, "Monitor", "20.00", 3, "Electronics", true),
+                row(4, "Lamp", "30.00", 5, "Home", false),
+                row(7, "Rake", "60.00", 2, "Garden", true)
+        ), Set.of(6L));
+
+        ProductFacets facets = changed.facets(null);
+        assertThat(facets.products()).isEqualTo(5);
+        assertThat(facets.categories()).containsExactly(
+                new ProductFacets.CategoryCount("Electronics", 3),
+                new ProductFacets.CategoryCount("Home", 1),
+                new ProductFacets.CategoryCount("Garden", 1));
+        assertThat(facets.priceBuckets()).extracting(ProductFacets.PriceBucket::count).containsExactly(2, 2, 1);
+        assertFacetsMatchRebuild(changed);
+        assertThat(snapshot.facets(null).products()).isEqualTo(5);
+    }
+
+    private static void assertFacetsMatchRebuild(CatalogSnapshot changed) {
+        CatalogSnapshot rebuilt = CatalogSnapshot.of(
+                changed.query(CatalogQuery.all()).products().stream()
+                        .map(product -> new CatalogRow(product.getId(), product.getName(), product.getDescription(),
+                                product.getSku(), product.getPrice(), product.getStockQuantity(),
+                                product.getCategory(), product.getImageUrl(), product.getIsActive(),
+                                product.getCreatedAt(), product.getUpdatedAt()))
+                        .toList(),
+                PRICE_BUCKETS);
+        for (String category : new String[]{null, "Electronics", "Home", "Garden"}) {
+            ProductFacets expected = rebuilt.facets(category);
+            ProductFacets actual = changed.facets(category);
+            assertThat(actual.products()).isEqualTo(expected.products());
+            assertThat(actual.inStock()).isEqualTo(expected.inStock());
+            assertThat(actual.priceBuckets()).isEqualTo(expected.priceBuckets());
+            assertThat(actual.categories()).containsExactlyInAnyOrderElementsOf(expected.categories());
+        }
+    }
+}
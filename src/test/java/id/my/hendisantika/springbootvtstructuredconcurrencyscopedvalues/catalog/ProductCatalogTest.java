@@ -0,0 +1,82 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.catalog;
+
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.config.CatalogProperties;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Product;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.event.ProductChangedEvent;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.catalog.CatalogSnapshotTest.row;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Guards that committed product changes reach the snapshot and the search
+ * index before the write returns, and that a failed refresh keeps its
+ * changes for the next one.
+ */
+class ProductCatalogTest {
+
+    private ProductRepository productRepository;
+    private ProductCatalog catalog;
+
+    @BeforeEach
+    void loadCatalog() {
+        productRepository = mock(ProductRepository.class);
+        when(productRepository.findAllCatalogRows()).thenReturn(List.of(
+                row(1, "Keyboard", "49.99", 12, "Electronics", true),
+                row(2, "Monitor", "199.00", 3, "Electronics", true)));
+        catalog = new ProductCatalog(productRepository,
+                new CatalogProperties(Duration.ofMinutes(5), List.of(new BigDecimal("100"))));
+        catalog.reload();
+    }
+
+    @Test
+    void productChangeIsListedOnceItsEventIsHandled() {
+        when(productRepository.findCatalogRowsByIdIn(Set.of(1L)))
+                .thenReturn(List.of(row(1, "Mechanical Keyboard", "89.99", 12, "Electronics", true)));
+        when(productRepository.findCatalogRowsByIdIn(Set.of(2L))).thenReturn(List.of());
+
+        catalog.onProductChanged(new ProductChangedEvent(1L));
+        catalog.onProductChanged(new ProductChangedEvent(2L));
+
+        assertThat(catalog.snapshot().query(CatalogQuery.all()).products())
+                .extracting(Product::getName).containsExactly("Mechanical Keyboard");
+        assertThat(catalog.search("mechanical", 10)).extracting(Product::getId).containsExactly(1L);
+        assertThat(catalog.search("monitor", 10)).isEmpty();
+    }
+
+    @Test
+    void failedRefreshIsRetriedWithTheNextChange() {
+        when(productRepository.findCatalogRowsByIdIn(Set.of(1L)))
+                .thenThrow(new QueryTimeoutException("timed out"));
+        when(productRepository.findCatalogRowsByIdIn(Set.of(1L, 2L))).thenReturn(List.of(
+                row(1, "Mechanical Keyboard", "89.99", 12, "Electronics", true),
+                row(2, "Curved Monitor", "249.00", 3, "Electronics", true)));
+
+        catalog.onProductChanged(new ProductChangedEvent(1L));
+        assertThat(catalog.snapshot().findById(1)).map(Product::getName).contains("Keyboard");
+
+        catalog.onProductChanged(new ProductChangedEvent(2L));
+        assertThat(catalog.snapshot().query(CatalogQuery.all()).products())
+                .extracting(Product::getName).containsExactly("Mechanical Keyboard", "Curved Monitor");
+    }
+
+    @Test
+    void snapshotIsLoadedOnFirstUse() {
+        ProductCatalog notLoaded = new ProductCatalog(productRepository,
+                new CatalogProperties(Duration.ofMinutes(5), List.of()));
+
+        assertThat(notLoaded.snapshot().size()).isEqualTo(2);
+        assertThat(notLoaded.suggest("mon", 5)).containsExactly("monitor");
+    }
+}
@@ -0,0 +1,113 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.catalog;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Guards the ranking of the product search index (whole word over prefix
+ * over infix, name over SKU over description), that every query word must
+ * match, and that re-indexing and removal keep it consistent, including for
+ * searches running while a product is re-indexed.
+ */
+class SearchIndexTest {
+
+    private final SearchIndex index = SearchIndex.of(List.of(
+            row(1, "Wireless Mouse", "WM-1", "Ergonomic mouse"),
+            row(2, "Mousepad XL", "MP-XL", "Large pad"),
+            row(3, "Gaming Keyboard", "GK-3", "Works with any mouse"),
+            row(4, "Micromouse Kit", "MK-4", null),
+            row(5, "Cable", "USB-C-2M", "Braided"),
+            row(6, "Charger", "CH-6", "USB wall charger")
+    ));
+
+    @Test
+    void ranksWholeWordsOverPrefixesOverInfixes() {
+        assertThat(index.search("mouse", 10)).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(index.search("MOUSE", 2)).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void ranksNameOverSkuOverDescription() {
+        assertThat(index.search("usb", 10)).containsExactly(5L, 6L);
+        assertThat(index.search("charger", 10)).containsExactly(6L);
+    }
+
+    @Test
+    void requiresEveryWordToMatch() {
+        assertThat(index.search("wireless mou", 10)).containsExactly(1L);
+        assertThat(index.search("mouse braided", 10)).isEmpty();
+        assertThat(index.search("  ", 10)).isEmpty();
+        // Single characters are not indexed and match nothing
+        assertThat(index.search("x", 10)).isEmpty();
+    }
+
+    @Test
+    void suggestsTermsInMostProductsFirst() {
+        assertThat(index.suggest("mo", 10)).containsExactly("mouse", "mousepad");
+        assertThat(index.suggest("Wi", 10)).containsExactly("wireless", "with");
+        assertThat(index.suggest(" ", 10)).isEmpty();
+    }
+
+    @Test
+    void reindexingReplacesTheTermsOfAProduct() {
+        index.put(row(1, "Trackball", "TB-1", "Ergonomic"));
+        index.remove(2L);
+
+        assertThat(index.search("wireless", 10)).isEmpty();
+        assertThat(index.search("trackball", 10)).containsExactly(1L);
+        assertThat(index.search("mouse", 10)).containsExactly(3L, 4L);
+        assertThat(index.suggest("mo", 10)).containsExactly("mouse");
+        // Infix lookups drop the removed terms too
+        assertThat(index.search("ousepa", 10)).isEmpty();
+    }
+
+    @Test
+    void removesTermsThatRepeatATrigram() {
+        index.put(row(7, "Banana Hook", "BH-7", "Holds 1111 bananas"));
+        index.put(row(7, "Hook", "BH-7", null));
+
+        assertThat(index.search("banana", 10)).isEmpty();
+        assertThat(index.search("ana", 10)).isEmpty();
+        assertThat(index.search("hook", 10)).containsExactly(7L);
+        index.remove(7L);
+        assertThat(index.suggest("ho", 10)).isEmpty();
+    }
+
+    @Test
+    void searchDuringReindexingAlwaysFindsTheProduct() throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger misses = new AtomicInteger();
+        Thread reader = Thread.ofPlatform().start(() -> {
+            while (running.get()) {
+                if (!index.search("wireless", 10).contains(1L)) {
+                    misses.incrementAndGet();
+                }
+            }
+        });
+
+        try {
+            for (int i = 0; i < 20_000; i++) {
+                index.put(row(1, "Wireless Mouse", "WM-1", "Revision " + i));
+            }
+        } finally {
+            running.set(false);
+            reader.join();
+        }
+
+        assertThat(misses).hasValue(0);
+        assertThat(index.search("revision", 10)).containsExactly(1L);
+    }
+
+    private static CatalogRow row(long id, String name, String sku, String description) {
+        LocalDateTime createdAt = LocalDateTime.of(2026, 10, 16, 12, 0);
+        return new CatalogRow(id, name, description, sku, new BigDecimal("9.99"), 10, "Test", null, true,
+                createdAt, createdAt);
+    }
+}
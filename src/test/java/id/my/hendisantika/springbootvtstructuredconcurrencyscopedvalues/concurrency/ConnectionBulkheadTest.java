@@ -0,0 +1,99 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.concurrency;
+
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.context.ScopedValues;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Guards that the bulkhead admits each request once: callers without a
+ * connection queue and are shed, while a request that already holds a
+ * connection is never made to wait on it.
+ */
+class ConnectionBulkheadTest {
+
+    private static final int POOL_SIZE = 2;
+
+    private ConnectionBulkhead bulkhead;
+
+    @BeforeEach
+    void createBulkhead() {
+        bulkhead = new ConnectionBulkhead(0, Duration.ofMillis(20), 10, Duration.ofSeconds(1)).bindPool(POOL_SIZE);
+    }
+
+    @Test
+    void newRequestIsShedOnceThePermitsAreTaken() {
+        RequestAdmission first = new RequestAdmission();
+        RequestAdmission second = new RequestAdmission();
+        ScopedValue.where(ScopedValues.REQUEST_ADMISSION, first).run(bulkhead::acquire);
+        ScopedValue.where(ScopedValues.REQUEST_ADMISSION, second).run(bulkhead::acquire);
+
+        assertThat(bulkhead.getAvailablePermits()).isZero();
+        assertThatThrownBy(() -> ScopedValue.where(ScopedValues.REQUEST_ADMISSION, new RequestAdmission())
+                .run(bulkhead::acquire))
+                .isInstanceOf(AdmissionRejectedException.class);
+        assertThatThrownBy(bulkhead::acquire).isInstanceOf(AdmissionRejectedException.class);
+    }
+
+    @Test
+    void forksOfAnAdmittedRequestAreNotQueuedBehindTheirParent() {
+        RequestAdmission dashboard = new RequestAdmission();
+        RequestAdmission other = new RequestAdmission();
+
+        ScopedValue.where(ScopedValues.REQUEST_ADMISSION, dashboard).run(() -> {
+            ConnectionBulkhead.Permit parent = bulkhead.acquire();
+            ScopedValue.where(ScopedValues.REQUEST_ADMISSION, other).run(bulkhead::acquire);
+            assertThat(bulkhead.getAvailablePermits()).isZero();
+
+            // Three forks, each needing a connection of its own while the parent holds one
+            ConnectionBulkhead.Permit orders = bulkhead.acquire();
+            ConnectionBulkhead.Permit stats = bulkhead.acquire();
+            ConnectionBulkhead.Permit recommendations = bulkhead.acquire();
+
+            assertThat(orders.holdsPermit()).isFalse();
+            assertThat(stats.holdsPermit()).isFalse();
+            assertThat(recommendations.holdsPermit()).isFalse();
+            assertThat(dashboard.getHeldConnections()).isEqualTo(4);
+
+            orders.release();
+            stats.release();
+            recommendations.release();
+            assertThat(bulkhead.getAvailablePermits()).isZero();
+
+            parent.release();
+            assertThat(bulkhead.getAvailablePermits()).isEqualTo(1);
+            assertThat(dashboard.holdsConnection()).isFalse();
+        });
+    }
+
+    @Test
+    void forkTakesAFreePermitWhenThereIsOne() {
+        RequestAdmission admission = new RequestAdmission();
+
+        ScopedValue.where(ScopedValues.REQUEST_ADMISSION, admission).run(() -> {
+            ConnectionBulkhead.Permit parent = bulkhead.acquire();
+            ConnectionBulkhead.Permit fork = bulkhead.acquire();
+
+            assertThat(fork.holdsPermit()).isTrue();
+            assertThat(bulkhead.getAvailablePermits()).isZero();
+
+            fork.release();
+            parent.release();
+        });
+        assertThat(bulkhead.getAvailablePermits()).isEqualTo(POOL_SIZE);
+    }
+
+    @Test
+    void permitIsReleasedOnlyOnce() {
+        ConnectionBulkhead.Permit permit = bulkhead.acquire();
+
+        permit.release();
+        permit.release();
+
+        assertThat(bulkhead.getAvailablePermits()).isEqualTo(POOL_SIZE);
+    }
+}
@@ -0,0 +1,98 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.service;
+
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.config.CustomerSearchProperties;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.CustomerMatch;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.CustomerSearchPage;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.event.CustomerChangedEvent;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.CustomerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Guards the customer typeahead ranking, paging (including pages far past
+ * the last match) and that committed changes reach the index and the cached
+ * rankings of short prefixes.
+ */
+class CustomerSearchIndexTest {
+
+    private CustomerRepository customerRepository;
+    private CustomerSearchIndex index;
+
+    @BeforeEach
+    void buildIndex() {
+        customerRepository = mock(CustomerRepository.class);
+        when(customerRepository.findAllCustomerMatches()).thenReturn(List.of(
+                new CustomerMatch(1L, "Jane", "Doe", "jane.doe@example.com"),
+                new CustomerMatch(2L, "Janet", "Smith", "jsmith@example.com"),
+                new CustomerMatch(3L, "Bob", "Janeway", "bob@example.com"),
+                new CustomerMatch(4L, "Alice", "Brown", "janedoe@mail.com"),
+                new CustomerMatch(5L, "Mary", "Ojane", "mary@example.com")));
+        index = new CustomerSearchIndex(customerRepository, new CustomerSearchProperties(Duration.ofMinutes(15)));
+        index.reload();
+    }
+
+    @Test
+    void ranksWholeWordsOverPrefixesOverEmailPrefixesOverInfixes() {
+        CustomerSearchPage page = index.search("Jane", 0, 10);
+
+        assertThat(page.content()).extracting(CustomerMatch::id).containsExactly(1L, 3L, 2L, 4L, 5L);
+        assertThat(page.totalElements()).isEqualTo(5);
+        assertThat(page.totalPages()).isEqualTo(1);
+    }
+
+    @Test
+    void requiresEveryWordToMatch() {
+        assertThat(index.search("jane doe", 0, 10).content()).extracting(CustomerMatch::id).containsExactly(1L, 4L);
+        assertThat(index.search("jane zzz", 0, 10).totalElements()).isZero();
+        assertThat(index.search("   ", 0, 10).content()).isEmpty();
+    }
+
+    @Test
+    void pagesThroughTheRankedMatches() {
+        assertThat(index.search("jane", 0, 2).content()).extracting(CustomerMatch::id).containsExactly(1L, 3L);
+        assertThat(index.search("jane", 1, 2).content()).extracting(CustomerMatch::id).containsExactly(2L, 4L);
+
+        CustomerSearchPage last = index.search("jane", 2, 2);
+        assertThat(last.content()).extracting(CustomerMatch::id).containsExactly(5L);
+        assertThat(last.totalElements()).isEqualTo(5);
+        assertThat(last.totalPages()).isEqualTo(3);
+    }
+
+    @Test
+    void pagesFarPastTheLastMatchAreEmpty() {
+        assertThat(index.search("jane", Integer.MAX_VALUE, 50).content()).isEmpty();
+        assertThat(index.search("jane", Integer.MAX_VALUE, 50).totalElements()).isEqualTo(5);
+        assertThat(index.search("ja", Integer.MAX_VALUE, 50).content()).isEmpty();
+        assertThatThrownBy(() -> index.search("jane", -1, 10)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shortWordsMatchOnlyPrefixes() {
+        assertThat(index.search("ja", 0, 10).content()).extracting(CustomerMatch::id).containsExactly(1L, 3L, 2L, 4L);
+        assertThat(index.search("ja", 1, 3).content()).extracting(CustomerMatch::id).containsExactly(4L);
+    }
+
+    @Test
+    void committedChangesReachTheIndexAndThePrefixRankings() {
+        assertThat(index.search("ja", 0, 10).totalElements()).isEqualTo(4);
+
+        when(customerRepository.findCustomerMatchById(2L))
+                .thenReturn(Optional.of(new CustomerMatch(2L, "Bert", "Smith", "bsmith@example.com")));
+        when(customerRepository.findCustomerMatchById(3L)).thenReturn(Optional.empty());
+        index.onCustomerChanged(new CustomerChangedEvent(2L));
+        index.onCustomerChanged(new CustomerChangedEvent(3L));
+
+        assertThat(index.search("ja", 0, 10).content()).extracting(CustomerMatch::id).containsExactly(1L, 4L);
+        assertThat(index.search("bert", 0, 10).content()).extracting(CustomerMatch::id).containsExactly(2L);
+        assertThat(index.search("janeway", 0, 10).totalElements()).isZero();
+    }
+}
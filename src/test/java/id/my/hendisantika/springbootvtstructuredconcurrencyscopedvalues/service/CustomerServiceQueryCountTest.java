@@ -0,0 +1,195 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.service;
+
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.CursorPage;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.CustomerDashboard;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.CustomerView;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.MultiGetResult;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.OrderSummary;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Customer;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Order;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.OrderItem;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Product;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.CustomerRepository;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.OrderRepository;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.ProductRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Guards the number of SQL statements the customer dashboard and customer reads
+ * issue, so that reading recent orders cannot fall back to one item collection
+ * load per order. The dashboard deadline is raised so that every section
+ * completes and is counted.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        // Sections dropped at the 300ms production deadline on a slow or cold database would change the counts
+        "app.dashboard.deadline=30s"
+})
+class CustomerServiceQueryCountTest {
+
+    private static final int ORDER_COUNT = 8;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private CustomerStatsService customerStatsService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Customer customer;
+    private Product product;
+
+    @BeforeEach
+    void createCustomerWithOrders() {
+        long suffix = System.nanoTime();
+        customer = customerRepository.save(Customer.builder()
+                .firstName("Query")
+                .lastName("Count")
+                .email("query-count-" + suffix + "@example.com")
+                .createdAt(LocalDateTime.now())
+                .build());
+        product = productRepository.save(Product.builder()
+                .name("Query Count Product")
+                .sku("QC-" + suffix)
+                .price(new BigDecimal("5.00"))
+                .stockQuantity(100)
+                .build());
+
+        // Order i has i + 1 items; order 0 is the newest
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < ORDER_COUNT; i++) {
+            Order order = Order.builder()
+                    .orderNumber("QC-" + suffix + "-" + i)
+                    .customer(customer)
+                    .createdAt(LocalDateTime.now().minusHours(i))
+                    .build();
+            for (int j = 0; j <= i; j++) {
+                OrderItem item = OrderItem.builder()
+                        .product(product)
+                        .quantity(1)
+                        .unitPrice(product.getPrice())
+                        .build();
+                item.calculateSubtotal();
+                order.addItem(item);
+            }
+            order.calculateTotalAmount();
+            orders.add(order);
+        }
+        orderRepository.saveAll(orders);
+        customerStatsService.refresh(customer.getId());
+    }
+
+    @AfterEach
+    void deleteCustomerWithOrders() {
+        jdbcTemplate.update("DELETE oi FROM order_items oi JOIN orders o ON o.id = oi.order_id WHERE o.customer_id = ?",
+                customer.getId());
+        jdbcTemplate.update("DELETE FROM orders WHERE customer_id = ?", customer.getId());
+        jdbcTemplate.update("DELETE FROM customer_stats WHERE customer_id = ?", customer.getId());
+        customerRepository.delete(customer);
+        productRepository.delete(product);
+    }
+
+    @Test
+    void recentOrderSummariesUseOneStatement() {
+        Statistics statistics = statistics();
+
+        List<OrderSummary> summaries = orderRepository.findRecentOrderSummaries(customer.getId(), Limit.of(5));
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+        assertThat(summaries).extracting(OrderSummary::itemCount).containsExactly(1L, 2L, 3L, 4L, 5L);
+    }
+
+    @Test
+    void dashboardStatementCountDoesNotGrowWithOrders() {
+        Statistics statistics = statistics();
+
+        CustomerDashboard dashboard = customerService.getCustomerDashboard(customer.getId());
+
+        assertThat(dashboard.partial()).isFalse();
+        assertThat(dashboard.recentOrders()).extracting(CustomerDashboard.RecentOrder::itemCount)
+                .containsExactly(1, 2, 3, 4, 5);
+        // Customer, recent orders, stats read model and recommendations: one statement each
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(4);
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+        assertThat(dashboard.stats().totalOrders()).isEqualTo(ORDER_COUNT);
+    }
+
+    @Test
+    void dashboardBatchUsesOneStatementPerSection() {
+        Statistics statistics = statistics();
+
+        MultiGetResult<CustomerDashboard> result =
+                customerService.getCustomerDashboards(List.of(customer.getId(), -1L));
+
+        // Customers, recent orders, stats read model and recommendations: one statement each for the whole batch
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(4);
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+        assertThat(result.missing()).containsExactly(-1L);
+        CustomerDashboard dashboard = result.results().getFirst().value();
+        assertThat(dashboard.partial()).isFalse();
+        assertThat(dashboard.recentOrders()).extracting(CustomerDashboard.RecentOrder::itemCount)
+                .containsExactly(1, 2, 3, 4, 5);
+        assertThat(dashboard.stats().totalOrders()).isEqualTo(ORDER_COUNT);
+    }
+
+    @Test
+    void customerReadsUseOneStatementWithoutEntities() {
+        Statistics statistics = statistics();
+
+        CustomerView view = customerService.findById(customer.getId()).orElseThrow();
+        CursorPage<CustomerView> page = customerService.findAll(customer.getId() - 1, 1);
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(view.email()).isEqualTo(customer.getEmail());
+        assertThat(page.content()).containsExactly(view);
+    }
+
+    @Test
+    void customerMultiGetUsesOneStatement() {
+        Statistics statistics = statistics();
+
+        MultiGetResult<CustomerView> result = customerService.findAllById(List.of(-1L, customer.getId(), -1L));
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(result.results()).extracting(MultiGetResult.Entry::found).containsExactly(false, true, false);
+        assertThat(result.missing()).containsExactly(-1L, -1L);
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+}
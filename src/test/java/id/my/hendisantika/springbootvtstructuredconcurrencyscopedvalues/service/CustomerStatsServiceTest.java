@@ -0,0 +1,59 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.service;
+
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Customer;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Order;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.CustomerRepository;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.CustomerStatsRepository;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.OrderRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Guards that order changes update an existing stats row by primary key and
+ * only aggregate a customer's orders to create a missing row.
+ */
+class CustomerStatsServiceTest {
+
+    private final CustomerStatsRepository customerStatsRepository = mock(CustomerStatsRepository.class);
+    private final CustomerStatsService customerStatsService = new CustomerStatsService(customerStatsRepository,
+            mock(CustomerRepository.class), mock(OrderRepository.class), mock(TransactionTemplate.class), null);
+
+    @Test
+    void existingRowIsUpdatedWithoutAggregating() {
+        when(customerStatsRepository.addDelta(any(), anyLong(), any())).thenReturn(1);
+
+        customerStatsService.orderPlaced(order(1L, "25.00"));
+        customerStatsService.orderCancelled(order(1L, "25.00"));
+
+        verify(customerStatsRepository).addDelta(1L, 1, new BigDecimal("25.00"));
+        verify(customerStatsRepository).addDelta(1L, -1, new BigDecimal("-25.00"));
+        verify(customerStatsRepository, never()).createWithDelta(any(), anyLong(), any());
+    }
+
+    @Test
+    void missingRowIsCreatedFromTheOrders() {
+        when(customerStatsRepository.addDelta(any(), anyLong(), any())).thenReturn(0);
+
+        customerStatsService.ordersPlaced(List.of(order(2L, "10.00"), order(2L, "5.50")));
+
+        verify(customerStatsRepository).addDelta(2L, 2, new BigDecimal("15.50"));
+        verify(customerStatsRepository).createWithDelta(2L, 2, new BigDecimal("15.50"));
+    }
+
+    private static Order order(Long customerId, String totalAmount) {
+        return Order.builder()
+                .customer(Customer.builder().id(customerId).build())
+                .totalAmount(new BigDecimal(totalAmount))
+                .build();
+    }
+}
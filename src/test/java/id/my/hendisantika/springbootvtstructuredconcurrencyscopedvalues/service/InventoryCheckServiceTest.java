@@ -0,0 +1,67 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.service;
+
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.concurrency.LatencyTracker;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.config.InventoryProperties;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Product;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Guards that a slow preferred warehouse cancelled by a winning hedge still
+ * enters its latency window, with at least the hedge delay, while warehouses
+ * cancelled in a plain race are left out.
+ */
+class InventoryCheckServiceTest {
+
+    private static final long PRODUCT_ID = 1L;
+    private static final String PREFERRED = "WAREHOUSE-WEST";
+    private static final Duration HEDGE_DELAY = Duration.ofMillis(10);
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private InventoryCheckService inventoryCheckService;
+
+    @BeforeEach
+    void createService() {
+        when(productRepository.findById(PRODUCT_ID)).thenReturn(Optional.of(Product.builder()
+                .id(PRODUCT_ID)
+                .name("Keyboard")
+                .sku("KB-1")
+                .price(new BigDecimal("5.00"))
+                .stockQuantity(10)
+                .build()));
+        // The slowest warehouse is preferred, and too few samples keep the hedge delay at its initial value
+        InventoryProperties properties = new InventoryProperties(new InventoryProperties.Hedging(
+                true, PREFERRED, 0.95, HEDGE_DELAY, Duration.ofMillis(5), 256, 1000));
+        inventoryCheckService = new InventoryCheckService(productRepository, properties);
+    }
+
+    @Test
+    void cancelledPreferredCallIsRecordedAsAtLeastTheHedgeDelay() {
+        for (int i = 0; i < 3; i++) {
+            assertThat(inventoryCheckService.findAvailableInventory(PRODUCT_ID, 1, true).warehouseId())
+                    .isNotEqualTo(PREFERRED);
+        }
+
+        LatencyTracker preferred = inventoryCheckService.latencyTracker(PREFERRED);
+        assertThat(preferred.sampleCount()).isEqualTo(3);
+        assertThat(preferred.percentile(0.0, 1, Duration.ZERO)).isGreaterThanOrEqualTo(HEDGE_DELAY);
+    }
+
+    @Test
+    void callsCancelledInAPlainRaceAreNotRecorded() {
+        assertThat(inventoryCheckService.findAvailableInventory(PRODUCT_ID, 1, false).warehouseId())
+                .isEqualTo("WAREHOUSE-CENTRAL");
+
+        assertThat(inventoryCheckService.latencyTracker(PREFERRED).sampleCount()).isZero();
+        assertThat(inventoryCheckService.latencyTracker("WAREHOUSE-CENTRAL").sampleCount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,286 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.service;
+
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.concurrency.AdmissionRejectedException;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.config.OrderProperties;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.OrderBatchResult;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.OrderRequest;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Customer;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Order;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Product;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.CustomerRepository;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.OrderRepository;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Guards that a batch submission reports every order in submission order:
+ * invalid orders, including null ones and those for missing or inactive
+ * products, are skipped without failing the rest, and a chunk whose stock changed since the
+ * batch was read is retried order by order so only the orders that no longer
+ * fit fail. Any other failure fails its chunk only, unless it is a timeout or a
+ * rejected connection, which stops the batch with the orders created so far.
+ */
+class OrderBatchServiceTest {
+
+    private static final long CUSTOMER_ID = 1L;
+    private static final long PRODUCT_ID = 10L;
+    private static final long INACTIVE_PRODUCT_ID = 11L;
+    private static final long UNFLAGGED_PRODUCT_ID = 12L;
+
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final CustomerRepository customerRepository = mock(CustomerRepository.class);
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final CustomerStatsService customerStatsService = mock(CustomerStatsService.class);
+
+    /**
+     * Stock as the database has it, which guarded reservations are checked against.
+     */
+    private final Map<Long, Integer> storedStock = new HashMap<>();
+    private final AtomicLong orderIds = new AtomicLong();
+    private final Answer<List<Order>> assignIds = invocation -> {
+        List<Order> orders = invocation.getArgument(0);
+        orders.forEach(order -> order.setId(orderIds.incrementAndGet()));
+        return orders;
+    };
+
+    @BeforeEach
+    void stubRepositories() {
+        Customer customer = Customer.builder()
+                .id(CUSTOMER_ID)
+                .firstName("Batch")
+                .lastName("Buyer")
+                .email("batch@example.com")
+                .shippingAddress("Jl. Thamrin No. 1")
+                .createdAt(LocalDateTime.now())
+                .build();
+        when(customerRepository.findAllById(anyList())).thenAnswer(invocation ->
+                ((Collection<?>) invocation.getArgument(0)).contains(CUSTOMER_ID) ? List.of(customer) : List.of());
+        when(customerRepository.getReferenceById(CUSTOMER_ID)).thenReturn(customer);
+
+        Map<Long, Product> products = Map.of(
+                PRODUCT_ID, product(PRODUCT_ID, "Keyboard", true),
+                INACTIVE_PRODUCT_ID, product(INACTIVE_PRODUCT_ID, "Retired Keyboard", false),
+                UNFLAGGED_PRODUCT_ID, product(UNFLAGGED_PRODUCT_ID, "Unflagged Keyboard", null));
+        products.keySet().forEach(id -> storedStock.put(id, 100));
+        when(productRepository.findAllById(anyList())).thenAnswer(invocation ->
+                ((Collection<?>) invocation.getArgument(0)).stream().map(products::get)
+                        .filter(Objects::nonNull).toList());
+        doAnswer(invocation -> {
+            Map<Long, Integer> quantities = invocation.getArgument(0);
+            quantities.forEach((productId, quantity) -> {
+                if (storedStock.get(productId) < quantity) {
+                    throw new IllegalStateException("Insufficient stock for product " + productId);
+                }
+            });
+            quantities.forEach((productId, quantity) -> storedStock.merge(productId, -quantity, Integer::sum));
+            return null;
+        }).when(productRepository).reserveStock(anyMap());
+
+        doAnswer(assignIds).when(orderRepository).saveAll(anyList());
+    }
+
+    @Test
+    void batchSubmissionReportsEveryOrder() {
+        // The product has 100 in stock: the first two orders take 80, the third no longer fits
+        List<OrderRequest> requests = List.of(
+                orderRequest(CUSTOMER_ID, PRODUCT_ID, 40),
+                orderRequest(CUSTOMER_ID, PRODUCT_ID, 40),
+                orderRequest(CUSTOMER_ID, PRODUCT_ID, 40),
+                orderRequest(-1L, PRODUCT_ID, 1),
+                orderRequest(CUSTOMER_ID, -1L, 1));
+
+        OrderBatchResult result = batchService(500).submit(requests);
+
+        assertThat(result.results()).extracting(OrderBatchResult.Entry::index).containsExactly(0, 1, 2, 3, 4);
+        assertThat(result.results()).extracting(OrderBatchResult.Entry::created)
+                .containsExactly(true, true, false, false, false);
+        assertThat(result.results().get(2).error()).startsWith("Insufficient stock");
+        assertThat(result.results().get(3).error()).isEqualTo("Customer not found: -1");
+        assertThat(result.results().get(4).error()).isEqualTo("Product not found: -1");
+        assertThat(result.created()).isEqualTo(2);
+        assertThat(result.results().getFirst().totalAmount()).isEqualByComparingTo("200.00");
+        // One reservation for the whole chunk
+        verify(productRepository).reserveStock(Map.of(PRODUCT_ID, 80));
+        assertThat(storedStock).containsEntry(PRODUCT_ID, 20);
+    }
+
+    @Test
+    void rejectsInactiveAndUnflaggedProducts() {
+        List<OrderRequest> requests = List.of(
+                orderRequest(CUSTOMER_ID, INACTIVE_PRODUCT_ID, 1),
+                orderRequest(CUSTOMER_ID, UNFLAGGED_PRODUCT_ID, 1),
+                orderRequest(CUSTOMER_ID, PRODUCT_ID, 1));
+
+        OrderBatchResult result = batchService(500).submit(requests);
+
+        assertThat(result.results()).extracting(OrderBatchResult.Entry::error).containsExactly(
+                "Product is not active: Retired Keyboard",
+                "Product is not active: Unflagged Keyboard",
+                null);
+        assertThat(storedStock).containsEntry(INACTIVE_PRODUCT_ID, 100).containsEntry(UNFLAGGED_PRODUCT_ID, 100);
+    }
+
+    @Test
+    void rejectsOrdersWithoutCustomerOrItemsOrWithInvalidQuantities() {
+        List<OrderRequest> requests = List.of(
+                new OrderRequest(null, List.of(new OrderRequest.OrderItemRequest(PRODUCT_ID, 1)), null, null),
+                new OrderRequest(CUSTOMER_ID, List.of(), null, null),
+                orderRequest(CUSTOMER_ID, PRODUCT_ID, 0),
+                orderRequest(CUSTOMER_ID, PRODUCT_ID, 1));
+
+        OrderBatchResult result = batchService(500).submit(requests);
+
+        assertThat(result.results()).extracting(OrderBatchResult.Entry::error).containsExactly(
+                "Customer ID and at least one item are required",
+                "Customer ID and at least one item are required",
+                "Every item needs a product ID and a positive quantity",
+                null);
+    }
+
+    @Test
+    void reportsNullOrdersAndItemsAsFailed() {
+        List<OrderRequest> requests = Arrays.asList(
+                null,
+                new OrderRequest(CUSTOMER_ID, Arrays.asList(new OrderRequest.OrderItemRequest(PRODUCT_ID, 1), null),
+                        null, null),
+                orderRequest(CUSTOMER_ID, PRODUCT_ID, 1));
+
+        OrderBatchResult result = batchService(500).submit(requests);
+
+        assertThat(result.results()).extracting(OrderBatchResult.Entry::error).containsExactly(
+                "Order is missing",
+                "Every item needs a product ID and a positive quantity",
+                null);
+    }
+
+    @Test
+    void chunkThatNoLongerFitsIsRetriedOrderByOrder() {
+        // Another request took stock after the batch read 100: only 50 remain
+        storedStock.put(PRODUCT_ID, 50);
+        List<OrderRequest> requests = IntStream.range(0, 3).mapToObj(i -> orderRequest(CUSTOMER_ID, PRODUCT_ID, 20))
+                .toList();
+
+        OrderBatchResult result = batchService(500).submit(requests);
+
+        assertThat(result.results()).extracting(OrderBatchResult.Entry::created).containsExactly(true, true, false);
+        assertThat(result.results().getLast().error()).isEqualTo("Insufficient stock for product " + PRODUCT_ID);
+        assertThat(storedStock).containsEntry(PRODUCT_ID, 10);
+    }
+
+    @Test
+    void failedChunkDoesNotFailTheOthers() {
+        doAnswer(assignIds)
+                .doThrow(new CannotAcquireLockException("Lock wait timeout exceeded"))
+                .doThrow(new NullPointerException("Unexpected"))
+                .doAnswer(assignIds)
+                .when(orderRepository).saveAll(anyList());
+        List<OrderRequest> requests = IntStream.range(0, 7).mapToObj(i -> orderRequest(CUSTOMER_ID, PRODUCT_ID, 1))
+                .toList();
+
+        OrderBatchResult result = batchService(2).submit(requests);
+
+        assertThat(result.results()).extracting(OrderBatchResult.Entry::created)
+                .containsExactly(true, true, false, false, false, false, true);
+        assertThat(result.results()).extracting(OrderBatchResult.Entry::error).containsExactly(
+                null, null, "Lock wait timeout exceeded", "Lock wait timeout exceeded", "Unexpected", "Unexpected", null);
+        assertThat(result.failed()).isEqualTo(4);
+    }
+
+    @Test
+    void timeoutStopsTheBatchButReportsWhatWasCreated() {
+        doAnswer(assignIds)
+                .doThrow(new QueryTimeoutException("Statement cancelled due to timeout"))
+                .doAnswer(assignIds)
+                .when(orderRepository).saveAll(anyList());
+        List<OrderRequest> requests = IntStream.range(0, 5).mapToObj(i -> orderRequest(CUSTOMER_ID, PRODUCT_ID, 1))
+                .toList();
+
+        OrderBatchResult result = batchService(2).submit(requests);
+
+        assertThat(result.results()).extracting(OrderBatchResult.Entry::created)
+                .containsExactly(true, true, false, false, false);
+        assertThat(result.results().get(2).error()).isEqualTo("Statement cancelled due to timeout");
+        assertThat(result.results().getLast().error())
+                .isEqualTo("Batch stopped before this order: Statement cancelled due to timeout");
+        verify(orderRepository, times(2)).saveAll(anyList());
+    }
+
+    @Test
+    void rejectedConnectionStopsTheBatch() {
+        doThrow(new CannotCreateTransactionException("Could not open JPA EntityManager for transaction",
+                new AdmissionRejectedException("Too many requests waiting for a connection", Duration.ofSeconds(1))))
+                .when(productRepository).reserveStock(anyMap());
+        List<OrderRequest> requests = IntStream.range(0, 3).mapToObj(i -> orderRequest(CUSTOMER_ID, PRODUCT_ID, 1))
+                .toList();
+
+        OrderBatchResult result = batchService(1).submit(requests);
+
+        assertThat(result.failed()).isEqualTo(3);
+        assertThat(result.results().getLast().error()).startsWith("Batch stopped before this order");
+        verify(productRepository).reserveStock(anyMap());
+    }
+
+    @Test
+    void rejectsEmptyAndOversizedBatches() {
+        OrderBatchService batchService = batchService(500);
+        List<OrderRequest> oversized = IntStream.range(0, 11).mapToObj(i -> orderRequest(CUSTOMER_ID, PRODUCT_ID, 1))
+                .toList();
+
+        assertThatThrownBy(() -> batchService.submit(List.of())).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> batchService.submit(oversized)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private OrderBatchService batchService(int chunkSize) {
+        OrderProperties properties = new OrderProperties(0, new OrderProperties.Validation(500),
+                new OrderProperties.Batch(10, chunkSize), new OrderProperties.Export(500, 2, Duration.ofSeconds(30)));
+        return new OrderBatchService(orderRepository, customerRepository, productRepository,
+                new OrderNumberGenerator(properties, orderRepository), customerStatsService, properties,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), mock(ApplicationEventPublisher.class));
+    }
+
+    private static Product product(long id, String name, Boolean active) {
+        return Product.builder()
+                .id(id)
+                .name(name)
+                .sku("SKU-" + id)
+                .price(new BigDecimal("5.00"))
+                .stockQuantity(100)
+                .isActive(active)
+                .build();
+    }
+
+    private static OrderRequest orderRequest(Long customerId, Long productId, int quantity) {
+        return new OrderRequest(customerId, List.of(new OrderRequest.OrderItemRequest(productId, quantity)), null, null);
+    }
+}
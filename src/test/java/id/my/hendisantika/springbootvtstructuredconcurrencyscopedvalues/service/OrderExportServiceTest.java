@@ -0,0 +1,193 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.service;
+
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.concurrency.AdmissionRejectedException;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.config.OrderProperties;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.OrderExport;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.OrderExportRow;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Order;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.OrderRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Guards that the order export groups item rows into one line per order,
+ * walks the orders in keyset pages and lets no more than the configured
+ * number of exports run at once.
+ */
+class OrderExportServiceTest {
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+
+    @Test
+    void groupsRowsIntoOneLinePerOrder() throws IOException {
+        OrderExportService exportService = exportService(10, 1);
+        when(orderRepository.findExportOrderIds(null, null, null, 0L, Limit.of(10))).thenReturn(List.of(1L, 2L, 3L));
+        when(orderRepository.findOrderExportRows(List.of(1L, 2L, 3L))).thenReturn(List.of(
+                row(1, 11L), row(1, 12L), row(2, null), row(3, 31L)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertThat(exportService.export(null, null, null, out)).isEqualTo(3);
+
+        List<OrderExport> lines = lines(out);
+        assertThat(lines).extracting(OrderExport::id).containsExactly(1L, 2L, 3L);
+        assertThat(lines.get(0).items()).extracting(OrderExport.Item::id).containsExactly(11L, 12L);
+        assertThat(lines.get(1).items()).isEmpty();
+        assertThat(lines.get(2).items()).extracting(OrderExport.Item::productSku).containsExactly("SKU-31");
+        // A short page is the last one, no further query is needed
+        verify(orderRepository, never()).findExportOrderIds(any(), any(), any(), eq(3L), any());
+    }
+
+    @Test
+    void readsTheOrdersInKeysetPages() throws IOException {
+        OrderExportService exportService = exportService(2, 1);
+        LocalDateTime from = LocalDateTime.of(2026, 1, 1, 0, 0);
+        generateOrders(4);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertThat(exportService.export(Order.OrderStatus.DELIVERED, from, null, out)).isEqualTo(4);
+
+        assertThat(lines(out)).extracting(OrderExport::id).containsExactly(1L, 2L, 3L, 4L);
+        verify(orderRepository).findExportOrderIds(Order.OrderStatus.DELIVERED, from, null, 0L, Limit.of(2));
+        verify(orderRepository).findExportOrderIds(Order.OrderStatus.DELIVERED, from, null, 2L, Limit.of(2));
+        // The second page was full, so one more query finds the end
+        verify(orderRepository).findExportOrderIds(Order.OrderStatus.DELIVERED, from, null, 4L, Limit.of(2));
+        verify(orderRepository).findOrderExportRows(List.of(3L, 4L));
+    }
+
+    @Test
+    void writesNothingWhenNoOrderMatches() throws IOException {
+        OrderExportService exportService = exportService(10, 1);
+        generateOrders(0);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertThat(exportService.export(null, null, null, out)).isZero();
+
+        assertThat(out.size()).isZero();
+        verify(orderRepository, never()).findOrderExportRows(anyCollection());
+    }
+
+    @Test
+    void rejectsExportsBeyondTheLimitUntilOneFinishes() throws Exception {
+        OrderExportService exportService = exportService(10, 1);
+        generateOrders(3);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch clientReads = new CountDownLatch(1);
+        OutputStream slowClient = new ByteArrayOutputStream() {
+            @Override
+            public void flush() {
+                writing.countDown();
+                await(clientReads);
+            }
+        };
+
+        CompletableFuture<Long> running = CompletableFuture.supplyAsync(() -> {
+            try {
+                return exportService.export(null, null, null, slowClient);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> exportService.export(null, null, null, new ByteArrayOutputStream()))
+                .isInstanceOf(AdmissionRejectedException.class)
+                .extracting(e -> ((AdmissionRejectedException) e).getRetryAfter())
+                .isEqualTo(Duration.ofSeconds(30));
+
+        clientReads.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo(3);
+        assertThat(exportService.export(null, null, null, new ByteArrayOutputStream())).isEqualTo(3);
+    }
+
+    @Test
+    void failedExportFreesItsSlot() throws IOException {
+        OrderExportService exportService = exportService(10, 1);
+        generateOrders(2);
+        OutputStream brokenClient = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        assertThatThrownBy(() -> exportService.export(null, null, null, brokenClient)).isInstanceOf(IOException.class);
+
+        assertThat(exportService.export(null, null, null, new ByteArrayOutputStream())).isEqualTo(2);
+    }
+
+    private OrderExportService exportService(int pageSize, int maxConcurrent) {
+        OrderProperties properties = new OrderProperties(0, new OrderProperties.Validation(500),
+                new OrderProperties.Batch(5000, 500),
+                new OrderProperties.Export(pageSize, maxConcurrent, Duration.ofSeconds(30)));
+        return new OrderExportService(orderRepository, jsonMapper, mock(PlatformTransactionManager.class),
+                properties);
+    }
+
+    /**
+     * Answers the keyset queries with orders 1 to {@code count}, one item each.
+     */
+    private void generateOrders(int count) {
+        when(orderRepository.findExportOrderIds(any(), any(), any(), anyLong(), any())).thenAnswer(invocation -> {
+            long after = invocation.getArgument(3);
+            Limit limit = invocation.getArgument(4);
+            return LongStream.rangeClosed(after + 1, Math.min(after + limit.max(), count)).boxed().toList();
+        });
+        when(orderRepository.findOrderExportRows(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.stream().map(id -> row(id, id * 10)).toList();
+        });
+    }
+
+    private List<OrderExport> lines(ByteArrayOutputStream out) {
+        String ndjson = out.toString(StandardCharsets.UTF_8);
+        assertThat(ndjson).endsWith("\n");
+        return Arrays.stream(ndjson.split("\n"))
+                .map(line -> jsonMapper.readValue(line, OrderExport.class))
+                .toList();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static OrderExportRow row(long orderId, Long itemId) {
+        return new OrderExportRow(orderId, "ORD-" + orderId, 7L, Order.OrderStatus.DELIVERED,
+                new BigDecimal("49.99"), "Jl. Sudirman No. " + orderId, LocalDateTime.of(2026, 2, 1, 12, 0),
+                itemId, itemId != null ? itemId % 100 : null, itemId != null ? "SKU-" + itemId : null,
+                itemId != null ? 1 : null, itemId != null ? new BigDecimal("49.99") : null,
+                itemId != null ? new BigDecimal("49.99") : null);
+    }
+}
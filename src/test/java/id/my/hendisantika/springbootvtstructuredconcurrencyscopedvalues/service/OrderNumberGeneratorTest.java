@@ -0,0 +1,163 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.service;
+
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.config.OrderProperties;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.OrderRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Guards that order numbers are strictly increasing per instance, also when a
+ * millisecond's sequence runs out or the clock steps back, that they never
+ * repeat after a restart, and that concurrent callers and instances with
+ * different node ids get distinct numbers.
+ */
+class OrderNumberGeneratorTest {
+
+    private static final long NOW = Instant.parse("2026-10-17T08:00:00Z").toEpochMilli();
+    private static final int SEQUENCE_SIZE = 4096;
+
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+
+    @Test
+    void numbersAreFixedWidthAndStrictlyIncreasing() {
+        OrderNumberGenerator generator = generator(0, System::currentTimeMillis);
+
+        List<String> numbers = generate(generator, 10_000);
+
+        assertThat(numbers).allMatch(number -> number.matches("ORD-[0-9A-HJKMNP-TV-Z]{13}"));
+        assertThat(numbers).isSortedAccordingTo(String::compareTo).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void exhaustedSequenceCarriesIntoTheNextMillisecond() {
+        OrderNumberGenerator frozen = generator(0, () -> NOW);
+
+        List<String> numbers = generate(frozen, SEQUENCE_SIZE + 1);
+
+        assertThat(numbers).isSortedAccordingTo(String::compareTo).doesNotHaveDuplicates();
+        // The 4097th number is the first one of the next millisecond
+        assertThat(numbers.getLast()).isEqualTo(generator(0, () -> NOW + 1).nextOrderNumber());
+    }
+
+    @Test
+    void clockSteppingBackDoesNotReissueNumbers() {
+        AtomicLong clock = new AtomicLong(NOW);
+        OrderNumberGenerator generator = generator(0, clock::get);
+
+        String beforeStep = generator.nextOrderNumber();
+        clock.addAndGet(-60_000);
+        String afterStep = generator.nextOrderNumber();
+
+        assertThat(afterStep).isGreaterThan(beforeStep);
+    }
+
+    @Test
+    void restartContinuesAfterTheHighestStoredNumber() {
+        OrderNumberGenerator beforeRestart = generator(0, () -> NOW);
+        List<String> issued = generate(beforeRestart, 3 * SEQUENCE_SIZE);
+        when(orderRepository.findHighestOrderNumbers(anyInt(), any())).thenReturn(List.of(issued.getLast()));
+
+        // Restarts onto a clock a minute behind, and one still inside the carried-ahead milliseconds
+        String afterStep = generator(0, () -> NOW - 60_000).nextOrderNumber();
+        String sameMillisecond = generator(0, () -> NOW + 1).nextOrderNumber();
+
+        assertThat(afterStep).isGreaterThan(issued.getLast());
+        assertThat(sameMillisecond).isGreaterThan(issued.getLast());
+        verify(orderRepository, atLeastOnce()).findHighestOrderNumbers(17, Limit.of(1));
+    }
+
+    @Test
+    void startsFromTheClockWhenTheHighestNumberIsNotAGeneratedOne() {
+        when(orderRepository.findHighestOrderNumbers(anyInt(), any())).thenReturn(List.of("LEGACY-00000IO"));
+
+        String number = generator(0, () -> NOW).nextOrderNumber();
+
+        assertThat(number).isEqualTo(generator(0, () -> NOW, List.of()).nextOrderNumber());
+    }
+
+    @Test
+    void concurrentCallersGetDistinctNumbers() throws Exception {
+        OrderNumberGenerator generator = generator(0, System::currentTimeMillis);
+        Set<String> numbers = ConcurrentHashMap.newKeySet();
+        int threads = 16;
+        int perThread = 20_000;
+        CountDownLatch start = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    List<String> own = generate(generator, perThread);
+                    assertThat(own).isSortedAccordingTo(String::compareTo);
+                    numbers.addAll(own);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        assertThat(numbers).hasSize(threads * perThread);
+    }
+
+    @Test
+    void instancesWithDifferentNodeIdsNeverCollide() {
+        Set<String> numbers = new HashSet<>(generate(generator(1, () -> NOW), 2 * SEQUENCE_SIZE));
+        numbers.addAll(generate(generator(2, () -> NOW), 2 * SEQUENCE_SIZE));
+
+        assertThat(numbers).hasSize(4 * SEQUENCE_SIZE);
+    }
+
+    @Test
+    void rejectsNodeIdsOutOfRange() {
+        assertThatThrownBy(() -> generator(1024, () -> NOW)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> generator(-1, () -> NOW)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private OrderNumberGenerator generator(int nodeId, LongSupplier clock) {
+        return new OrderNumberGenerator(properties(nodeId), orderRepository, clock);
+    }
+
+    private static OrderNumberGenerator generator(int nodeId, LongSupplier clock, List<String> highestStored) {
+        OrderRepository empty = mock(OrderRepository.class);
+        when(empty.findHighestOrderNumbers(anyInt(), any())).thenReturn(highestStored);
+        return new OrderNumberGenerator(properties(nodeId), empty, clock);
+    }
+
+    private static OrderProperties properties(int nodeId) {
+        return new OrderProperties(nodeId, null, null, null);
+    }
+
+    private static List<String> generate(OrderNumberGenerator generator, int count) {
+        List<String> numbers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            numbers.add(generator.nextOrderNumber());
+        }
+        return numbers;
+    }
+}
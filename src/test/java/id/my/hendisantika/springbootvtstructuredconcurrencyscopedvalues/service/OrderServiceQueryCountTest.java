@@ -0,0 +1,229 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.service;
+
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.CursorPage;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.MultiGetResult;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.OrderResponse;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.dto.OrderSummary;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Customer;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Order;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.OrderItem;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Product;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.CustomerRepository;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.OrderRepository;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.ProductRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Guards the number of SQL statements the order listing and detail reads
+ * issue, and that they are answered from projections without loading entities.
+ * Status changes load the order with its customer, items and products through
+ * one fetch plan instead of lazy loads, and reinstating a cancelled order
+ * reserves its stock again.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "app.multi-get.chunk-size=" + OrderServiceQueryCountTest.MULTI_GET_CHUNK_SIZE
+})
+class OrderServiceQueryCountTest {
+
+    static final int MULTI_GET_CHUNK_SIZE = 3;
+    private static final int ORDER_COUNT = 8;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Customer customer;
+    private Product product;
+    private List<Order> orders;
+
+    @BeforeEach
+    void createCustomerWithOrders() {
+        long suffix = System.nanoTime();
+        customer = customerRepository.save(Customer.builder()
+                .firstName("Order")
+                .lastName("Reads")
+                .email("order-reads-" + suffix + "@example.com")
+                .createdAt(LocalDateTime.now())
+                .build());
+        product = productRepository.save(Product.builder()
+                .name("Order Reads Product")
+                .sku("OR-" + suffix)
+                .price(new BigDecimal("5.00"))
+                .stockQuantity(100)
+                .build());
+
+        // Order i has i + 1 items
+        orders = new ArrayList<>();
+        for (int i = 0; i < ORDER_COUNT; i++) {
+            Order order = Order.builder()
+                    .orderNumber("OR-" + suffix + "-" + i)
+                    .customer(customer)
+                    .createdAt(LocalDateTime.now())
+                    .build();
+            for (int j = 0; j <= i; j++) {
+                OrderItem item = OrderItem.builder()
+                        .product(product)
+                        .quantity(1)
+                        .unitPrice(product.getPrice())
+                        .build();
+                item.calculateSubtotal();
+                order.addItem(item);
+            }
+            order.calculateTotalAmount();
+            orders.add(order);
+        }
+        orders = orderRepository.saveAll(orders);
+    }
+
+    @AfterEach
+    void deleteCustomerWithOrders() {
+        jdbcTemplate.update("DELETE oi FROM order_items oi JOIN orders o ON o.id = oi.order_id WHERE o.customer_id = ?",
+                customer.getId());
+        jdbcTemplate.update("DELETE FROM orders WHERE customer_id = ?", customer.getId());
+        jdbcTemplate.update("DELETE FROM customer_stats WHERE customer_id = ?", customer.getId());
+        customerRepository.delete(customer);
+        productRepository.delete(product);
+    }
+
+    @Test
+    void listingPagesUseOneStatement() {
+        Statistics statistics = statistics();
+
+        CursorPage<OrderSummary> first = orderService.findByCustomerId(customer.getId(), 0, 5);
+        CursorPage<OrderSummary> second = orderService.findByCustomerId(customer.getId(), first.nextCursor(), 5);
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(first.content()).extracting(OrderSummary::itemCount).containsExactly(1L, 2L, 3L, 4L, 5L);
+        assertThat(second.content()).extracting(OrderSummary::itemCount).containsExactly(6L, 7L, 8L);
+        assertThat(second.nextCursor()).isNull();
+    }
+
+    @Test
+    void orderDetailsUseOneStatement() {
+        Order order = orders.getLast();
+        Statistics statistics = statistics();
+
+        OrderResponse byId = orderService.findByIdWithDetails(order.getId()).orElseThrow();
+        OrderResponse byNumber = orderService.findByOrderNumber(order.getOrderNumber()).orElseThrow();
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(byId.items()).hasSize(ORDER_COUNT)
+                .allSatisfy(item -> assertThat(item.product().sku()).isEqualTo(product.getSku()));
+        assertThat(byId.customer().fullName()).isEqualTo("Order Reads");
+        assertThat(byNumber).usingRecursiveComparison().isEqualTo(byId);
+    }
+
+    @Test
+    void detailsFetchPlanLoadsTheOrderGraphInOneStatement() {
+        Order order = orders.getLast();
+        Statistics statistics = statistics();
+
+        Order loaded = orderRepository.findWithDetailsById(order.getId()).orElseThrow();
+
+        // Outside of any transaction, so a lazy association left out of the plan would throw here
+        assertThat(loaded.getCustomer().getFullName()).isEqualTo("Order Reads");
+        assertThat(loaded.getItems()).hasSize(ORDER_COUNT)
+                .allSatisfy(item -> assertThat(item.getProduct().getSku()).isEqualTo(product.getSku()));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void statusChangesDoNotLazyLoad() {
+        Order order = orders.getLast();
+        Statistics statistics = statistics();
+
+        OrderResponse confirmed = orderService.updateStatus(order.getId(), Order.OrderStatus.CONFIRMED);
+
+        // The order with its graph, then the order update
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(confirmed.status()).isEqualTo(Order.OrderStatus.CONFIRMED.name());
+        assertThat(confirmed.items()).hasSize(ORDER_COUNT);
+
+        statistics.clear();
+        OrderResponse cancelled = orderService.cancelOrder(order.getId());
+
+        assertThat(statistics.getEntityFetchCount()).isZero();
+        assertThat(statistics.getCollectionFetchCount()).isZero();
+        assertThat(cancelled.status()).isEqualTo(Order.OrderStatus.CANCELLED.name());
+        assertThat(cancelled.customer().fullName()).isEqualTo("Order Reads");
+    }
+
+    @Test
+    void reinstatingACancelledOrderReservesItsStockAgain() {
+        Order order = orders.getLast();
+        orderService.cancelOrder(order.getId());
+        assertThat(stockQuantity()).isEqualTo(100 + ORDER_COUNT);
+
+        orderService.updateStatus(order.getId(), Order.OrderStatus.PENDING);
+        assertThat(stockQuantity()).isEqualTo(100);
+
+        // Sold out while the order was cancelled again: it cannot be reinstated
+        orderService.cancelOrder(order.getId());
+        jdbcTemplate.update("UPDATE products SET stock_quantity = 0 WHERE id = ?", product.getId());
+        assertThatThrownBy(() -> orderService.updateStatus(order.getId(), Order.OrderStatus.PENDING))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(orderRepository.findById(order.getId())).get()
+                .extracting(Order::getStatus).isEqualTo(Order.OrderStatus.CANCELLED);
+    }
+
+    @Test
+    void multiGetUsesOneStatementPerChunk() {
+        List<Long> ids = new ArrayList<>(orders.reversed().stream().map(Order::getId).toList());
+        ids.add(2, -1L);
+        Statistics statistics = statistics();
+
+        MultiGetResult<OrderResponse> result = orderService.findAllById(ids);
+
+        // 8 distinct existing ids plus one missing id, in chunks of 3
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(result.results()).extracting(MultiGetResult.Entry::id).containsExactlyElementsOf(ids);
+        assertThat(result.missing()).containsExactly(-1L);
+        assertThat(result.results().getFirst().value().items()).hasSize(ORDER_COUNT);
+        assertThat(result.results().getLast().value().items()).hasSize(1);
+    }
+
+    private int stockQuantity() {
+        return jdbcTemplate.queryForObject("SELECT stock_quantity FROM products WHERE id = ?", Integer.class,
+                product.getId());
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+}
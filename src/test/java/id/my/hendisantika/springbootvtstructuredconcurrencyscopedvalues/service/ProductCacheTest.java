@@ -0,0 +1,92 @@
+package id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.service;
+
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.catalog.CatalogRow;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.catalog.StockLevel;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.config.ProductCacheProperties;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.entity.Product;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.event.ProductChangedEvent;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.event.ProductStockChangedEvent;
+import id.my.hendisantika.springbootvtstructuredconcurrencyscopedvalues.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Guards that a bulk load racing with a committed change does not keep the
+ * old row cached for the whole TTL.
+ */
+class ProductCacheTest {
+
+    private static final int CHUNK_SIZE = 10;
+
+    private ProductRepository productRepository;
+    private ProductCache productCache;
+
+    @BeforeEach
+    void createCache() {
+        productRepository = mock(ProductRepository.class);
+        productCache = new ProductCache(productRepository,
+                new ProductCacheProperties(100, Duration.ofMinutes(10), Duration.ofMinutes(10)));
+    }
+
+    @Test
+    void bulkLoadIsCached() {
+        when(productRepository.findCatalogRowsByIdIn(anyList())).thenReturn(List.of(row(1L, "9.99", 5)));
+
+        productCache.findAllById(List.of(1L), CHUNK_SIZE);
+        Map<Long, Product> products = productCache.findAllById(List.of(1L), CHUNK_SIZE);
+
+        assertThat(products).containsOnlyKeys(1L);
+        verify(productRepository, times(1)).findCatalogRowsByIdIn(anyList());
+    }
+
+    @Test
+    void bulkLoadRacingWithAProductChangeIsNotKept() {
+        // The change commits after the old row was read, but before the cache put it
+        when(productRepository.findCatalogRowsByIdIn(anyList()))
+                .thenAnswer(invocation -> {
+                    productCache.onProductChanged(new ProductChangedEvent(1L));
+                    return List.of(row(1L, "9.99", 5));
+                })
+                .thenReturn(List.of(row(1L, "19.99", 5)));
+
+        productCache.findAllById(List.of(1L), CHUNK_SIZE);
+
+        assertThat(productCache.findAllById(List.of(1L), CHUNK_SIZE).get(1L).getPrice())
+                .isEqualByComparingTo("19.99");
+    }
+
+    @Test
+    void bulkLoadRacingWithAStockChangeKeepsTheCatalogButNotTheStock() {
+        when(productRepository.findCatalogRowsByIdIn(anyList()))
+                .thenAnswer(invocation -> {
+                    productCache.onProductStockChanged(ProductStockChangedEvent.of(1L));
+                    return List.of(row(1L, "9.99", 5));
+                });
+        when(productRepository.findStockLevelsByIdIn(anyList()))
+                .thenReturn(List.of(new StockLevel(1L, 3)));
+
+        productCache.findAllById(List.of(1L), CHUNK_SIZE);
+
+        assertThat(productCache.findAllById(List.of(1L), CHUNK_SIZE).get(1L).getStockQuantity()).isEqualTo(3);
+        verify(productRepository, times(1)).findCatalogRowsByIdIn(anyList());
+    }
+
+    private static CatalogRow row(Long id, String price, int stockQuantity) {
+        LocalDateTime now = LocalDateTime.now();
+        return new CatalogRow(id, "Product " + id, null, "SKU-" + id, new BigDecimal(price), stockQuantity,
+                "Test", null, true, now, now);
+    }
+}